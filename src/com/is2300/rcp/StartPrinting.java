@@ -16,13 +16,16 @@
  */
 package com.is2300.rcp;
 
+import com.is2300.cmdlineparser.CmdLineParser;
 import com.is2300.rcp.desktop.RcpFrame;
 import com.is2300.rcp.enums.SysExits;
+import com.is2300.rcp.filters.PathRules;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -103,6 +106,11 @@ public class StartPrinting {
     public static final int BUILD;
     public static final String WARRANTY;
     public static final Properties PROPS;
+    /**
+     * Settings given on the command line for this run only. These take
+     * precedence over `PROPS` and are never written to the configuration file.
+     */
+    public static final Properties ARGS;
     
     static {
         BUILD  = -1 * ((int)System.currentTimeMillis() / 5000000);
@@ -142,6 +150,7 @@ public class StartPrinting {
         WARRANTY = sb.toString();
                 
         PROPS = new Properties();
+        ARGS = new Properties();
         
         try (FileReader reader = new FileReader(System.getProperty("user.home")
                 + System.getProperty("file.separator") + "isrcp.conf")) {
@@ -236,10 +245,40 @@ public class StartPrinting {
 //        PrettyPrinter printer = new PrettyPrinter("/home/sean/tmp/test.txt", 70, 50);//
         ////////////////////////////////////////////////////////////////////////
         
+        CmdLineParser parser = new CmdLineParser(args);
+        putArgument(parser, "walker.include", "-i", "--include");
+        putArgument(parser, "walker.exclude", "--exclude");
+        putArgument(parser, "deposit.pages", "--deposit");
+        if ( parser.isSwitchPresent("--gitignore") ) {
+            ARGS.setProperty("walker.gitignore", "true");
+        }
+        
         System.out.println(LocalDate.now().toString());
         RcpFrame.main(args);
     }
     
+    /**
+     * Stores the values given for any of the `switches` in `ARGS` under the
+     * `key`, joined by commas. Nothing is stored when the switch is absent.
+     * 
+     * @param parser    The parsed command line.
+     * @param key       The setting to store the values under.
+     * @param switches  The switches that supply the setting.
+     */
+    private static void putArgument(CmdLineParser parser, String key, 
+            String... switches) {
+        String used = parser.getKeyForValue(switches);
+        
+        if ( used.isEmpty() ) {
+            return;
+        }
+        
+        List<String> values = parser.getValueList(used);
+        
+        if ( values != null && !values.isEmpty() ) {
+            ARGS.setProperty(key, String.join(",", values));
+        }
+    }
     
     static void showHelp(SysExits exitStatus) {
         System.out.println("Recursive Code Printer (ISRCP)");
@@ -263,6 +302,17 @@ public class StartPrinting {
         System.out.println("   -l lang | --lang lang\tThe language code for the"
                 + " files to process");
         System.out.println("\t-h | --help\t\tShow this help and exit");
+        System.out.println("   -i glob | --include glob\tOnly print files "
+                + "matching the glob(s)");
+        System.out.println("   --exclude glob\t\tSkip files and folders "
+                + "matching the glob(s)");
+        System.out.println("\t\t\t\t(default: " + PathRules.DEFAULT_EXCLUDES
+                + ")");
+        System.out.println("\t--gitignore\t\tAlso skip whatever git "
+                + "ignores");
+        System.out.println("   --deposit pages\t\tOnly print the first and "
+                + "last pages, i.e., 25,");
+        System.out.println("\t\t\t\tfor a copyright deposit");
         System.out.println("\t-v | --version\t\tShow program version and exit");
         System.out.println("\t-w | --waranty\t\tShow warranty details");
         System.out.println("\t-x | --extension\tExtension of the files to print");
@@ -319,6 +369,7 @@ public class StartPrinting {
                 "R", "Ruby", "Ruby on Rails", "SSL", "TCL", "Unreal Script",
                 "VB.net", "Visual Basic", "XML"}
         */
+        sb.append("All Known Languages (all)\t~ OR ~ several codes, i.e.: java,js,xml\n");
         sb.append("Ada Body (adab)\t\t\tAda Specification (adas)\tArduino / Nano Sketch (ardns)");
         sb.append("\nASP (asp)\t\t\tASP.Net (aspnet)\t\tBash Scripting (bash)\t\tBASIC (basic)\n");
         sb.append("Batch Files (bat)\t\tC (c)\t\t\t\tC++ (cpp)\t\t\tC# (csharp)\n");
@@ -19,20 +19,41 @@ package com.is2300.rcp.desktop;
 import com.is2300.rcp.StartPrinting;
 import com.is2300.rcp.enums.SysExits;
 import com.is2300.rcp.printer.FileFilterFactory;
-import com.is2300.rcp.printer.FormattedPrinter;
+import com.is2300.rcp.filters.LanguageDetector;
+import com.is2300.rcp.filters.PathRules;
+import com.is2300.rcp.manifest.HashingService;
+import com.is2300.rcp.manifest.Manifest;
+import com.is2300.rcp.manifest.ManifestDiff;
+import com.is2300.rcp.pipeline.PipelineListener;
+import com.is2300.rcp.pipeline.PrintPipeline;
+import com.is2300.rcp.pipeline.PrintPlan;
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import javax.print.PrintException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 import javax.print.PrintService;
 import javax.print.PrintServiceLookup;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.Sides;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 
 /**
@@ -40,7 +61,6 @@ import javax.swing.UIManager;
  * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
  */
 public class RcpFrame extends javax.swing.JFrame {
-    private FileFilter extFilter = null;
     private File curDir = new File(System.getProperty("user.home"));
     private File projDir = new File(System.getProperty("user.home") 
             + System.getProperty("file.separator") + ".isrcp/projects");
@@ -48,6 +68,7 @@ public class RcpFrame extends javax.swing.JFrame {
     private int files = 0;
     private long startTime = 0;
     private long endTime = 0;
+    private ManifestDiff manifestDiff = null;
     
     /**
      * Creates new form RcpFrame
@@ -93,6 +114,7 @@ public class RcpFrame extends javax.swing.JFrame {
         cboLanguage = new javax.swing.JComboBox<>();
         btnCancel = new javax.swing.JButton();
         btnPrint = new javax.swing.JButton();
+        btnPlan = new javax.swing.JButton();
         jLabel3 = new javax.swing.JLabel();
         cboSystemPrinters = new javax.swing.JComboBox<>();
         btnAbout = new javax.swing.JButton();
@@ -133,7 +155,7 @@ public class RcpFrame extends javax.swing.JFrame {
         jLabel2.setLabelFor(cboLanguage);
         jLabel2.setText("Project Language:");
 
-        cboLanguage.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "-- SELECT PROGRAMMING LANGUAGE --", "Ada Body (code: adab)", "Ada Specification (code: adas)", "Arduino / Nano Sketch (code: ardns)", "ASP Classic (code: asp)", "ASP.Net (code: aspnet)", "Bash Scripting (code: bash)", "BASIC (code: basic)", "Batch Files (code: bat)", "C (code: c)", "C++ (code: cpp)", "C# (code: csharp)", "Objective C (code: objc)", "CGI (code: cgi)", "Cold Fusion (code: cold)", "Digital Mars (code: dm)", "Erlang (code: erl)", "Flash (code: flash)", "Flash / Flex Action (code: flex)", "HTML (code: html)", "J# (code: jsharp)", "Java (code: java)", "JavaScript (code: js)", "Lua Script (code: lua)", "Mathematica (code: math)", "MetaTrader (code: meta)", "Perl (code: perl)", "PHP (code: php)", "Python (code: python)", "Python Notebook (code: jupyter)", "R Language (code: r)", "Ruby (code: ruby)", "Ruby on Rails (code: rails)", "SSL (code: ssl)", "TCL (code: tcl)", "Unreal Script (code: us)", "VB.net (code: vbnet)", "Visual Basic / Visual Basic Script (code: vb)", "XML (code: xml)" }));
+        cboLanguage.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "-- SELECT PROGRAMMING LANGUAGE --", "All Known Languages (code: all)", "Ada Body (code: adab)", "Ada Specification (code: adas)", "Arduino / Nano Sketch (code: ardns)", "ASP Classic (code: asp)", "ASP.Net (code: aspnet)", "Bash Scripting (code: bash)", "BASIC (code: basic)", "Batch Files (code: bat)", "C (code: c)", "C++ (code: cpp)", "C# (code: csharp)", "Objective C (code: objc)", "CGI (code: cgi)", "Cold Fusion (code: cold)", "Digital Mars (code: dm)", "Erlang (code: erl)", "Flash (code: flash)", "Flash / Flex Action (code: flex)", "HTML (code: html)", "J# (code: jsharp)", "Java (code: java)", "JavaScript (code: js)", "Lua Script (code: lua)", "Mathematica (code: math)", "MetaTrader (code: meta)", "Perl (code: perl)", "PHP (code: php)", "Python (code: python)", "Python Notebook (code: jupyter)", "R Language (code: r)", "Ruby (code: ruby)", "Ruby on Rails (code: rails)", "SSL (code: ssl)", "TCL (code: tcl)", "Unreal Script (code: us)", "VB.net (code: vbnet)", "Visual Basic / Visual Basic Script (code: vb)", "XML (code: xml)" }));
         cboLanguage.addPropertyChangeListener(new java.beans.PropertyChangeListener() {
             public void propertyChange(java.beans.PropertyChangeEvent evt) {
                 languageSelectionChanged(evt);
@@ -158,6 +180,15 @@ public class RcpFrame extends javax.swing.JFrame {
             }
         });
 
+        btnPlan.setIcon(new javax.swing.ImageIcon(getClass().getResource("/com/is2300/rcp/desktop/Find.png"))); // NOI18N
+        btnPlan.setMnemonic('N');
+        btnPlan.setText("Plan Pages");
+        btnPlan.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                DoPlanJob(evt);
+            }
+        });
+
         jLabel3.setDisplayedMnemonic('U');
         jLabel3.setLabelFor(cboSystemPrinters);
         jLabel3.setText("Select Printer to Use:");
@@ -279,6 +310,8 @@ public class RcpFrame extends javax.swing.JFrame {
                                 .addGap(46, 46, 46)
                                 .addComponent(lblLastPrint)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(btnPlan)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(btnPrint)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(btnCancel))
@@ -324,6 +357,7 @@ public class RcpFrame extends javax.swing.JFrame {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(btnCancel)
                     .addComponent(btnPrint)
+                    .addComponent(btnPlan)
                     .addComponent(btnAbout)
                     .addComponent(lblLastPrint))
                 .addContainerGap())
@@ -361,7 +395,8 @@ public class RcpFrame extends javax.swing.JFrame {
             }
         }
         
-        try (BufferedWriter out = new BufferedWriter(new FileWriter(project))) {
+        try (BufferedWriter out = Files.newBufferedWriter(project.toPath(), 
+                StandardCharsets.UTF_8)) {
             StringBuilder sb = new StringBuilder();
             sb.append(LocalDate.now().toString()).append("\n");
             sb.append(txtSrcFolder.getText()).append("\n");
@@ -397,67 +432,58 @@ public class RcpFrame extends javax.swing.JFrame {
         this.txtCurrentFolder.setEnabled(false);
     }
     
-    private void countWalk(File file) {
-        if ( file.isDirectory() ) {
-            for ( File f : file.listFiles(extFilter) ) {
-                if ( f.isDirectory() ) {
-                    folders++;
-                    countWalk(f);
-                }
-                files++;
+    private PrintService getSelectedPrinter() {
+        Object selected = cboSystemPrinters.getSelectedItem();
+        
+        for ( PrintService service : PrintServiceLookup.lookupPrintServices(
+                null, null) ) {
+            if ( service.getName().equals(selected) ) {
+                return service;
             }
-            folders++;
         }
+        
+        return PrintServiceLookup.lookupDefaultPrintService();
     }
     
-    private boolean print(String pathToFiles, FileFilter filter) {
-        if ( pathToFiles == null ) {
-            throw new NullPointerException("The path cannot be null.");
-        }
+    private Predicate<PlannedFile> changedSinceLastPrint() {
+        String lastDate = StartPrinting.PROPS.getProperty(
+                this.txtProjectName.getText().replace(" ", "_"));
+        long lastPrinted = lastDate == null ? Long.MIN_VALUE 
+                : LocalDate.parse(lastDate).toEpochDay();
+        
+        return f -> {
+            long lastModified = f.getLastModified();
+            lastModified /= 1000;   // Get to the seconds to...
+            lastModified /= 60;     // get to the minutes to...
+            lastModified /= 60;     // get to the hours to...
+            lastModified /= 24;     // get to the days, since the epoch.
+            return lastModified > lastPrinted;
+        };
+    }
+    
+    private void jobFinished(PrintPipeline pipeline, int spooled) {
+        disableProgressControls();
+        CanPrint(null);
         
-        boolean printed = false;
-        File file = new File(pathToFiles);
+        this.endTime = System.currentTimeMillis();
         
-        for ( File f : file.listFiles(filter) ) {
-            if ( f.isDirectory() ) {
-                this.txtCurrentFolder.setText(f.getAbsolutePath());
-                print(f.getAbsolutePath(), filter);
-                System.out.println("Current Folder: " + f.getAbsolutePath());
-                this.pbFolder.setValue(this.pbFolder.getValue() + 1);
-            } else {
-                
-                FormattedPrinter printer = new FormattedPrinter(
-                        f.getAbsolutePath());
-//                try {
-                    long lastModified = f.lastModified();
-                    lastModified /= 1000;   // Get to the seconds to...
-                    lastModified /= 60;     // get to the minutes to...
-                    lastModified /= 60;     // get to the hours to...
-                    lastModified /= 24;     // get to the days, since the epoch.
-                    LocalDate lastPrint = LocalDate.parse(
-                            StartPrinting.PROPS.getProperty(
-                                    this.txtProjectName.getText().replace(
-                                            " ", "_")));
-                    long lastPrinted = lastPrint.toEpochDay();
-                    if ( lastModified > lastPrinted ) {
-                        printer.actionPerformed(null);
-                    }
-//                } catch (PrintException | IOException ex) {
-//                    System.err.println(ex.getMessage());
-//                    ex.printStackTrace(System.err);
-//                }
-                System.out.println("Current File: " + f.getName());
-            }
-        }
+        System.out.println(pipeline.getReport());
         
-        if ( printed == false ) {
+        if ( spooled == 0 ) {
             JOptionPane.showMessageDialog(this, 
                     "No changes since last print date.", 
                     "Doesn't Need Printed", 
                     JOptionPane.INFORMATION_MESSAGE);
         }
-
-        return printed;
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append("Processd:\n\t");
+        sb.append("Folders: ").append(folders).append("\n\t");
+        sb.append("Files: ").append(files).append("\n");
+        sb.append("Total Time: ").append((int)(endTime - startTime) / 1000);
+        
+//        JOptionPane.showMessageDialog(this, sb.toString(), "Job Report", 
+//                JOptionPane.INFORMATION_MESSAGE);
     }
     
     private boolean isReady() {
@@ -473,6 +499,159 @@ public class RcpFrame extends javax.swing.JFrame {
         return ready;
     }
     
+    private FileFilter getSelectedFilter() {
+        String language = this.cboLanguage.getSelectedItem().toString();
+        int codeLoc = language.indexOf(":");
+        int codeStart = codeLoc + 2;
+        int codeEnd = language.indexOf(")");
+        String lang = this.cboLanguage.getSelectedItem().toString().substring(
+                codeStart, codeEnd);
+        
+        return FileFilterFactory.createFileFilter(lang);
+    }
+    
+    /**
+     * Retrieves the number of pages to print from each end of the project for
+     * a copyright deposit, from the command line or the properties.
+     * 
+     * @return int number of pages, or zero to print the whole project
+     */
+    private int getDepositPages() {
+        String value = StartPrinting.ARGS.getProperty("deposit.pages", 
+                StartPrinting.PROPS.getProperty("deposit.pages", "0"));
+        
+        try {
+            return Integer.parseInt(value.trim());
+        } catch ( NumberFormatException ex ) {
+            System.err.println("Invalid value for deposit.pages: " + value);
+            return 0;
+        }
+    }
+    
+    private Path getManifestFile() {
+        return Manifest.locate(Paths.get(
+                StartPrinting.PROPS.getProperty("project.home")), 
+                this.txtProjectName.getText().replace(" ", "_"));
+    }
+    
+    /**
+     * Creates a printer job for the printer selected on the form, telling the
+     * user if the printer cannot be used.
+     * 
+     * @return PrinterJob for the selected printer, or `null` if it cannot be
+     *          used
+     */
+    private PrinterJob createPrinterJob() {
+        PrinterJob printerJob = PrinterJob.getPrinterJob();
+        try {
+            printerJob.setPrintService(getSelectedPrinter());
+        } catch ( PrinterException ex ) {
+            String msg = ex.getMessage();
+            JOptionPane.showMessageDialog(this, msg, "Printer Exception", 
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        
+        return printerJob;
+    }
+    
+    private PrintRequestAttributeSet createAttributes() {
+        PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+        attributes.add(new Copies(1));
+        attributes.add(Sides.DUPLEX);
+        
+        return attributes;
+    }
+    
+    /**
+     * Sets up the pipeline for the project on the form, to print, or plan, 
+     * with the printer and page format of the given job.
+     */
+    private PrintPipeline createPipeline(PrinterJob printerJob, 
+            PrintRequestAttributeSet attributes, Path manifestFile) {
+        PrintPipeline pipeline = new PrintPipeline(
+                printerJob.getPrintService(), attributes, 
+                printerJob.getPageFormat(attributes), StartPrinting.PROPS);
+        pipeline.setRules(PathRules.configure(
+                this.txtProjectName.getText().replace(" ", "_"), 
+                StartPrinting.ARGS, StartPrinting.PROPS));
+        pipeline.setDetector(LanguageDetector.open(
+                LanguageDetector.locate(manifestFile)));
+        int depositPages = getDepositPages();
+        pipeline.setDeposit(depositPages, !"false".equalsIgnoreCase(
+                StartPrinting.PROPS.getProperty("deposit.manifest")));
+        
+        // A deposit takes its pages from the whole project, and leaves the 
+        // manifest alone, as most of the project is not printed.
+        manifestDiff = null;
+        if ( depositPages == 0 ) {
+            Predicate<PlannedFile> fallback = changedSinceLastPrint();
+            pipeline.setSelector(plan -> {
+                manifestDiff = ManifestDiff.compare(plan, manifestFile, 
+                        fallback, HashingService.fromProperties(
+                                StartPrinting.PROPS));
+                System.out.println(manifestDiff.getSummary());
+                
+                return manifestDiff.getChanged();
+            });
+        }
+        pipeline.setListener(new PipelineListener() {
+            private Path currentFolder = null;
+            
+            @Override
+            public void planReady(FilePlan plan, int selected) {
+                System.out.println("Languages: " + plan.getLanguageCounts());
+                SwingUtilities.invokeLater(() -> {
+                    folders = plan.getFolderCount();
+                    files = plan.getFileCount();
+                    pbFolder.setMaximum(folders);
+                    pbJob.setMaximum(selected);
+                });
+            }
+            
+            @Override
+            public void fileLoaded(PlannedFile file, String encoding) {
+                System.out.println("Loaded: " + file.getPath().getFileName() 
+                        + " (" + encoding + ")");
+            }
+            
+            @Override
+            public void fileSpooled(PlannedFile file) {
+                boolean newFolder = !file.getFolder().equals(currentFolder);
+                currentFolder = file.getFolder();
+                System.out.println("Current File: " 
+                        + file.getPath().getFileName() + " [" 
+                        + file.getLanguage() + "]");
+                
+                SwingUtilities.invokeLater(() -> {
+                    if ( newFolder ) {
+                        txtCurrentFolder.setText(file.getFolder().toString());
+                        pbFolder.setValue(pbFolder.getValue() + 1);
+                    }
+                    pbJob.setValue(pbJob.getValue() + 1);
+                });
+            }
+            
+            @Override
+            public void fileSkipped(PlannedFile file, String reason) {
+                System.out.println("Skipped: " + file.getPath().getFileName() 
+                        + " is " + reason);
+                SwingUtilities.invokeLater(() -> 
+                        pbJob.setValue(pbJob.getValue() + 1));
+            }
+            
+            @Override
+            public void fileFailed(PlannedFile file, String stage, 
+                    Exception ex) {
+                if ( manifestDiff != null ) {
+                    manifestDiff.forget(file);
+                }
+            }
+        });
+        
+        return pipeline;
+    }
+    
     private void CancelAction(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CancelAction
         this.setVisible(false);
         
@@ -553,37 +732,130 @@ public class RcpFrame extends javax.swing.JFrame {
         
         enableProgressControls();
         
-        countWalk(new File(this.txtSrcFolder.getText()));
+        FileFilter filter = getSelectedFilter();
+        PrinterJob printerJob = createPrinterJob();
+        if ( printerJob == null ) {
+            disableProgressControls();
+            return;
+        }
         
-        this.pbFolder.setMaximum(folders);
-        this.pbJob.setMaximum(files);
+        PrintRequestAttributeSet attributes = createAttributes();
         
-        String language = this.cboLanguage.getSelectedItem().toString();
-        int codeLoc = language.indexOf(":");
-        int codeStart = codeLoc + 2;
-        int codeEnd = language.indexOf(")");
-        String lang = this.cboLanguage.getSelectedItem().toString().substring(
-                codeStart, codeEnd);
-        FileFilter filter = FileFilterFactory.createFileFilter(lang);
+        // The whole project is printed from this one dialog.
+        if ( !printerJob.printDialog(attributes) ) {
+            disableProgressControls();
+            return;
+        }
         
-        print(this.txtSrcFolder.getText(), filter);
+        Path manifestFile = getManifestFile();
+        PrintPipeline pipeline = createPipeline(printerJob, attributes, 
+                manifestFile);
         
-        disableProgressControls();
+        this.btnPrint.setEnabled(false);
+        this.btnPlan.setEnabled(false);
         
-        this.endTime = System.currentTimeMillis();
+        Path root = Paths.get(this.txtSrcFolder.getText());
+        new SwingWorker<FilePlan, Void>() {
+            @Override
+            protected FilePlan doInBackground() throws Exception {
+                return pipeline.run(root, filter);
+            }
+            
+            @Override
+            protected void done() {
+                int spooled = pbJob.getValue();
+                try {
+                    get();
+                    if ( manifestDiff != null ) {
+                        manifestDiff.save(manifestFile);
+                    }
+                } catch ( IOException ex ) {
+                    String msg = ex.getMessage();
+                    JOptionPane.showMessageDialog(RcpFrame.this, msg, 
+                            "Input/Ouput Exception", JOptionPane.ERROR_MESSAGE);
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    String msg = ex.getMessage();
+                    JOptionPane.showMessageDialog(RcpFrame.this, msg, 
+                            "Print Job Failed", JOptionPane.ERROR_MESSAGE);
+                }
+                
+                jobFinished(pipeline, spooled);
+            }
+        }.execute();
+    }//GEN-LAST:event_DoPrintJob
+
+    private void DoPlanJob(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_DoPlanJob
+        // The project is not stored, as that would record today as the date
+        // it was last printed, and nothing is printed.
+        enableProgressControls();
         
-        StringBuilder sb = new StringBuilder();
-        sb.append("Processd:\n\t");
-        sb.append("Folders: ").append(folders).append("\n\t");
-        sb.append("Files: ").append(files).append("\n");
-        sb.append("Total Time: ").append((int)(endTime - startTime) / 1000);
+        FileFilter filter = getSelectedFilter();
+        PrinterJob printerJob = createPrinterJob();
+        if ( printerJob == null ) {
+            disableProgressControls();
+            return;
+        }
         
-//        JOptionPane.showMessageDialog(this, sb.toString(), "Job Report", 
-//                JOptionPane.INFORMATION_MESSAGE);
-    }//GEN-LAST:event_DoPrintJob
+        // Nothing is printed, so the job is planned with the printer's own
+        // page format, without asking.
+        Path manifestFile = getManifestFile();
+        PrintPipeline pipeline = createPipeline(printerJob, createAttributes(),
+                manifestFile);
+        
+        // Like the print job, the plan only counts the files changed since
+        // the last print, unless it is asked for the whole project.
+        if ( Boolean.parseBoolean(StartPrinting.PROPS.getProperty(
+                "plan.whole.project")) ) {
+            pipeline.setSelector(null);
+        }
+        
+        this.btnPrint.setEnabled(false);
+        this.btnPlan.setEnabled(false);
+        
+        Path root = Paths.get(this.txtSrcFolder.getText());
+        new SwingWorker<PrintPlan, Void>() {
+            @Override
+            protected PrintPlan doInBackground() throws Exception {
+                return pipeline.plan(root, filter);
+            }
+            
+            @Override
+            protected void done() {
+                disableProgressControls();
+                CanPrint(null);
+                
+                try {
+                    PrintPlan plan = get();
+                    Path report = PrintPlan.locate(manifestFile);
+                    plan.write(report);
+                    
+                    String summary = plan.getSummary() + ".";
+                    if ( plan.getProjectFileCount() > plan.getFileCount() ) {
+                        summary += "\nOnly the files to be printed are "
+                                + "counted; set plan.whole.project=true to "
+                                + "plan the whole project.";
+                    }
+                    
+                    System.out.println(summary);
+                    JOptionPane.showMessageDialog(RcpFrame.this, 
+                            summary + "\n\nReport: " + report, 
+                            "Print Plan", JOptionPane.INFORMATION_MESSAGE);
+                } catch ( IOException ex ) {
+                    String msg = ex.getMessage();
+                    JOptionPane.showMessageDialog(RcpFrame.this, msg, 
+                            "Input/Ouput Exception", JOptionPane.ERROR_MESSAGE);
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    String msg = ex.getMessage();
+                    JOptionPane.showMessageDialog(RcpFrame.this, msg, 
+                            "Print Plan Failed", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }//GEN-LAST:event_DoPlanJob
 
     private void CanPrint(java.awt.event.FocusEvent evt) {//GEN-FIRST:event_CanPrint
         this.btnPrint.setEnabled(this.isReady());
+        this.btnPlan.setEnabled(this.isReady());
     }//GEN-LAST:event_CanPrint
 
     /**
@@ -624,6 +896,7 @@ public class RcpFrame extends javax.swing.JFrame {
     private javax.swing.JButton btnBrowseFolders;
     private javax.swing.JButton btnBrowseProjects;
     private javax.swing.JButton btnCancel;
+    private javax.swing.JButton btnPlan;
     private javax.swing.JButton btnPrint;
     private javax.swing.JComboBox<String> cboLanguage;
     private javax.swing.JComboBox<String> cboSystemPrinters;
@@ -17,6 +17,8 @@
 package com.is2300.rcp.desktop;
 
 import com.is2300.rcp.StartPrinting;
+import com.is2300.rcp.text.CharsetDetector;
+import com.is2300.rcp.text.LineIndex;
 import java.awt.Dimension;
 import java.awt.List;
 import java.awt.Toolkit;
@@ -24,9 +26,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -75,17 +75,23 @@ public class SelectProjectDialog extends javax.swing.JDialog {
         File projectsDir = new File(StartPrinting.PROPS.getProperty(
                 "project.home"));
         
+        CharsetDetector charsets = CharsetDetector.fromProperties(
+                StartPrinting.PROPS);
+        
         if ( projectsDir.listFiles().length > 0) {
             for ( File project : projectsDir.listFiles() ) {
+                if ( !project.isFile() ) {
+                    // The manifests, and such, are kept in sub-folders.
+                    continue;
+                }
+                
                 lstProjects.add(project.getName().replace("_", " "));
                 
-                try (BufferedReader in = new BufferedReader(
-                        new FileReader(project))) {
-                    String lastDate = in.readLine();
-                    String projectPath = in.readLine();
-                    this.language = in.readLine();
-                    
-                    in.close();
+                try {
+                    LineIndex in = LineIndex.of(project.toPath(), charsets);
+                    String lastDate = in.size() > 0 ? in.line(0) : null;
+                    String projectPath = in.size() > 1 ? in.line(1) : null;
+                    this.language = in.size() > 2 ? in.line(2) : null;
                     
                     StartPrinting.PROPS.setProperty(project.getName(), 
                             lastDate);
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.enums;
+
+/**
+ * What a file's content turned out to be, when it was sampled before being
+ * printed. See `ContentClassifier`.
+ *
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public enum ContentKind {
+    /**
+     * Ordinary text, which is printed as it is.
+     */
+    TEXT,
+    
+    /**
+     * Binary content, such as a compiled Flash movie or an image.
+     */
+    BINARY,
+    
+    /**
+     * Text with lines far too long to print, such as a minified script bundle.
+     */
+    MINIFIED;
+    
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.enums;
+
+/**
+ * What to do with a file whose content is not fit to print as it is. See 
+ * `ContentClassifier`.
+ *
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public enum ContentPolicy {
+    /**
+     * Print the file as it is.
+     */
+    PRINT,
+    
+    /**
+     * Leave the file out of the print job.
+     */
+    SKIP,
+    
+    /**
+     * Print a short summary of the file in its place.
+     */
+    SUMMARY,
+    
+    /**
+     * Print a hex dump of the file in its place.
+     */
+    HEXDUMP;
+    
+    /**
+     * Finds the policy with the given name, ignoring case.
+     * 
+     * @param name          The name of the policy, i.e., `skip`.
+     * @param defaultPolicy The policy to use if `name` is blank or unknown.
+     * @return ContentPolicy with that name, or `defaultPolicy`
+     */
+    public static ContentPolicy fromString(String name, 
+            ContentPolicy defaultPolicy) {
+        if ( name != null ) {
+            for ( ContentPolicy policy : values() ) {
+                if ( policy.name().equalsIgnoreCase(name.trim()) ) {
+                    return policy;
+                }
+            }
+        }
+        
+        return defaultPolicy;
+    }
+    
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.filters;
+
+import java.util.Arrays;
+
+/**
+ * `ExtensionMatcher` is a set of file extensions compiled into a small, open-
+ * addressed hash table. Matching a file name against the set takes a single,
+ * case-insensitive look-up of the name's final extension, so the cost stays 
+ * the same no matter how many extensions are in the set, and no objects are
+ * created while matching.
+ * 
+ * Extensions may be given with or without their leading dot, in any case:
+ * 
+ * ```java
+ * ExtensionMatcher matcher = new ExtensionMatcher(".java", ".JSP", "jspx");
+ * int index = matcher.indexOf("Main.Java");    // 0
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ExtensionMatcher {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final String[] keys;
+    private final int[] hashes;
+    private final int[] values;
+    private final int mask;
+    private final int size;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Compiles the extensions into a new `ExtensionMatcher`. The position of
+     * each extension in the array is what `indexOf` returns for a match; if an
+     * extension is given more than once, the first position is kept.
+     * 
+     * @param extensions The extensions to match.
+     * @throws IllegalArgumentException if `extensions` is null
+     */
+    public ExtensionMatcher (String... extensions) {
+        if ( extensions == null ) {
+            throw new IllegalArgumentException("No extensions provided.");
+        }
+        
+        int capacity = Integer.highestOneBit(Math.max(4, extensions.length * 2)
+                - 1) << 1;
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        
+        int count = 0;
+        for ( int i = 0; i < extensions.length; i++ ) {
+            String ext = extensions[i];
+            if ( ext == null || ext.isBlank() ) {
+                continue;
+            }
+            
+            ext = lower(ext.trim());
+            if ( ext.startsWith(".") ) {
+                ext = ext.substring(1);
+            }
+            
+            int hash = hash(ext, 0, ext.length());
+            int slot = hash & mask;
+            while ( keys[slot] != null && !keys[slot].equals(ext) ) {
+                slot = (slot + 1) & mask;
+            }
+            
+            if ( keys[slot] == null ) {
+                keys[slot] = ext;
+                hashes[slot] = hash;
+                values[slot] = i;
+                count++;
+            }
+        }
+        
+        this.size = count;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Looks up the final extension of the file name.
+     * 
+     * @param name The file name to test. Only the part after the last dot is
+     *             looked at.
+     * @return int position of the matching extension, as given to the 
+     *          constructor, or `-1` if the name does not match
+     */
+    public int indexOf(CharSequence name) {
+        int end = name.length();
+        int dot = end - 1;
+        while ( dot >= 0 && name.charAt(dot) != '.' ) {
+            dot--;
+        }
+        if ( dot < 0 || size == 0 ) {
+            return -1;
+        }
+        
+        int start = dot + 1;
+        int hash = hash(name, start, end);
+        int length = end - start;
+        
+        for ( int slot = hash & mask; keys[slot] != null; 
+                slot = (slot + 1) & mask ) {
+            if ( hashes[slot] == hash && keys[slot].length() == length
+                    && equalsIgnoreCase(keys[slot], name, start) ) {
+                return values[slot];
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Tests whether the final extension of the file name is in this set.
+     * 
+     * @param name The file name to test.
+     * @return `true` if the extension matches; `false` otherwise
+     */
+    public boolean matches(CharSequence name) {
+        return indexOf(name) >= 0;
+    }
+    
+    /**
+     * Retrieves the number of distinct extensions in this set.
+     * 
+     * @return int number of extensions
+     */
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.stream(keys).filter(k -> k != null)
+                .toArray());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        
+        for ( int i = start; i < end; i++ ) {
+            h = 31 * h + lower(s.charAt(i));
+        }
+        
+        // Spread the bits, so short extensions do not all land together.
+        return h ^ (h >>> 16);
+    }
+    
+    private static boolean equalsIgnoreCase(String key, CharSequence name, 
+            int start) {
+        for ( int i = 0; i < key.length(); i++ ) {
+            if ( key.charAt(i) != lower(name.charAt(start + i)) ) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    private static String lower(String s) {
+        char[] chars = new char[s.length()];
+        
+        for ( int i = 0; i < chars.length; i++ ) {
+            chars[i] = lower(s.charAt(i));
+        }
+        
+        return new String(chars);
+    }
+    
+    private static char lower(char c) {
+        if ( c < 128 ) {
+            return c >= 'A' && c <= 'Z' ? (char)(c + 32) : c;
+        }
+        
+        return Character.toLowerCase(c);
+    }
+    //</editor-fold>
+
+}
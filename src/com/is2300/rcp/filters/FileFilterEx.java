@@ -19,8 +19,28 @@ package com.is2300.rcp.filters;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
+ * `FileFilterEx` accepts the files whose extension is one of a set of 
+ * extensions, along with all folders, so that a walk of the tree can descend
+ * into them. The extensions are compiled into an `ExtensionMatcher` when the
+ * filter is created, so testing a file costs a single look-up, regardless of
+ * how many extensions the filter has.
+ * 
+ * When the caller already knows whether a path is a folder, such as the 
+ * `TreeWalker`, which gets that from the attributes it reads during the walk,
+ * it should use `accept(CharSequence, boolean)`, which never goes to the file
+ * system.
+ * 
+ * A filter may be built for several languages at once, in which case the 
+ * extensions of all of them are compiled into the one matcher, and the filter
+ * can tell which language each accepted file belongs to. Where more than one
+ * of the languages uses the same extension, the language that was given first
+ * is the one reported.
  *
  * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
  * 
@@ -33,7 +53,9 @@ public class FileFilterEx implements FileFilter {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
-    private final String[] extensions;    
+    private final ExtensionMatcher matcher;
+    private final String[][] languages;
+    private final String[] codes;
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Static Initializer">
@@ -49,8 +71,52 @@ public class FileFilterEx implements FileFilter {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `FileFilterEx` for the given extensions.
+     * 
+     * @param extensions The extensions of the files to accept, i.e., `.java`.
+     * @throws IllegalArgumentException if `extensions` is null
+     */
     public FileFilterEx (String[] extensions) {
-        this.extensions = extensions;
+        this.matcher = new ExtensionMatcher(extensions);
+        this.languages = null;
+        this.codes = new String[0];
+    }
+    
+    /**
+     * Creates a new `FileFilterEx` for several languages at once.
+     * 
+     * @param languageCodes A map of the language codes to their extensions, 
+     *                      in the order of preference for an extension that is
+     *                      used by more than one of the languages.
+     * @throws IllegalArgumentException if `languageCodes` is null or empty
+     */
+    public FileFilterEx (Map<String, String[]> languageCodes) {
+        if ( languageCodes == null || languageCodes.isEmpty() ) {
+            throw new IllegalArgumentException("No languages provided.");
+        }
+        
+        Map<String, List<String>> byExtension = new LinkedHashMap<>();
+        for ( Map.Entry<String, String[]> lang : languageCodes.entrySet() ) {
+            for ( String ext : lang.getValue() ) {
+                List<String> langs = byExtension.computeIfAbsent(
+                        ext.toLowerCase(), k -> new ArrayList<>());
+                if ( !langs.contains(lang.getKey()) ) {
+                    langs.add(lang.getKey());
+                }
+            }
+        }
+        
+        String[] extensions = byExtension.keySet().toArray(new String[0]);
+        this.matcher = new ExtensionMatcher(extensions);
+        this.languages = new String[extensions.length][];
+        
+        int i = 0;
+        for ( List<String> langs : byExtension.values() ) {
+            languages[i++] = langs.toArray(new String[0]);
+        }
+        
+        this.codes = languageCodes.keySet().toArray(new String[0]);
     }
     //</editor-fold>
 
@@ -68,10 +134,72 @@ public class FileFilterEx implements FileFilter {
      */
     @Override
     public boolean accept(File file) {
-        for ( String extension : extensions ) {
-            if ( file.getName().toLowerCase().endsWith(extension) 
-                    || file.isDirectory() ) {
-                return true;
+        // Only ask the file system about a folder if the name did not match.
+        return matcher.matches(file.getName()) || file.isDirectory();
+    }
+    
+    /**
+     * Tests whether or not the named entry should be included, when it is
+     * already known whether or not the entry is a folder.
+     * 
+     * @param name      The name of the file or folder, without its path.
+     * @param directory Whether or not the entry is a folder.
+     * @return boolean `true` if and only if the entry should be included
+     */
+    public boolean accept(CharSequence name, boolean directory) {
+        return directory || matcher.matches(name);
+    }
+    
+    /**
+     * Retrieves the language code of the file with the given name.
+     * 
+     * @param name The name of the file, without its path.
+     * @return String language code, or `null` if the file does not match or
+     *          this filter was not built from languages
+     */
+    public String languageOf(CharSequence name) {
+        int index = matcher.indexOf(name);
+        
+        return index < 0 || languages == null ? null : languages[index][0];
+    }
+    
+    /**
+     * Retrieves all of the language codes the file with the given name could
+     * belong to, such as both `c` and `cpp` for a `.h` file.
+     * 
+     * @param name The name of the file, without its path.
+     * @return array of language codes in order of preference; empty if the 
+     *          file does not match or this filter was not built from languages
+     */
+    public String[] languagesOf(CharSequence name) {
+        int index = matcher.indexOf(name);
+        
+        return index < 0 || languages == null ? new String[0] 
+                : languages[index].clone();
+    }
+    
+    /**
+     * Retrieves the language codes this filter was built for.
+     * 
+     * @return array of language codes; empty if this filter was not built 
+     *          from languages
+     */
+    public String[] getLanguages() {
+        return codes.clone();
+    }
+    
+    /**
+     * Tests whether this filter was built for the given language.
+     * 
+     * @param language The language code.
+     * @return `true` if files of that language are accepted
+     */
+    public boolean handles(String language) {
+        if ( language != null ) {
+            for ( String code : codes ) {
+                if ( code.equals(language) ) {
+                    return true;
+                }
             }
         }
         
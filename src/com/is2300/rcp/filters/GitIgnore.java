@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.filters;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * `GitIgnore` holds the compiled patterns of a single ignore file, such as a
+ * `.gitignore` or `.git/info/exclude`. Each pattern is translated into one
+ * `java.util.regex.Pattern` when the file is read, and is then matched against
+ * paths relative to the folder that the ignore file applies to, using `/` as
+ * the separator on every platform.
+ * 
+ * The patterns follow the rules of `git`:
+ * 
+ * * blank lines and lines starting with `#` are ignored;
+ * * a leading `!` re-includes anything matched by an earlier pattern;
+ * * a trailing `/` only matches folders;
+ * * a pattern with a `/` at the start or in the middle is anchored to the
+ *   folder of the ignore file; otherwise it matches a name at any depth;
+ * * `*` and `?` never match a `/`, while `**` matches across folders.
+ * 
+ * The last pattern in the file that matches a path decides whether it is
+ * ignored.
+ * 
+ * Compiled files are cached by their path, and are only read again when their
+ * size or modification time changes, so walking the same project again does
+ * not compile any of its ignore files a second time.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class GitIgnore {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Fields">
+    private static final Map<Path, GitIgnore> CACHE = new ConcurrentHashMap<>();
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path source;
+    private final long size;
+    private final long lastModified;
+    private final Rule[] rules;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Compiles the given patterns, as they would appear in an ignore file.
+     * 
+     * @param patterns The lines of the ignore file.
+     */
+    public GitIgnore(List<String> patterns) {
+        this(null, -1, -1, patterns);
+    }
+    
+    private GitIgnore(Path source, long size, long lastModified, 
+            List<String> patterns) {
+        this.source = source;
+        this.size = size;
+        this.lastModified = lastModified;
+        
+        List<Rule> compiled = new ArrayList<>();
+        for ( String line : patterns ) {
+            Rule rule = compile(line);
+            
+            if ( rule != null ) {
+                compiled.add(rule);
+            }
+        }
+        
+        this.rules = compiled.toArray(new Rule[compiled.size()]);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the compiled ignore file at the given path, reading it only
+     * if it is not already cached or has changed since it was cached.
+     * 
+     * @param file The ignore file.
+     * @return GitIgnore for the file; `null` if there is no such file or it 
+     *          does not have any patterns in it
+     */
+    public static GitIgnore load(Path file) {
+        BasicFileAttributes attrs;
+        
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            CACHE.remove(file);
+            return null;
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+            return null;
+        }
+        
+        if ( !attrs.isRegularFile() ) {
+            return null;
+        }
+        
+        long mtime = attrs.lastModifiedTime().toMillis();
+        GitIgnore cached = CACHE.get(file);
+        
+        if ( cached == null || cached.size != attrs.size() 
+                || cached.lastModified != mtime ) {
+            List<String> lines = new ArrayList<>();
+            
+            try (BufferedReader in = Files.newBufferedReader(file, 
+                    StandardCharsets.UTF_8)) {
+                String line;
+                while ( (line = in.readLine()) != null ) {
+                    lines.add(line);
+                }
+            } catch (IOException ex) {
+                System.err.println("Unable to read " + file + ": " 
+                        + ex.getMessage());
+                return null;
+            }
+            
+            cached = new GitIgnore(file, attrs.size(), mtime, lines);
+            CACHE.put(file, cached);
+        }
+        
+        return cached.isEmpty() ? null : cached;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Matches the path against the patterns in this file.
+     * 
+     * @param relative  The path relative to the folder this file applies to, 
+     *                  separated by `/`.
+     * @param directory `true` if the path is a folder.
+     * @return `Boolean.TRUE` if the path is ignored, `Boolean.FALSE` if it is
+     *          re-included by a `!` pattern, or `null` if no pattern matches
+     */
+    public Boolean match(CharSequence relative, boolean directory) {
+        for ( int i = rules.length - 1; i >= 0; i-- ) {
+            Rule rule = rules[i];
+            
+            if ( rule.directoryOnly && !directory ) {
+                continue;
+            }
+            
+            if ( rule.pattern.matcher(relative).matches() ) {
+                return rule.negated ? Boolean.FALSE : Boolean.TRUE;
+            }
+        }
+        
+        return null;
+    }
+    
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+    
+    public Path getSource() {
+        return source;
+    }
+    
+    @Override
+    public String toString() {
+        return (source == null ? "patterns" : source.toString()) + " (" 
+                + rules.length + " rules)";
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static Rule compile(String line) {
+        if ( line == null ) {
+            return null;
+        }
+        
+        String text = trimTrailing(line);
+        if ( text.isEmpty() || text.startsWith("#") ) {
+            return null;
+        }
+        
+        boolean negated = false;
+        if ( text.startsWith("!") ) {
+            negated = true;
+            text = text.substring(1);
+        } else if ( text.startsWith("\\!") || text.startsWith("\\#") ) {
+            text = text.substring(1);
+        }
+        
+        boolean directoryOnly = false;
+        if ( text.endsWith("/") ) {
+            directoryOnly = true;
+            text = text.substring(0, text.length() - 1);
+        }
+        
+        if ( text.isEmpty() ) {
+            return null;
+        }
+        
+        // A slash anywhere but the end anchors the pattern to its folder.
+        boolean anchored = text.indexOf('/') >= 0;
+        if ( text.startsWith("/") ) {
+            text = text.substring(1);
+        }
+        
+        StringBuilder regex = new StringBuilder(text.length() * 2);
+        if ( !anchored ) {
+            regex.append("(?:.*/)?");
+        }
+        
+        translate(text, regex);
+        
+        try {
+            return new Rule(Pattern.compile(regex.toString()), negated, 
+                    directoryOnly);
+        } catch (PatternSyntaxException ex) {
+            System.err.println("Ignoring bad pattern \"" + line + "\": " 
+                    + ex.getMessage());
+            return null;
+        }
+    }
+    
+    private static void translate(String glob, StringBuilder regex) {
+        int length = glob.length();
+        
+        for ( int i = 0; i < length; i++ ) {
+            char c = glob.charAt(i);
+            
+            switch ( c ) {
+                case '*':
+                    if ( i + 1 < length && glob.charAt(i + 1) == '*' ) {
+                        boolean atStart = i == 0;
+                        boolean slashAfter = i + 2 < length 
+                                && glob.charAt(i + 2) == '/';
+                        i++;
+                        
+                        if ( (atStart || glob.charAt(i - 2) == '/') 
+                                && slashAfter ) {
+                            // `**/` matches zero or more folders.
+                            regex.append("(?:.*/)?");
+                            i++;
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 2);
+                    if ( end < 0 ) {
+                        regex.append("\\[");
+                    } else {
+                        String set = glob.substring(i + 1, end);
+                        if ( set.startsWith("!") ) {
+                            set = "^" + set.substring(1);
+                        }
+                        regex.append('[').append(set.replace("\\", "\\\\"))
+                                .append(']');
+                        i = end;
+                    }
+                    break;
+                case '\\':
+                    if ( i + 1 < length ) {
+                        regex.append(Pattern.quote(
+                                String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    if ( "().+^$|{}".indexOf(c) >= 0 ) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+    }
+    
+    private static String trimTrailing(String line) {
+        int end = line.length();
+        
+        // Trailing spaces are dropped unless they are escaped.
+        while ( end > 0 && line.charAt(end - 1) == ' ' 
+                && (end < 2 || line.charAt(end - 2) != '\\') ) {
+            end--;
+        }
+        
+        return line.substring(0, end);
+    }
+    //</editor-fold>
+
+    /**
+     * A single compiled pattern.
+     */
+    private static final class Rule {
+        private final Pattern pattern;
+        private final boolean negated;
+        private final boolean directoryOnly;
+        
+        Rule(Pattern pattern, boolean negated, boolean directoryOnly) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+        }
+    }
+
+}
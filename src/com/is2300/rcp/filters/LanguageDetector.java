@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.filters;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * `LanguageDetector` works out the language of a file from the first few 
+ * hundred bytes of its content, for the files that the extension alone cannot
+ * settle: a `.h` file may be C or C++, a `.m` file may be Objective C or 
+ * Mathematica, and scripts often have no extension at all.
+ * 
+ * Only the first `PREFIX_SIZE` bytes of a file are read, into a buffer that is
+ * reused by each thread. In order, the detector looks for:
+ * 
+ * 1. a shebang line, such as `#!/usr/bin/env python3`;
+ * 2. a `vim` or `emacs` modeline, such as `vim: ft=cpp` or `-*- mode: c++ -*-`;
+ * 3. the opening of an XML, HTML or PHP document;
+ * 4. signature tokens of the C family of languages and Mathematica, such as 
+ *    `@interface`, `namespace`, `template <` or `BeginPackage[`.
+ * 
+ * The answer for a prefix is cached by the CRC-32C hash of the bytes that were
+ * read, which are the only thing the answer depends on. Each file's size, 
+ * modification time and hash are also kept, and saved between runs, so that a
+ * file which has not changed since the last run is not read again at all.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class LanguageDetector {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The number of bytes read from the start of each file. */
+    public static final int PREFIX_SIZE = 512;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final String HEADER = "# ISRCP languages 1";
+    private static final String EXTENSION = ".languages";
+    private static final String NONE = "-";
+    
+    private static final ThreadLocal<ByteBuffer> BUFFER = 
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(PREFIX_SIZE));
+    
+    private static final Pattern VIM = Pattern.compile(
+            "(?:vi|vim|ex):.*?\\b(?:ft|filetype|syntax)=([\\w+-]+)");
+    private static final Pattern EMACS = Pattern.compile("-\\*-(.*?)-\\*-");
+    private static final Pattern OBJC = Pattern.compile(
+            "^\\s*(?:#import\\b|@interface\\b|@implementation\\b|@protocol\\b"
+            + "|@property\\b|@end\\b)", Pattern.MULTILINE);
+    private static final Pattern CPP = Pattern.compile(
+            "\\b(?:namespace\\s+\\w+\\s*\\{|template\\s*<|class\\s+\\w+\\s*[:{]"
+            + "|public:|private:|protected:|std::|using\\s+namespace\\b)"
+            + "|#include\\s*<\\w+>");
+    private static final Pattern MATH = Pattern.compile(
+            "\\b(?:BeginPackage|Needs|Module|Block|With)\\[|\\(\\*.*?\\*\\)"
+            + "|\\w+\\[\\w+_\\w*\\]\\s*:?=", Pattern.DOTALL);
+    private static final Pattern C = Pattern.compile(
+            "^\\s*#\\s*(?:include|define|ifndef|ifdef|pragma)\\b"
+            + "|\\btypedef\\b|\\bstruct\\s+\\w+", Pattern.MULTILINE);
+    
+    private static final Map<String, String> NAMES = new HashMap<>();
+    
+    static {
+        names("bash", "sh", "bash", "zsh", "ksh", "dash", "ash", 
+                "shell-script", "shell");
+        names("python", "python", "pypy");
+        names("perl", "perl", "cperl");
+        names("ruby", "ruby", "jruby");
+        names("lua", "lua", "luajit");
+        names("tcl", "tcl", "tclsh", "wish", "expect");
+        names("r", "r", "rscript", "ess-r");
+        names("js", "node", "nodejs", "javascript", "js");
+        names("php", "php");
+        names("erl", "erlang", "escript");
+        names("c", "c");
+        names("cpp", "c++", "cpp", "cxx");
+        names("objc", "objc", "objective-c", "objcpp");
+        names("math", "mathematica", "mma", "wolfram", "wolframscript");
+        names("java", "java");
+        names("xml", "xml", "nxml");
+        names("html", "html", "xhtml");
+        names("adab", "ada");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path cache;
+    private final Map<Long, String> byHash;
+    private final Map<String, Stamp> previous;
+    private final Map<String, Stamp> current;
+    private volatile boolean dirty;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a detector that does not keep its answers between runs.
+     */
+    public LanguageDetector() {
+        this(null);
+    }
+    
+    private LanguageDetector(Path cache) {
+        this.cache = cache;
+        this.byHash = new ConcurrentHashMap<>();
+        this.previous = new HashMap<>();
+        this.current = new ConcurrentHashMap<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Locates the file holding the detector's answers for the named project,
+     * which sits beside the project's manifest.
+     * 
+     * @param manifest  The project's manifest file.
+     * @return Path to the cache file, which may not exist yet
+     */
+    public static Path locate(Path manifest) {
+        String name = manifest.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        
+        return manifest.resolveSibling((dot > 0 ? name.substring(0, dot) 
+                : name) + EXTENSION);
+    }
+    
+    /**
+     * Creates a detector primed with the answers saved in the cache file by
+     * the last run, if there was one.
+     * 
+     * @param cache The cache file; see `locate`.
+     * @return LanguageDetector that saves its answers to `cache`
+     */
+    public static LanguageDetector open(Path cache) {
+        LanguageDetector detector = new LanguageDetector(cache);
+        
+        try ( BufferedReader in = Files.newBufferedReader(cache, 
+                StandardCharsets.UTF_8) ) {
+            String line = in.readLine();
+            if ( !HEADER.equals(line) ) {
+                return detector;
+            }
+            
+            while ( (line = in.readLine()) != null ) {
+                String[] fields = line.split("\t", 5);
+                if ( fields.length < 5 ) {
+                    continue;
+                }
+                
+                Stamp stamp = new Stamp(Long.parseLong(fields[0]), 
+                        Long.parseLong(fields[1]), 
+                        Long.parseUnsignedLong(fields[2], 16),
+                        NONE.equals(fields[3]) ? null : fields[3]);
+                detector.previous.put(fields[4], stamp);
+                detector.byHash.put(stamp.hash, fields[3]);
+            }
+        } catch (NoSuchFileException ex) {
+            // First run for this project.
+        } catch (IOException | NumberFormatException ex) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+        
+        return detector;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Works out which of the `candidates` the file is written in. If nothing
+     * in the file points to one of them, the first candidate is returned.
+     * 
+     * @param file          The file.
+     * @param size          The size of the file.
+     * @param lastModified  The modification time of the file, in milliseconds.
+     * @param candidates    The language codes the file may be, in order of 
+     *                      preference.
+     * @return String language code; `null` only if there are no candidates
+     */
+    public String resolve(Path file, long size, long lastModified, 
+            String[] candidates) {
+        if ( candidates == null || candidates.length == 0 ) {
+            return null;
+        }
+        if ( candidates.length == 1 ) {
+            return candidates[0];
+        }
+        
+        String found = identify(file, size, lastModified);
+        for ( String candidate : candidates ) {
+            if ( candidate.equals(found) ) {
+                return candidate;
+            }
+        }
+        
+        return candidates[0];
+    }
+    
+    /**
+     * Works out the language of the file from its content alone.
+     * 
+     * @param file          The file.
+     * @param size          The size of the file.
+     * @param lastModified  The modification time of the file, in milliseconds.
+     * @return String language code, or `null` if the content does not say
+     */
+    public String identify(Path file, long size, long lastModified) {
+        if ( size <= 0 ) {
+            return null;
+        }
+        
+        String key = file.toString();
+        Stamp stamp = previous.get(key);
+        
+        if ( stamp == null || stamp.size != size 
+                || stamp.lastModified != lastModified ) {
+            stamp = sniff(file, size, lastModified);
+            
+            if ( stamp == null ) {
+                return null;
+            }
+            dirty = true;
+        }
+        
+        current.put(key, stamp);
+        
+        return stamp.language;
+    }
+    
+    /**
+     * Saves the answers for the files seen by this run, if any of them are
+     * new or have changed. Files that were not seen are dropped.
+     * 
+     * @throws IOException if the cache file cannot be written
+     */
+    public void save() throws IOException {
+        // Nothing new was read, and no file has gone away.
+        if ( cache == null || !dirty && current.size() == previous.size() ) {
+            return;
+        }
+        
+        Files.createDirectories(cache.getParent());
+        Path tmp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        
+        try ( BufferedWriter out = Files.newBufferedWriter(tmp, 
+                StandardCharsets.UTF_8) ) {
+            out.write(HEADER);
+            out.newLine();
+            
+            for ( Map.Entry<String, Stamp> e : current.entrySet() ) {
+                Stamp s = e.getValue();
+                out.write(Long.toString(s.size));
+                out.write('\t');
+                out.write(Long.toString(s.lastModified));
+                out.write('\t');
+                out.write(Long.toHexString(s.hash));
+                out.write('\t');
+                out.write(s.language == null ? NONE : s.language);
+                out.write('\t');
+                out.write(e.getKey());
+                out.newLine();
+            }
+        }
+        
+        Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+    
+    /**
+     * Works out the language of the given text, which should be the start of
+     * a file.
+     * 
+     * @param head The start of the file.
+     * @return String language code, or `null` if the text does not say
+     */
+    public static String detect(CharSequence head) {
+        String text = head.toString();
+        
+        String found = shebang(text);
+        if ( found == null ) {
+            found = modeline(text);
+        }
+        if ( found == null ) {
+            found = markup(text);
+        }
+        if ( found == null ) {
+            found = signature(text);
+        }
+        
+        return found;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private Stamp sniff(Path file, long size, long lastModified) {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        
+        try ( FileChannel channel = FileChannel.open(file, 
+                StandardOpenOption.READ) ) {
+            while ( buffer.hasRemaining() && channel.read(buffer) > 0 ) {
+                // Keep reading until the prefix is full or the file ends.
+            }
+        } catch (IOException ex) {
+            System.err.println("Unable to read " + file + ": " 
+                    + ex.getMessage());
+            return null;
+        }
+        
+        buffer.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        long hash = crc.getValue();
+        
+        // The same prefix always gives the same answer.
+        String language = byHash.get(hash);
+        if ( language == null ) {
+            language = detect(new String(buffer.array(), 0, buffer.limit(), 
+                    StandardCharsets.ISO_8859_1));
+            byHash.put(hash, language == null ? NONE : language);
+        } else if ( NONE.equals(language) ) {
+            language = null;
+        }
+        
+        return new Stamp(size, lastModified, hash, language);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static void names(String language, String... names) {
+        for ( String name : names ) {
+            NAMES.put(name, language);
+        }
+    }
+    
+    private static String name(String name) {
+        return NAMES.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+    
+    private static String shebang(String text) {
+        if ( !text.startsWith("#!") ) {
+            return null;
+        }
+        
+        int end = text.indexOf('\n');
+        String[] words = text.substring(2, end < 0 ? text.length() : end)
+                .trim().split("\\s+");
+        
+        for ( String word : words ) {
+            if ( word.isEmpty() || word.startsWith("-") || word.contains("=") ) {
+                continue;
+            }
+            
+            String program = word.substring(word.lastIndexOf('/') + 1);
+            if ( "env".equals(program) ) {
+                continue;
+            }
+            
+            // python3.8 is python, and so on.
+            return name(program.replaceAll("[\\d.]+$", ""));
+        }
+        
+        return null;
+    }
+    
+    private static String modeline(String text) {
+        Matcher vim = VIM.matcher(text);
+        if ( vim.find() ) {
+            String found = name(vim.group(1));
+            if ( found != null ) {
+                return found;
+            }
+        }
+        
+        Matcher emacs = EMACS.matcher(text);
+        while ( emacs.find() ) {
+            String vars = emacs.group(1);
+            int mode = vars.toLowerCase(Locale.ROOT).indexOf("mode:");
+            
+            if ( mode >= 0 ) {
+                String value = vars.substring(mode + 5);
+                int semi = value.indexOf(';');
+                return name(semi < 0 ? value : value.substring(0, semi));
+            }
+            if ( vars.indexOf(':') < 0 ) {
+                return name(vars);
+            }
+        }
+        
+        return null;
+    }
+    
+    private static String markup(String text) {
+        String start = text.stripLeading();
+        if ( start.startsWith("\u00ef\u00bb\u00bf") ) {
+            // The UTF-8 byte order mark, read as single bytes.
+            start = start.substring(3).stripLeading();
+        }
+        
+        if ( start.startsWith("<?php") ) {
+            return "php";
+        }
+        if ( start.startsWith("<?xml") ) {
+            return "xml";
+        }
+        
+        String lower = start.length() > 16 ? start.substring(0, 16) : start;
+        lower = lower.toLowerCase(Locale.ROOT);
+        if ( lower.startsWith("<!doctype html") || lower.startsWith("<html") ) {
+            return "html";
+        }
+        
+        return null;
+    }
+    
+    private static String signature(String text) {
+        if ( OBJC.matcher(text).find() ) {
+            return "objc";
+        }
+        if ( CPP.matcher(text).find() ) {
+            return "cpp";
+        }
+        if ( MATH.matcher(text).find() ) {
+            return "math";
+        }
+        if ( C.matcher(text).find() ) {
+            return "c";
+        }
+        
+        return null;
+    }
+    //</editor-fold>
+
+    /**
+     * What is known about a file's prefix.
+     */
+    private static final class Stamp {
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+        private final String language;
+        
+        Stamp(long size, long lastModified, long hash, String language) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.language = language;
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.filters;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * `PathRules` are the include and exclude rules for a project, compiled once
+ * into `PathMatcher`s before the tree is walked. A folder that matches an 
+ * exclude rule is pruned as soon as the walk reaches it, so none of the files
+ * below it are ever listed.
+ * 
+ * Rules are written as globs by default, or as regular expressions when they
+ * start with `regex:`. A rule without a `/` in it is matched against the name
+ * of each file and folder at any depth, so `node_modules` prunes every 
+ * `node_modules` folder in the tree. A rule with a `/` in it is matched against
+ * the path relative to the top-level folder of the project, and a rule that
+ * starts with a `/`, as in a `.gitignore` file, only matches at the top of 
+ * the project, so `/build` prunes the project's `build` folder, but not a 
+ * `build` package further down:
+ * 
+ * ```
+ * walker.exclude=.git, /build, src/generated/**, regex:.*\.min\.js
+ * walker.include=src/**
+ * ```
+ * 
+ * Include rules only apply to files: when there are any, a file must match one
+ * of them to be printed. Exclude rules always win over include rules.
+ * 
+ * The rules are read from, in order of precedence: the command line switches
+ * `--include` and `--exclude`, the project's own settings (`<project>.include`
+ * and `<project>.exclude`) and the global `walker.include` and `walker.exclude`
+ * settings. When no exclude rules are set anywhere, `DEFAULT_EXCLUDES` is used.
+ * 
+ * The walk can also honor the project's `.gitignore` files, which is turned on
+ * by the `--gitignore` switch, or by setting `walker.gitignore` (or 
+ * `<project>.gitignore`) to `true`. See `GitIgnore` for how those are matched.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PathRules {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** 
+     * The folders that are left out of every walk, unless told otherwise. The
+     * build output folders are only those at the top of the project, so that
+     * a source package of the same name is still printed.
+     */
+    public static final String DEFAULT_EXCLUDES = ".git, .svn, .hg, /build, "
+            + "/dist, node_modules, nbproject";
+    
+    /** Rules that include everything and exclude nothing. */
+    public static final PathRules NONE = new PathRules(
+            Collections.emptyList(), Collections.emptyList());
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final List<Rule> includes;
+    private final List<Rule> excludes;
+    private final boolean gitIgnore;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Compiles the include and exclude rules.
+     * 
+     * @param includes  The rules a file must match one of to be printed; if
+     *                  empty, all files are included.
+     * @param excludes  The rules for the files and folders to leave out.
+     * @throws IllegalArgumentException if a rule is not a valid glob or 
+     *          regular expression
+     */
+    public PathRules(List<String> includes, List<String> excludes) {
+        this(includes, excludes, false);
+    }
+    
+    /**
+     * Compiles the include and exclude rules.
+     * 
+     * @param includes  The rules a file must match one of to be printed; if
+     *                  empty, all files are included.
+     * @param excludes  The rules for the files and folders to leave out.
+     * @param gitIgnore `true` to also leave out anything ignored by `git`.
+     * @throws IllegalArgumentException if a rule is not a valid glob or 
+     *          regular expression
+     */
+    public PathRules(List<String> includes, List<String> excludes, 
+            boolean gitIgnore) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.gitIgnore = gitIgnore;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Builds the rules for the named project from the given settings, which
+     * are searched in order until a value is found.
+     * 
+     * @param project   The name of the project, as stored on disk, i.e., with
+     *                  underscores in place of spaces; may be `null`.
+     * @param arguments The settings given on the command line; may be `null`.
+     * @param props     The application properties; may be `null`.
+     * @return PathRules for the project
+     */
+    public static PathRules configure(String project, Properties arguments,
+            Properties props) {
+        String include = lookup("include", project, arguments, props);
+        String exclude = lookup("exclude", project, arguments, props);
+        String gitIgnore = lookup("gitignore", project, arguments, props);
+        
+        return new PathRules(split(include), 
+                split(exclude == null ? DEFAULT_EXCLUDES : exclude),
+                Boolean.parseBoolean(gitIgnore));
+    }
+    
+    /**
+     * Splits a comma-separated list of rules.
+     * 
+     * @param rules The rules, separated by commas.
+     * @return List of the rules, with blanks removed
+     */
+    public static List<String> split(String rules) {
+        List<String> list = new ArrayList<>();
+        
+        if ( rules != null ) {
+            for ( String rule : rules.split(",") ) {
+                if ( !rule.isBlank() ) {
+                    list.add(rule.trim());
+                }
+            }
+        }
+        
+        return list;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Tests whether the walk should skip the folder, and everything below it.
+     * 
+     * @param relative The path of the folder, relative to the project root.
+     * @return `true` if the folder is excluded; `false` otherwise
+     */
+    public boolean prune(Path relative) {
+        return matchesAny(excludes, relative);
+    }
+    
+    /**
+     * Tests whether the file should be printed, according to these rules.
+     * 
+     * @param relative The path of the file, relative to the project root.
+     * @return `true` if the file is included and not excluded
+     */
+    public boolean accept(Path relative) {
+        if ( matchesAny(excludes, relative) ) {
+            return false;
+        }
+        
+        return includes.isEmpty() || matchesAny(includes, relative);
+    }
+    
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+    
+    /**
+     * Tells whether the walk should also leave out the files and folders that
+     * are ignored by `git`.
+     * 
+     * @return `true` if `.gitignore` files are honored
+     */
+    public boolean isGitIgnore() {
+        return gitIgnore;
+    }
+    
+    @Override
+    public String toString() {
+        return "include " + includes + ", exclude " + excludes 
+                + (gitIgnore ? ", .gitignore" : "");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static String lookup(String kind, String project, 
+            Properties arguments, Properties props) {
+        String value = arguments == null ? null 
+                : arguments.getProperty("walker." + kind);
+        
+        if ( value == null && props != null && project != null ) {
+            value = props.getProperty(project + "." + kind);
+        }
+        if ( value == null && props != null ) {
+            value = props.getProperty("walker." + kind);
+        }
+        
+        return value;
+    }
+    
+    private static List<Rule> compile(List<String> rules) {
+        List<Rule> compiled = new ArrayList<>();
+        
+        if ( rules == null ) {
+            return compiled;
+        }
+        
+        FileSystem fs = FileSystems.getDefault();
+        for ( String rule : rules ) {
+            if ( rule == null || rule.isBlank() ) {
+                continue;
+            }
+            
+            String text = rule.trim();
+            String syntax = "glob:";
+            if ( text.startsWith("regex:") || text.startsWith("glob:") ) {
+                syntax = text.substring(0, text.indexOf(':') + 1);
+                text = text.substring(syntax.length());
+            }
+            
+            // A trailing slash only says that the rule is for a folder.
+            while ( text.length() > 1 && text.endsWith("/") ) {
+                text = text.substring(0, text.length() - 1);
+            }
+            
+            // A leading slash anchors a glob to the top of the project, which
+            // is where the relative paths it is matched against start.
+            boolean anchored = syntax.equals("glob:") && text.length() > 1 
+                    && text.startsWith("/");
+            if ( anchored ) {
+                text = text.substring(1);
+            }
+            
+            compiled.add(new Rule(rule, fs.getPathMatcher(syntax + text),
+                    !anchored && !text.contains("/")));
+        }
+        
+        return compiled;
+    }
+    
+    private static boolean matchesAny(List<Rule> rules, Path relative) {
+        if ( rules.isEmpty() || relative == null ) {
+            return false;
+        }
+        
+        Path name = relative.getFileName();
+        for ( Rule rule : rules ) {
+            if ( rule.matcher.matches(rule.nameOnly ? name : relative) ) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    //</editor-fold>
+
+    /**
+     * A single compiled rule.
+     */
+    private static final class Rule {
+        private final String text;
+        private final PathMatcher matcher;
+        private final boolean nameOnly;
+        
+        Rule(String text, PathMatcher matcher, boolean nameOnly) {
+            this.text = text;
+            this.matcher = matcher;
+            this.nameOnly = nameOnly;
+        }
+        
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.manifest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the content fingerprints that are recorded in a project's 
+ * `Manifest`. The fingerprint is a CRC-32C of the file's bytes, which is fast
+ * to compute (the JVM uses the processor's own instructions for it) and is 
+ * plenty to tell whether a source file has changed. A SHA-256 digest can be
+ * computed in the same pass, for the manifests that go along with a deposit.
+ * 
+ * Small files are read through a buffer that is reused by each thread, while
+ * large files are memory-mapped, so they are hashed straight out of the page
+ * cache without being copied onto the heap.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ContentHash {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the hash algorithm, as recorded in the manifest. */
+    public static final String ALGORITHM = "crc32c";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER = 
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(
+                    BUFFER_SIZE));
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private ContentHash () {
+        
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Computes the fingerprint of the file's content.
+     * 
+     * @param file The file to fingerprint.
+     * @return String fingerprint as hexadecimal digits
+     * @throws IOException if the file cannot be read
+     */
+    public static String of(Path file) throws IOException {
+        return digest(file, false).getHash();
+    }
+    
+    /**
+     * Computes the fingerprint of the file's content and, if asked for, its 
+     * SHA-256 digest, reading the file only once.
+     * 
+     * @param file      The file to fingerprint.
+     * @param sha256    Whether to compute the SHA-256 digest, too.
+     * @return Digest of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Digest digest(Path file, boolean sha256) throws IOException {
+        CRC32C crc = new CRC32C();
+        MessageDigest sha = sha256 ? newSha256() : null;
+        
+        try ( FileChannel in = FileChannel.open(file, 
+                StandardOpenOption.READ) ) {
+            long size = in.size();
+            
+            if ( size >= MAP_THRESHOLD ) {
+                for ( long pos = 0; pos < size; pos += MAP_CHUNK ) {
+                    MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY,
+                            pos, Math.min(MAP_CHUNK, size - pos));
+                    update(crc, sha, map);
+                }
+            } else {
+                ByteBuffer buffer = BUFFER.get();
+                buffer.clear();
+                while ( in.read(buffer) != -1 ) {
+                    buffer.flip();
+                    update(crc, sha, buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        
+        return new Digest(toHex(crc.getValue()), 
+                sha == null ? null : toHex(sha.digest()));
+    }
+    
+    /**
+     * Formats a 32-bit checksum as eight hexadecimal digits.
+     * 
+     * @param value The checksum.
+     * @return String of hexadecimal digits
+     */
+    public static String toHex(long value) {
+        return String.format("%08x", value & 0xffffffffL);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static void update(CRC32C crc, MessageDigest sha, ByteBuffer data) {
+        if ( sha != null ) {
+            data.mark();
+            crc.update(data);
+            data.reset();
+            sha.update(data);
+        } else {
+            crc.update(data);
+        }
+    }
+    
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch ( NoSuchAlgorithmException ex ) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        
+        for ( byte b : bytes ) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        
+        return sb.toString();
+    }
+    //</editor-fold>
+
+    /**
+     * The fingerprints of a single file.
+     */
+    public static final class Digest {
+        private final String hash;
+        private final String sha256;
+        
+        Digest(String hash, String sha256) {
+            this.hash = hash;
+            this.sha256 = sha256;
+        }
+        
+        public String getHash() {
+            return hash;
+        }
+        
+        /**
+         * Retrieves the SHA-256 digest of the file.
+         * 
+         * @return String digest, or `null` if it was not computed
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+}
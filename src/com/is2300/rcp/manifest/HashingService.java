@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.manifest;
+
+import com.is2300.rcp.walker.PlannedFile;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * `HashingService` computes the content fingerprints for a list of files in
+ * parallel, using a `ForkJoinPool` that splits the list between its workers.
+ * Large files are memory-mapped and everything is hashed with CRC-32C (see
+ * `ContentHash`), with an optional SHA-256 digest for deposit manifests.
+ * 
+ * A file is not read at all when its size and modification time match the
+ * entry for it in the previous manifest, since its fingerprints are already
+ * known. A file that cannot be read, such as one that is locked, or was
+ * deleted after the tree was walked, is reported and left without a digest,
+ * and the other files are hashed as usual.
+ * 
+ * The service may be configured in the application properties with:
+ * 
+ * ```
+ * hash.threads=8
+ * hash.sha256=true
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class HashingService {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    /** The number of files a single task hashes before it is split. */
+    private static final int SPLIT_THRESHOLD = 8;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final int parallelism;
+    private final boolean sha256;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `HashingService`.
+     * 
+     * @param parallelism   The number of threads to hash with.
+     * @param sha256        Whether to compute SHA-256 digests, too.
+     * @throws IllegalArgumentException if `parallelism` is less than one
+     */
+    public HashingService (int parallelism, boolean sha256) {
+        if ( parallelism < 1 ) {
+            throw new IllegalArgumentException("At least one thread is needed "
+                    + "for hashing.");
+        }
+        
+        this.parallelism = parallelism;
+        this.sha256 = sha256;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates a `HashingService` configured from the properties, defaulting
+     * to one thread per processor and no SHA-256 digests.
+     * 
+     * @param props The properties to read the settings from.
+     * @return HashingService as configured
+     */
+    public static HashingService fromProperties(Properties props) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String value = props == null ? null : props.getProperty("hash.threads");
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                threads = Math.max(1, Integer.parseInt(value.trim()));
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for hash.threads: " + value);
+            }
+        }
+        
+        boolean sha = props != null && Boolean.parseBoolean(
+                props.getProperty("hash.sha256", "false"));
+        
+        return new HashingService(threads, sha);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public boolean isSha256() {
+        return sha256;
+    }
+    
+    /**
+     * Computes the fingerprints of the files. The `previous` list runs 
+     * alongside the `files` list, holding the manifest entry for each file 
+     * from the last run, or `null` for a file that was not in the manifest.
+     * 
+     * @param files     The files to hash.
+     * @param previous  The previous manifest entries for the files, in the 
+     *                  same order; may be `null` if there are none.
+     * @return array of the digests, in the same order as the files, with 
+     *          `null` for each file that could not be read
+     */
+    public ContentHash.Digest[] hashAll(List<PlannedFile> files, 
+            List<ManifestEntry> previous) {
+        if ( previous != null && previous.size() != files.size() ) {
+            throw new IllegalArgumentException("The previous entries do not "
+                    + "match the files.");
+        }
+        
+        ContentHash.Digest[] digests = new ContentHash.Digest[files.size()];
+        if ( files.isEmpty() ) {
+            return digests;
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new HashTask(files, previous, digests, 0, 
+                    files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        
+        return digests;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private ContentHash.Digest hashOne(PlannedFile file, ManifestEntry old) 
+            throws IOException {
+        if ( old != null && old.matches(file.getSize(), file.getLastModified())
+                && (!sha256 || old.getSha256() != null) ) {
+            return new ContentHash.Digest(old.getHash(), old.getSha256());
+        }
+        
+        return ContentHash.digest(file.getPath(), sha256);
+    }
+    //</editor-fold>
+
+    /**
+     * Hashes a range of the files, splitting the range in half until it is
+     * small enough to hash directly.
+     */
+    private class HashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<PlannedFile> files;
+        private final List<ManifestEntry> previous;
+        private final ContentHash.Digest[] digests;
+        private final int from;
+        private final int to;
+        
+        HashTask(List<PlannedFile> files, List<ManifestEntry> previous,
+                ContentHash.Digest[] digests, int from, int to) {
+            this.files = files;
+            this.previous = previous;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if ( to - from <= SPLIT_THRESHOLD ) {
+                for ( int i = from; i < to; i++ ) {
+                    try {
+                        digests[i] = hashOne(files.get(i), 
+                                previous == null ? null : previous.get(i));
+                    } catch ( IOException ex ) {
+                        // Printed as changed, and hashed again next time.
+                        System.err.println("Cannot hash " 
+                                + files.get(i).getPath() + ": " + ex);
+                    }
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new HashTask(files, previous, digests, from, mid),
+                        new HashTask(files, previous, digests, mid, to));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.manifest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+/**
+ * A `Manifest` is the record, kept for each project, of every file that was
+ * in the project the last time it was printed: its path, size, modification
+ * time and content hash. The manifests live in the `manifests` folder under
+ * the `project.home` folder, one file per project:
+ * 
+ * ```
+ * # ISRCP manifest 2 crc32c
+ * 1523	1570551299000	9a3f01c2	-	src/com/example/Main.java
+ * ```
+ * 
+ * The fourth column holds the SHA-256 digest of the file when one was asked
+ * for, or a `-` when it was not. Manifests written before that column was
+ * added are still read.
+ * 
+ * The entries are written in plan order, which allows a manifest to be read
+ * back one line at a time and compared against a new plan in a single pass.
+ * See `ManifestDiff`.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class Manifest {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder, under `project.home`, holding the manifests. */
+    public static final String FOLDER = "manifests";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final String HEADER = "# ISRCP manifest ";
+    private static final String VERSION = "2";
+    private static final String EXTENSION = ".manifest";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private Manifest () {
+        
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Locates the manifest file for the named project.
+     * 
+     * @param projectHome   The `project.home` folder.
+     * @param projectName   The name of the project, as stored on disk, i.e., 
+     *                      with underscores in place of spaces.
+     * @return Path to the manifest file, which may not exist yet
+     */
+    public static Path locate(Path projectHome, String projectName) {
+        if ( projectName == null || projectName.isBlank() ) {
+            throw new IllegalArgumentException("No project name provided.");
+        }
+        
+        return projectHome.resolve(FOLDER).resolve(projectName + EXTENSION);
+    }
+    
+    /**
+     * Opens the manifest for reading, one entry at a time.
+     * 
+     * @param file The manifest file.
+     * @return Reader for the manifest, or `null` if there is no manifest yet
+     * @throws IOException if the manifest cannot be opened
+     */
+    public static Reader open(Path file) throws IOException {
+        if ( !Files.isRegularFile(file) ) {
+            return null;
+        }
+        
+        return new Reader(Files.newBufferedReader(file, 
+                StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Writes the entries to the manifest file. The new manifest is written 
+     * beside the old one and then moved into its place, so a failure part way
+     * through never leaves a project with a broken manifest.
+     * 
+     * @param file      The manifest file.
+     * @param algorithm The name of the algorithm used for the hashes.
+     * @param entries   The entries to write, in plan order.
+     * @throws IOException if the manifest cannot be written
+     */
+    public static void write(Path file, String algorithm, 
+            Collection<ManifestEntry> entries) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        
+        try ( BufferedWriter out = Files.newBufferedWriter(tmp, 
+                StandardCharsets.UTF_8) ) {
+            out.write(HEADER + VERSION + " " + algorithm);
+            out.newLine();
+            
+            for ( ManifestEntry e : entries ) {
+                out.write(Long.toString(e.getSize()));
+                out.write('\t');
+                out.write(Long.toString(e.getLastModified()));
+                out.write('\t');
+                out.write(e.getHash());
+                out.write('\t');
+                out.write(e.getSha256() == null ? "-" : e.getSha256());
+                out.write('\t');
+                out.write(e.getPath());
+                out.newLine();
+            }
+        }
+        
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    //</editor-fold>
+
+    /**
+     * Reads a manifest one entry at a time, so that even the manifest of a
+     * very large project never has to be held in memory all at once.
+     */
+    public static final class Reader implements Closeable {
+        private final BufferedReader in;
+        private String algorithm;
+        private int columns;
+        
+        private Reader(BufferedReader in) throws IOException {
+            this.in = in;
+            
+            columns = 5;
+            String header = in.readLine();
+            if ( header != null && header.startsWith(HEADER) ) {
+                String[] fields = header.substring(HEADER.length()).trim()
+                        .split("\\s+");
+                if ( fields.length == 2 ) {
+                    columns = "1".equals(fields[0]) ? 4 : 5;
+                    algorithm = fields[1];
+                }
+            }
+        }
+        
+        /**
+         * Retrieves the name of the hash algorithm the manifest was written
+         * with.
+         * 
+         * @return String algorithm name, or `null` if the header is missing
+         */
+        public String getAlgorithm() {
+            return algorithm;
+        }
+        
+        /**
+         * Reads the next entry from the manifest, skipping any line that is
+         * not a valid entry.
+         * 
+         * @return ManifestEntry that was read, or `null` at the end
+         * @throws IOException if the manifest cannot be read
+         */
+        public ManifestEntry next() throws IOException {
+            String line;
+            
+            while ( (line = in.readLine()) != null ) {
+                if ( line.isBlank() || line.startsWith("#") ) {
+                    continue;
+                }
+                
+                String[] fields = line.split("\t", columns);
+                if ( fields.length < columns ) {
+                    System.err.println("Skipping bad manifest line: " + line);
+                    continue;
+                }
+                
+                String sha256 = columns == 4 || "-".equals(fields[3]) ? null 
+                        : fields[3];
+                try {
+                    return new ManifestEntry(fields[columns - 1], 
+                            Long.parseLong(fields[0]), 
+                            Long.parseLong(fields[1]), fields[2], sha256);
+                } catch ( IllegalArgumentException ex ) {
+                    System.err.println("Skipping bad manifest line: " + line);
+                }
+            }
+            
+            return null;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+}
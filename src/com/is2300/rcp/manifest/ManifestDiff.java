@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.manifest;
+
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * `ManifestDiff` compares a new `FilePlan` against the project's `Manifest` to
+ * find the files whose content has actually changed since the last print. 
+ * Both the plan and the manifest are sorted by path, so the comparison is made
+ * in a single pass, reading the manifest one line at a time.
+ * 
+ * A file is considered unchanged when its size and modification time match 
+ * the manifest, in which case it is not read at all. Otherwise, its content is
+ * hashed, in parallel with the other such files by the `HashingService`, and
+ * compared, so a checkout that only touches the modification times
+ * of files does not cause them to be printed again. A file that cannot be
+ * hashed is taken to have changed, and is left out of the new manifest, so 
+ * that it is looked at again by the next run.
+ * 
+ * Once the files have been printed, the diff is saved as the project's new
+ * manifest.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ManifestDiff {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path root;
+    private final List<PlannedFile> changed;
+    private final Map<String, ManifestEntry> entries;
+    private int unchanged;
+    private int touched;
+    private int added;
+    private int removed;
+    private int unreadable;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private ManifestDiff (Path root) {
+        this.root = root;
+        this.changed = new ArrayList<>();
+        this.entries = new LinkedHashMap<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Compares the plan against the manifest stored in `manifestFile`, hashing
+     * with a default `HashingService`.
+     * 
+     * @param plan          The plan for this print job.
+     * @param manifestFile  The project's manifest file.
+     * @param fallback      The test to use when there is no manifest; may be
+     *                      `null` to print every file.
+     * @return ManifestDiff holding the changed files and the new manifest
+     * @throws IOException if the manifest cannot be read
+     * @see #compare(FilePlan, Path, Predicate, HashingService)
+     */
+    public static ManifestDiff compare(FilePlan plan, Path manifestFile, 
+            Predicate<PlannedFile> fallback) throws IOException {
+        return compare(plan, manifestFile, fallback, 
+                HashingService.fromProperties(null));
+    }
+    
+    /**
+     * Compares the plan against the manifest stored in `manifestFile`.
+     * 
+     * When the project has no manifest yet, the `fallback` test is used to 
+     * decide which files to print, so that the first run after upgrading does
+     * not print the whole project again. Every file in the plan is still 
+     * hashed, so that the next run has a complete manifest to work from.
+     * 
+     * @param plan          The plan for this print job.
+     * @param manifestFile  The project's manifest file.
+     * @param fallback      The test to use when there is no manifest; may be
+     *                      `null` to print every file.
+     * @param hashing       The service used to hash the files that need it.
+     * @return ManifestDiff holding the changed files and the new manifest
+     * @throws IOException if the manifest cannot be read
+     */
+    public static ManifestDiff compare(FilePlan plan, Path manifestFile, 
+            Predicate<PlannedFile> fallback, HashingService hashing) 
+            throws IOException {
+        ManifestDiff diff = new ManifestDiff(plan.getRoot());
+        List<PlannedFile> files = plan.getFiles();
+        List<ManifestEntry> previous = new ArrayList<>(files.size());
+        boolean firstRun;
+        boolean comparable;
+        
+        try ( Manifest.Reader reader = Manifest.open(manifestFile) ) {
+            firstRun = reader == null;
+            comparable = !firstRun 
+                    && ContentHash.ALGORITHM.equals(reader.getAlgorithm());
+            
+            if ( firstRun ) {
+                files.forEach(f -> previous.add(null));
+            } else {
+                diff.match(files, reader, previous);
+            }
+        }
+        
+        ContentHash.Digest[] digests = hashing.hashAll(files, 
+                comparable ? previous : null);
+        
+        for ( int i = 0; i < files.size(); i++ ) {
+            PlannedFile f = files.get(i);
+            ManifestEntry old = previous.get(i);
+            
+            if ( digests[i] == null ) {
+                diff.changed.add(f);
+                diff.unreadable++;
+                continue;
+            }
+            diff.record(f, digests[i]);
+            
+            if ( firstRun ) {
+                if ( fallback == null || fallback.test(f) ) {
+                    diff.changed.add(f);
+                    diff.added++;
+                } else {
+                    diff.unchanged++;
+                }
+            } else if ( old == null ) {
+                diff.changed.add(f);
+                diff.added++;
+            } else if ( old.matches(f.getSize(), f.getLastModified()) ) {
+                diff.unchanged++;
+            } else if ( comparable && old.getSize() == f.getSize() 
+                    && old.getHash().equals(digests[i].getHash()) ) {
+                diff.touched++;
+            } else {
+                diff.changed.add(f);
+            }
+        }
+        
+        return diff;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the files whose content has changed, or that are new, in plan
+     * order.
+     * 
+     * @return unmodifiable List of the files to print
+     */
+    public List<PlannedFile> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+    
+    /**
+     * Drops a file from the new manifest, such as when it failed to print, so 
+     * that it is picked up again by the next run.
+     * 
+     * @param file The file to forget.
+     */
+    public synchronized void forget(PlannedFile file) {
+        entries.remove(relativize(file.getPath()));
+    }
+    
+    /**
+     * Saves the new manifest, recording the current state of every file in the
+     * plan.
+     * 
+     * @param manifestFile The project's manifest file.
+     * @throws IOException if the manifest cannot be written
+     */
+    public synchronized void save(Path manifestFile) throws IOException {
+        Manifest.write(manifestFile, ContentHash.ALGORITHM, entries.values());
+    }
+    
+    /**
+     * Builds a short summary of the comparison, suitable for the job log.
+     * 
+     * @return String summary of the comparison
+     */
+    public String getSummary() {
+        return "Manifest: " + changed.size() + " to print (" + added 
+                + " new), " + unchanged + " unchanged, " + touched 
+                + " touched but unchanged, " + removed + " removed"
+                + (unreadable == 0 ? "" : ", " + unreadable + " unreadable");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Walks the plan and the manifest side by side, finding the previous entry
+     * for each planned file. Both are sorted by path, so the manifest is read
+     * only once, from start to finish.
+     */
+    private void match(List<PlannedFile> files, Manifest.Reader reader, 
+            List<ManifestEntry> previous) throws IOException {
+        ManifestEntry old = reader.next();
+        
+        for ( PlannedFile f : files ) {
+            // Anything in the manifest that sorts before this file is no 
+            // longer part of the project.
+            while ( old != null 
+                    && root.resolve(old.getPath()).compareTo(f.getPath()) < 0 ) {
+                removed++;
+                old = reader.next();
+            }
+            
+            if ( old != null && root.resolve(old.getPath()).equals(
+                    f.getPath()) ) {
+                previous.add(old);
+                old = reader.next();
+            } else {
+                previous.add(null);
+            }
+        }
+        
+        while ( old != null ) {
+            removed++;
+            old = reader.next();
+        }
+    }
+    
+    private void record(PlannedFile file, ContentHash.Digest digest) {
+        String path = relativize(file.getPath());
+        entries.put(path, new ManifestEntry(path, file.getSize(), 
+                file.getLastModified(), digest.getHash(), digest.getSha256()));
+    }
+    
+    private String relativize(Path file) {
+        return root.relativize(file).toString().replace(
+                file.getFileSystem().getSeparator(), "/");
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.manifest;
+
+/**
+ * A single line of a project's `Manifest`: what a file looked like the last 
+ * time it was printed. The path is kept relative to the top-level folder of
+ * the project, so that a project can be moved or checked out somewhere else
+ * without every file looking new.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ManifestEntry {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+    private final String sha256;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `ManifestEntry`.
+     * 
+     * @param path          The path of the file, relative to the project root,
+     *                      using `/` as the separator.
+     * @param size          The size of the file, in bytes.
+     * @param lastModified  The last modified time, in milliseconds since the
+     *                      epoch.
+     * @param hash          The hash of the file's content.
+     */
+    public ManifestEntry (String path, long size, long lastModified, 
+            String hash) {
+        this(path, size, lastModified, hash, null);
+    }
+    
+    /**
+     * Creates a new `ManifestEntry` that also records the SHA-256 digest of
+     * the file, as is needed for a deposit manifest.
+     * 
+     * @param path          The path of the file, relative to the project root,
+     *                      using `/` as the separator.
+     * @param size          The size of the file, in bytes.
+     * @param lastModified  The last modified time, in milliseconds since the
+     *                      epoch.
+     * @param hash          The hash of the file's content.
+     * @param sha256        The SHA-256 digest of the file's content, or `null`
+     *                      if it was not computed.
+     */
+    public ManifestEntry (String path, long size, long lastModified, 
+            String hash, String sha256) {
+        if ( path == null || path.isBlank() ) {
+            throw new IllegalArgumentException("No path provided.");
+        }
+        if ( hash == null || hash.isBlank() ) {
+            throw new IllegalArgumentException("No hash provided for " + path);
+        }
+        
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.hash = hash;
+        this.sha256 = sha256;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public String getPath() {
+        return path;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public long getLastModified() {
+        return lastModified;
+    }
+    
+    public String getHash() {
+        return hash;
+    }
+    
+    /**
+     * Retrieves the SHA-256 digest of the file's content.
+     * 
+     * @return String digest, or `null` if it was not recorded
+     */
+    public String getSha256() {
+        return sha256;
+    }
+    
+    /**
+     * Tests whether the file still has the same size and modification time
+     * that are recorded in this entry.
+     * 
+     * @param size          The current size of the file.
+     * @param lastModified  The current last modified time of the file.
+     * @return `true` if both match; `false` otherwise
+     */
+    public boolean matches(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+    
+    @Override
+    public String toString() {
+        return path;
+    }
+    //</editor-fold>
+
+}
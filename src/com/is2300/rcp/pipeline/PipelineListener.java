@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
+
+/**
+ * Receives notifications from a running `PrintPipeline`. These methods are 
+ * called from the pipeline's worker threads, so a listener that updates a
+ * Swing component needs to hand that work off to the event dispatch thread.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public interface PipelineListener {
+    
+    /**
+     * Called once the tree has been walked, before any file is loaded.
+     * 
+     * @param plan      The plan that was discovered.
+     * @param selected  The number of files from the plan that will be printed.
+     */
+    default void planReady(FilePlan plan, int selected) {
+        
+    }
+    
+    /**
+     * Called each time a file has been loaded, before it is laid out. Files
+     * are not loaded in plan order when the load stage has several threads.
+     * 
+     * @param file      The file that was loaded.
+     * @param encoding  The encoding the file was read with.
+     */
+    default void fileLoaded(PlannedFile file, String encoding) {
+        
+    }
+    
+    /**
+     * Called each time a file has been sent to the printer, in plan order.
+     * 
+     * @param file The file that was spooled.
+     */
+    default void fileSpooled(PlannedFile file) {
+        
+    }
+    
+    /**
+     * Called each time a file is left out of the job because its content is
+     * not fit to print, such as a binary file.
+     * 
+     * @param file      The file that was skipped.
+     * @param reason    Why the file was skipped.
+     */
+    default void fileSkipped(PlannedFile file, String reason) {
+        
+    }
+    
+    /**
+     * Called each time a file fails in one of the stages.
+     * 
+     * @param file  The file that failed.
+     * @param stage The name of the stage in which it failed.
+     * @param ex    The reason for the failure.
+     */
+    default void fileFailed(PlannedFile file, String stage, Exception ex) {
+        
+    }
+    
+}
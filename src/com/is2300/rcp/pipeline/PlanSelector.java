@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decides which of the files in a `FilePlan` are actually to be printed. The
+ * selector is given the whole plan at once, which allows it to compare the
+ * plan against something else that is sorted the same way, such as the 
+ * project's manifest, in a single pass.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface PlanSelector {
+    
+    /**
+     * Selects the files to print from the plan.
+     * 
+     * @param plan The plan discovered for the job.
+     * @return List of the files to print, in plan order
+     * @throws IOException if the selection needs to read something that 
+     *          cannot be read
+     */
+    List<PlannedFile> select(FilePlan plan) throws IOException;
+    
+}
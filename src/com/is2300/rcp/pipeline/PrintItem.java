@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import com.is2300.rcp.printer.FormattedPrinter;
+import com.is2300.rcp.printer.PdfFragment;
+import com.is2300.rcp.walker.PlannedFile;
+
+/**
+ * A `PrintItem` is what is handed from one stage of the `PrintPipeline` to the
+ * next. It carries the planned file, its position in the plan and whatever
+ * each stage has produced for it so far.
+ * 
+ * An item that fails in one stage is still passed along, marked as failed, so
+ * that the spooling stage can keep the files in plan order without waiting for
+ * an item that will never arrive.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PrintItem {
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Constants">
+    /** Marks the end of the items flowing through a queue. */
+    static final PrintItem END = new PrintItem(-1, null);
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final int sequence;
+    private final PlannedFile file;
+    private FormattedPrinter printer;
+    private PdfFragment fragment;
+    private String cacheKey;
+    private boolean failed;
+    private boolean skipped;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    PrintItem (int sequence, PlannedFile file) {
+        this.sequence = sequence;
+        this.file = file;
+        this.printer = null;
+        this.failed = false;
+        this.skipped = false;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the position of this item in the plan, starting from zero.
+     * 
+     * @return int position in the plan
+     */
+    public int getSequence() {
+        return sequence;
+    }
+    
+    public PlannedFile getFile() {
+        return file;
+    }
+    
+    public FormattedPrinter getPrinter() {
+        return printer;
+    }
+    
+    public void setPrinter(FormattedPrinter printer) {
+        this.printer = printer;
+    }
+    
+    public PdfFragment getFragment() {
+        return fragment;
+    }
+    
+    /**
+     * Stores the pages of the file, rendered ahead for the PDF backend, for
+     * the spool stage to write.
+     * 
+     * @param fragment The rendered pages.
+     */
+    public void setFragment(PdfFragment fragment) {
+        this.fragment = fragment;
+    }
+    
+    public String getCacheKey() {
+        return cacheKey;
+    }
+    
+    /**
+     * Stores the key the file's pages are to be kept under in the render 
+     * cache, once they have been rendered.
+     * 
+     * @param cacheKey The key, or `null` not to keep the pages.
+     */
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+    
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    /**
+     * Marks this item as failed and releases whatever was loaded for it, so 
+     * that the following stages pass it along without doing any work on it.
+     */
+    public void fail() {
+        this.failed = true;
+        release();
+    }
+    
+    public boolean isSkipped() {
+        return skipped;
+    }
+    
+    /**
+     * Marks this item as left out of the job on purpose, so that the following
+     * stages pass it along without doing any work on it. Unlike a failed item,
+     * a skipped one counts as done.
+     */
+    public void skip() {
+        this.skipped = true;
+        release();
+    }
+    
+    /**
+     * Closes and lets go of the printer for this item, once it is no longer
+     * needed.
+     */
+    public void release() {
+        if ( printer != null ) {
+            printer.close();
+            printer = null;
+        }
+    }
+    //</editor-fold>
+
+}
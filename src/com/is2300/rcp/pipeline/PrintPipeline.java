@@ -0,0 +1,972 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import com.is2300.rcp.filters.LanguageDetector;
+import com.is2300.rcp.filters.PathRules;
+import com.is2300.rcp.printer.DepositPageable;
+import com.is2300.rcp.printer.FormattedPrinter;
+import com.is2300.rcp.printer.PdfFragment;
+import com.is2300.rcp.printer.PdfPageMap;
+import com.is2300.rcp.printer.PdfWriter;
+import com.is2300.rcp.printer.PostScriptWriter;
+import com.is2300.rcp.printer.ProjectPageable;
+import com.is2300.rcp.printer.RenderCache;
+import com.is2300.rcp.printer.SpoolSize;
+import com.is2300.rcp.printer.TextDocument;
+import com.is2300.rcp.text.CharsetDetector;
+import com.is2300.rcp.text.ContentClassifier;
+import com.is2300.rcp.text.HexDumpText;
+import com.is2300.rcp.text.NotebookText;
+import com.is2300.rcp.text.SharedHeaders;
+import com.is2300.rcp.text.SourceText;
+import com.is2300.rcp.text.SummaryText;
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
+import com.is2300.rcp.walker.TreeWalker;
+import java.awt.print.PageFormat;
+import java.awt.print.PrinterException;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.print.PrintService;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Sides;
+
+/**
+ * `PrintPipeline` runs a print job as a series of stages that are connected by
+ * bounded queues:
+ * 
+ * ```
+ * discover --> load --> layout --> render --> spool
+ * ```
+ * 
+ * Each stage has its own worker threads, so the disk reads and the layout of
+ * the next files take place while the current file is being spooled to the
+ * printer, instead of one after the other. The spool stage always puts the
+ * files out in the same order as the plan.
+ * 
+ * The load stage opens each file as text fit to print (see `SourceText` and
+ * `ContentClassifier`), the layout stage paginates it, the render stage 
+ * renders its pages ahead for the PDF backend, and the spool stage joins the
+ * files into one document and sends it to the backend set by 
+ * `printer.backend`: Java2D, `PostScriptWriter` or `PdfWriter`. With `plan`
+ * in place of `run`, the job is only measured (see `PrintPlan`).
+ * 
+ * The thread count and queue depth of each stage can be set in the application
+ * properties (see `StageConfig`), and the statistics for every stage are kept
+ * so that, at the end of a run, we can see which stage limited the job.
+ * 
+ * Typically, the pipeline will be used in this manner:
+ * 
+ * ```java
+ * PrintPipeline pipeline = new PrintPipeline(service, attributes, 
+ *         pageFormat, StartPrinting.PROPS);
+ * pipeline.setListener(myListener);
+ * pipeline.run(Paths.get(srcFolder), filter);
+ * System.out.println(pipeline.getReport());
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class PrintPipeline {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    public static final String DISCOVER = "discover";
+    public static final String LOAD = "load";
+    public static final String LAYOUT = "layout";
+    public static final String RENDER = "render";
+    public static final String SPOOL = "spool";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final StageConfig LOAD_DEFAULTS = new StageConfig(2, 16);
+    private static final StageConfig LAYOUT_DEFAULTS = new StageConfig(2, 16);
+    private static final StageConfig RENDER_DEFAULTS = new StageConfig(1, 8);
+    private static final StageConfig PDF_RENDER_DEFAULTS = new StageConfig(
+            Runtime.getRuntime().availableProcessors(), 16);
+    private static final StageConfig SPOOL_DEFAULTS = new StageConfig(1, 4);
+    private static final long DEFAULT_WINDOW_BYTES = 16L * 1024 * 1024;
+    private static final long DEFAULT_JOB_PAGES = 0;
+    private static final String POSTSCRIPT = "postscript";
+    private static final String PDF = "pdf";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final PrintService service;
+    private final PrintRequestAttributeSet attributes;
+    private final PageFormat pageFormat;
+    private final Properties props;
+    private final List<StageStats> stats;
+    private final List<PrintItem> documentItems;
+    private final List<PlannedFile> pdfFiles;
+    private final long jobPages;
+    private final String backend;
+    private final boolean pdfUpdate;
+    private final CharsetDetector charsets;
+    private final SharedHeaders headers;
+    private final RenderCache cache;
+    
+    private StageTask loadTask;
+    private StageTask layoutTask;
+    private StageTask renderTask;
+    private StageTask spoolTask;
+    private PlanSelector selector;
+    private PathRules rules;
+    private LanguageDetector detector;
+    private PipelineListener listener;
+    private FilePlan plan;
+    private ProjectPageable document;
+    private FormattedPrinter frontMatter;
+    private PrintPlan planned;
+    private PdfWriter pdf;
+    private PdfPageMap pdfPages;
+    private PdfPageMap pdfPrevious;
+    private Path output;
+    private String jobName;
+    private int jobCount;
+    private int depositPages;
+    private boolean depositManifest;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `PrintPipeline` that prints to the given service. Besides
+     * the settings of its stages, and of the classes it uses, the pipeline
+     * reads these from `props`:
+     * 
+     * ```
+     * printer.backend=pdf            # java2d (the default), postscript, pdf
+     * printer.output=/tmp/out.pdf    # the PDF file; next to the project
+     * printer.output.update=true     # append changed files to the PDF
+     * printer.job.pages=0            # pages after which a job is sent
+     * printer.window.bytes=16777216  # size from which a file is windowed
+     * notebook.outputs=false         # print a notebook's text outputs
+     * ```
+     * 
+     * @param service       The printer to send the files to.
+     * @param attributes    The attributes for the print requests.
+     * @param pageFormat    The page format to lay the files out for.
+     * @param props         The properties to read the stage settings from.
+     * @throws IllegalArgumentException if `service` or `pageFormat` is null
+     */
+    public PrintPipeline (PrintService service, 
+            PrintRequestAttributeSet attributes, PageFormat pageFormat, 
+            Properties props) {
+        if ( service == null ) {
+            throw new IllegalArgumentException("No printer provided.");
+        }
+        if ( pageFormat == null ) {
+            throw new IllegalArgumentException("No page format provided.");
+        }
+        
+        this.service = service;
+        this.attributes = attributes;
+        this.pageFormat = pageFormat;
+        this.props = props;
+        this.stats = new ArrayList<>();
+        this.documentItems = new ArrayList<>();
+        this.pdfFiles = new ArrayList<>();
+        this.selector = FilePlan::getFiles;
+        this.rules = PathRules.NONE;
+        this.listener = new PipelineListener() { };
+        
+        this.jobPages = number(props, "printer.job.pages", DEFAULT_JOB_PAGES);
+        this.backend = props == null ? "" 
+                : props.getProperty("printer.backend", "").trim().toLowerCase();
+        this.pdfUpdate = props != null && Boolean.parseBoolean(
+                props.getProperty("printer.output.update"));
+        
+        long windowBytes = number(props, "printer.window.bytes", 
+                DEFAULT_WINDOW_BYTES);
+        this.charsets = CharsetDetector.fromProperties(props);
+        this.headers = SharedHeaders.fromProperties(props);
+        this.cache = RenderCache.fromProperties(props, pageFormat);
+        ContentClassifier classifier = ContentClassifier.fromProperties(props);
+        boolean outputs = props != null && Boolean.parseBoolean(
+                props.getProperty("notebook.outputs"));
+        this.loadTask = item -> load(item, classifier, windowBytes, outputs);
+        this.layoutTask = item -> {
+            // Pages taken from the render cache need no layout.
+            if ( item.getPrinter() != null ) {
+                item.getPrinter().layout(this.pageFormat);
+            }
+        };
+        this.renderTask = this::render;
+        this.spoolTask = this::collect;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Sets the test used to decide which of the planned files are actually to
+     * be printed, such as only those files changed since the last print.
+     * 
+     * @param selection The test for the files to print.
+     */
+    public void setSelection(Predicate<PlannedFile> selection) {
+        if ( selection == null ) {
+            this.selector = FilePlan::getFiles;
+        } else {
+            this.selector = plan -> plan.getFiles().stream().filter(selection)
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    /**
+     * Sets the selector used to decide which of the planned files are to be 
+     * printed, for a decision that needs to look at the whole plan at once.
+     * 
+     * @param selector The selector for the files to print.
+     */
+    public void setSelector(PlanSelector selector) {
+        this.selector = selector == null ? FilePlan::getFiles : selector;
+    }
+    
+    /**
+     * Sets the include and exclude rules used while discovering the files.
+     * 
+     * @param rules The rules for the project.
+     */
+    public void setRules(PathRules rules) {
+        this.rules = rules == null ? PathRules.NONE : rules;
+    }
+    
+    /**
+     * Sets the detector used to place the files that cannot be placed by 
+     * their names alone. Its answers are saved once the tree has been walked.
+     * 
+     * @param detector The detector, or `null` to go by file names alone.
+     */
+    public void setDetector(LanguageDetector detector) {
+        this.detector = detector;
+    }
+    
+    /**
+     * Sets the job to print a deposit of the project: only its first and last
+     * `pages` pages, numbered across the whole project. The pages in between
+     * are not rendered at all.
+     * 
+     * @param pages     The number of pages to print from the start, and from
+     *                  the end, or zero to print the whole project.
+     * @param manifest  `true` to print a page in place of the pages that are
+     *                  left out, listing the files on them.
+     */
+    public void setDeposit(int pages, boolean manifest) {
+        this.depositPages = Math.max(0, pages);
+        this.depositManifest = manifest;
+    }
+    
+    public void setListener(PipelineListener listener) {
+        this.listener = listener == null ? new PipelineListener() { } 
+                : listener;
+    }
+    
+    /**
+     * Replaces the task that is run by one of the stages.
+     * 
+     * @param stage The name of the stage: `LOAD`, `LAYOUT`, `RENDER` or 
+     *              `SPOOL`.
+     * @param task  The task for the stage to run.
+     * @throws IllegalArgumentException if the stage is not known or the task
+     *          is null
+     */
+    public void setTask(String stage, StageTask task) {
+        if ( task == null ) {
+            throw new IllegalArgumentException("No task provided.");
+        }
+        
+        switch ( stage ) {
+            case LOAD:
+                loadTask = task;
+                break;
+            case LAYOUT:
+                layoutTask = task;
+                break;
+            case RENDER:
+                renderTask = task;
+                break;
+            case SPOOL:
+                spoolTask = task;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown stage: " + stage);
+        }
+    }
+    
+    /**
+     * Runs the whole print job for the tree at `root`, returning once every
+     * selected file has been spooled.
+     * 
+     * @param root      The top-level folder of the project.
+     * @param filter    The filter used to select the files to print.
+     * @return FilePlan that was discovered for the job
+     * @throws IOException if the tree cannot be walked
+     * @throws InterruptedException if the job is interrupted
+     */
+    public FilePlan run(Path root, FileFilter filter) throws IOException, 
+            InterruptedException {
+        stats.clear();
+        jobName = root.getFileName() == null ? root.toString() 
+                : root.getFileName().toString();
+        jobCount = 0;
+        output = output(root);
+        
+        StageStats discover = new StageStats(DISCOVER, 1);
+        stats.add(discover);
+        
+        Stage load = createStage(LOAD, LOAD_DEFAULTS, item -> {
+            loadTask.process(item);
+            if ( item.getPrinter() != null ) {
+                listener.fileLoaded(item.getFile(), 
+                        item.getPrinter().getEncoding());
+            }
+        }, false);
+        Stage layout = createStage(LAYOUT, LAYOUT_DEFAULTS, layoutTask, false);
+        Stage render = createStage(RENDER, isStreamingPdf() 
+                ? PDF_RENDER_DEFAULTS : RENDER_DEFAULTS, renderTask, false);
+        Stage spool = createStage(SPOOL, SPOOL_DEFAULTS, item -> {
+            spoolTask.process(item);
+            
+            if ( !isCollected(item) ) {
+                // Nothing more is needed from the file once it has been 
+                // spooled. A file written to a PDF is only spooled once the
+                // PDF has been finished.
+                item.release();
+                if ( !isStreamingPdf() ) {
+                    listener.fileSpooled(item.getFile());
+                }
+            } else if ( jobPages > 0 && depositPages == 0
+                    && document.getNumberOfPages() >= jobPages ) {
+                submit();
+            }
+        }, true);
+        load.setNext(layout);
+        layout.setNext(render);
+        render.setNext(spool);
+        
+        spool.start();
+        render.start();
+        layout.start();
+        load.start();
+        
+        try {
+            discover.started();
+            long start = System.nanoTime();
+            plan = TreeWalker.walk(root, filter, rules, detector);
+            saveDetector();
+            
+            List<PlannedFile> selected = selector.select(plan);
+            discover.addItems(plan.getFileCount(), System.nanoTime() - start);
+            listener.planReady(plan, selected.size());
+            pdfPrevious = previousPages();
+            // A deposit has no front matter for a collapsed header to refer 
+            // to, so its files are printed in full.
+            headers.scan(pdfPrevious == null && depositPages == 0 ? selected 
+                    : Collections.emptyList(), charsets);
+            
+            int sequence = 0;
+            for ( PlannedFile f : selected ) {
+                load.put(new PrintItem(sequence++, f));
+            }
+        } finally {
+            discover.finished();
+            load.put(PrintItem.END);
+        }
+        
+        spool.join();
+        submit();
+        
+        return plan;
+    }
+    
+    /**
+     * Works out what printing the tree at `root` would cost, without printing
+     * it. The selected files are put together into jobs as they would be for
+     * printing, with the front matter, or as a deposit, but each job is only
+     * measured: its pages are written out by the PDF or PostScript backend 
+     * and counted, or, for Java2D, their size is estimated.
+     * 
+     * @param root      The top-level folder of the project.
+     * @param filter    The filter used to select the files to print.
+     * @return PrintPlan of the pages the job would print
+     * @throws IOException if the tree cannot be walked
+     * @throws InterruptedException if the run is interrupted
+     */
+    public PrintPlan plan(Path root, FileFilter filter) throws IOException,
+            InterruptedException {
+        planned = PrintPlan.fromProperties(root, sides(), props);
+        try {
+            planned.setProjectFileCount(run(root, filter).getFileCount());
+            
+            return planned;
+        } finally {
+            planned = null;
+        }
+    }
+    
+    public FilePlan getPlan() {
+        return plan;
+    }
+    
+    /**
+     * Retrieves the statistics of every stage from the last run, in the order
+     * of the stages.
+     * 
+     * @return unmodifiable List of the stage statistics
+     */
+    public List<StageStats> getStats() {
+        return Collections.unmodifiableList(stats);
+    }
+    
+    /**
+     * Retrieves the name of the stage that limited the last run, which is the
+     * stage whose workers were busy for the largest share of their time.
+     * 
+     * @return String name of the limiting stage, or `null` if nothing has run
+     */
+    public String getLimitingStage() {
+        StageStats limit = null;
+        
+        for ( StageStats s : stats ) {
+            if ( limit == null || s.getUtilization() > limit.getUtilization() ) {
+                limit = s;
+            }
+        }
+        
+        return limit == null ? null : limit.getName();
+    }
+    
+    /**
+     * Builds a report of the statistics of every stage from the last run, 
+     * suitable for writing to the job log.
+     * 
+     * @return String report of the last run
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Pipeline statistics:\n");
+        
+        for ( StageStats s : stats ) {
+            sb.append("\t").append(s).append("\n");
+        }
+        sb.append("Limiting stage: ").append(getLimitingStage());
+        if ( cache.getHits() + cache.getMisses() > 0 ) {
+            sb.append("\nRender cache: ").append(cache.getHits())
+                    .append(" hits, ").append(cache.getMisses())
+                    .append(" misses");
+        }
+        
+        return sb.toString();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private Stage createStage(String name, StageConfig defaults, StageTask task,
+            boolean ordered) {
+        StageConfig config = StageConfig.fromProperties(props, name, defaults);
+        Stage stage = new Stage(name, config, task, ordered, listener);
+        stats.add(stage.getStats());
+        
+        return stage;
+    }
+    
+    /**
+     * Loads the file for the item, after checking that its content is fit to
+     * print. Files that are not are skipped, summarized or dumped in hex, as
+     * the classifier's policy says. Notebooks are printed as their cells, 
+     * and other files without their shared header. For a PDF, the pages of a
+     * file that are in the render cache are used instead of the file.
+     */
+    private void load(PrintItem item, ContentClassifier classifier, 
+            long windowBytes, boolean outputs) throws IOException {
+        PlannedFile file = item.getFile();
+        String path = file.getPath().toString();
+        
+        if ( isStreamingPdf() && cache.isEnabled() ) {
+            String key = cache.key(file.getPath(), 
+                    headers.describe(file.getPath()));
+            PdfFragment fragment = cache.get(key);
+            
+            if ( fragment != null ) {
+                item.setFragment(fragment);
+                return;
+            }
+            item.setCacheKey(key);
+        }
+        
+        if ( isNotebook(file) ) {
+            try {
+                item.setPrinter(new FormattedPrinter(path, 
+                        () -> NotebookText.open(file.getPath(), outputs)));
+                return;
+            } catch ( IOException ex ) {
+                // Print it as it is, rather than not at all.
+                System.err.println(file.getPath() + ": " + ex.getMessage());
+            }
+        }
+        
+        ContentClassifier.Result result = classifier.classify(file.getPath());
+        
+        switch ( classifier.getPolicy(result.getKind()) ) {
+            case SKIP:
+                item.skip();
+                listener.fileSkipped(file, result.toString());
+                break;
+            case SUMMARY:
+                item.setPrinter(new FormattedPrinter(path, new SummaryText(
+                        file.getPath(), file.getSize(), result)));
+                break;
+            case HEXDUMP:
+                item.setPrinter(new FormattedPrinter(path, 
+                        () -> HexDumpText.open(file.getPath())));
+                break;
+            default:
+                boolean windowed = file.getSize() >= windowBytes;
+                item.setPrinter(new FormattedPrinter(path, 
+                        () -> headers.collapse(file.getPath(), 
+                                SourceText.open(file.getPath(), windowed, 
+                                        charsets))));
+        }
+    }
+    
+    /**
+     * Renders the pages of the item's file as a PDF fragment, after which the
+     * file itself is no longer needed, and keeps them in the render cache.
+     * The Java2D print system, and the PostScript backend, render the pages
+     * while they spool them, so there is nothing for this stage to do for 
+     * them.
+     */
+    private void render(PrintItem item) throws IOException {
+        if ( isStreamingPdf() && item.getFragment() == null ) {
+            item.setFragment(PdfFragment.render(single(item.getPrinter())));
+            item.release();
+            
+            if ( item.getCacheKey() != null ) {
+                cache.put(item.getCacheKey(), item.getFragment());
+            }
+        }
+    }
+    
+    /**
+     * Adds the item's file to the end of the document being put together for
+     * the next print job. The first job of a run starts with the front 
+     * matter, when the files share a header, unless it is a deposit.
+     */
+    private void collect(PrintItem item) throws IOException {
+        synchronized ( documentItems ) {
+            if ( isStreamingPdf() ) {
+                writePdf(item);
+                return;
+            }
+            
+            if ( document == null ) {
+                document = new ProjectPageable(pageFormat);
+                
+                if ( jobCount == 0 && depositPages == 0 
+                        && headers.hasFrontMatter() ) {
+                    frontMatter = new FormattedPrinter("Shared headers", 
+                            headers.getFrontMatter());
+                    document.add(frontMatter);
+                }
+            }
+            
+            document.add(item.getPrinter());
+            documentItems.add(item);
+        }
+    }
+    
+    private boolean isCollected(PrintItem item) {
+        synchronized ( documentItems ) {
+            return !documentItems.isEmpty() 
+                    && documentItems.get(documentItems.size() - 1) == item;
+        }
+    }
+    
+    /**
+     * Writes the pages of the item's file to the end of the PDF file for the
+     * job, starting the PDF file, with the front matter, if need be. The PDF
+     * file is finished once it has `printer.job.pages` pages. A file that was
+     * not rendered ahead is rendered here.
+     */
+    private void writePdf(PrintItem item) throws IOException {
+        if ( pdf == null ) {
+            Path file = output(jobCount + 1);
+            pdfPages = new PdfPageMap(pageFormat.getWidth(), 
+                    pageFormat.getHeight());
+            
+            if ( pdfPrevious != null ) {
+                pdf = PdfWriter.update(file, pdfPrevious, pageFormat);
+            } else {
+                pdf = PdfWriter.create(file, pageFormat);
+                
+                if ( jobCount == 0 && headers.hasFrontMatter() ) {
+                    ProjectPageable front = single(new FormattedPrinter(
+                            "Shared headers", headers.getFrontMatter()));
+                    pdfPages.add(PdfPageMap.FRONT_MATTER, 
+                            pdf.writePages(front), front.getNumberOfPages());
+                }
+            }
+        }
+        
+        String path = relativize(item.getFile().getPath());
+        if ( item.getFragment() != null ) {
+            pdfPages.add(path, pdf.writeFragment(item.getFragment()), 
+                    item.getFragment().getPageCount());
+        } else {
+            ProjectPageable file = single(item.getPrinter());
+            pdfPages.add(path, pdf.writePages(file), 
+                    file.getNumberOfPages());
+        }
+        pdfFiles.add(item.getFile());
+        
+        if ( jobPages > 0 && pdf.getPageCount() >= jobPages ) {
+            finishPdf();
+        }
+    }
+    
+    /**
+     * Finishes the PDF file for the job, and saves the map of its pages. An
+     * update lists the pages of the whole project, in plan order, taking the
+     * pages of each file from this run, or, if it was not printed by this 
+     * run, from the earlier one. The files written to the PDF file are only
+     * spooled once it is finished; when it cannot be, they have all failed.
+     */
+    private void finishPdf() {
+        jobCount++;
+        List<PlannedFile> files = new ArrayList<>(pdfFiles);
+        pdfFiles.clear();
+        
+        PdfPageMap pages = pdfPages;
+        if ( pdfPrevious != null ) {
+            pages = new PdfPageMap(pageFormat.getWidth(), 
+                    pageFormat.getHeight());
+            pages.copy(pdfPrevious, PdfPageMap.FRONT_MATTER);
+            
+            for ( PlannedFile f : plan.getFiles() ) {
+                String path = relativize(f.getPath());
+                
+                if ( !pages.copy(pdfPages, path) ) {
+                    pages.copy(pdfPrevious, path);
+                }
+            }
+        }
+        
+        try ( PdfWriter writer = pdf ) {
+            pdf = null;
+            writer.finish(jobName(jobCount), pages);
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+            
+            for ( PlannedFile f : files ) {
+                listener.fileFailed(f, SPOOL, ex);
+            }
+            return;
+        }
+        
+        for ( PlannedFile f : files ) {
+            listener.fileSpooled(f);
+        }
+        
+        // Without its map, the PDF file is written again, not updated.
+        try {
+            pages.write(PdfPageMap.locate(output(jobCount)));
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+    }
+    
+    /**
+     * Reads the map of the PDF file from an earlier run, if the PDF file is 
+     * to be updated, rather than written again.
+     */
+    private PdfPageMap previousPages() {
+        if ( !isStreamingPdf() || !pdfUpdate || jobPages > 0 
+                || !Files.isRegularFile(output) ) {
+            return null;
+        }
+        
+        try {
+            PdfPageMap pages = PdfPageMap.read(PdfPageMap.locate(output));
+            
+            if ( pages != null && pages.fits(pageFormat) 
+                    && pages.describes(output) ) {
+                return pages;
+            }
+            System.err.println("Writing " + output + " again, as it cannot "
+                    + "be updated.");
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+        
+        return null;
+    }
+    
+    private String relativize(Path file) {
+        return plan.getRoot().relativize(file).toString().replace(
+                file.getFileSystem().getSeparator(), "/");
+    }
+    
+    private ProjectPageable single(FormattedPrinter printer) {
+        ProjectPageable single = new ProjectPageable(pageFormat);
+        single.add(printer);
+        
+        return single;
+    }
+    
+    /**
+     * Sends the document put together so far to the printer as one job, and
+     * starts a new one, or, while planning, adds what it would cost to the 
+     * plan. When the job fails, every file in it has failed.
+     */
+    private void submit() {
+        synchronized ( documentItems ) {
+            if ( pdf != null ) {
+                finishPdf();
+            }
+            
+            if ( documentItems.isEmpty() ) {
+                return;
+            }
+            
+            jobCount++;
+            String name = jobName(jobCount);
+            
+            try {
+                TextDocument job = depositPages > 0 ? new DepositPageable(
+                        document, depositPages, depositPages, 
+                        depositManifest) : document;
+                
+                if ( planned != null ) {
+                    measure(job, name);
+                } else {
+                    print(job, name);
+                }
+                
+                for ( PrintItem item : documentItems ) {
+                    item.release();
+                    listener.fileSpooled(item.getFile());
+                }
+            } catch ( PrinterException ex ) {
+                System.err.println(ex.getMessage());
+                ex.printStackTrace(System.err);
+                
+                for ( PrintItem item : documentItems ) {
+                    item.fail();
+                    listener.fileFailed(item.getFile(), SPOOL, ex);
+                }
+            } finally {
+                document = null;
+                frontMatter = null;
+                documentItems.clear();
+            }
+        }
+    }
+    
+    /**
+     * Prints the document with the backend set for the job. A printer that
+     * does not take PostScript is always printed to through Java2D.
+     */
+    private void print(TextDocument doc, String name) 
+            throws PrinterException {
+        if ( PDF.equals(backend) ) {
+            try ( PdfWriter writer = PdfWriter.create(output(jobCount), 
+                    pageFormat) ) {
+                writer.write(doc, name);
+            } catch ( IOException ex ) {
+                PrinterException failure = new PrinterException(
+                        ex.getMessage());
+                failure.initCause(ex);
+                throw failure;
+            }
+        } else if ( POSTSCRIPT.equals(backend) 
+                && PostScriptWriter.isSupported(service) ) {
+            PostScriptWriter.print(doc, service, attributes, name);
+        } else {
+            doc.print(service, attributes, name);
+        }
+    }
+    
+    /**
+     * Adds the pages of the job to the plan, each with the bytes the backend
+     * would write for it, for every file of the document, its front matter 
+     * and, for a deposit, its manifest.
+     */
+    private void measure(TextDocument job, String name) 
+            throws PrinterException {
+        SpoolSize size = null;
+        try {
+            if ( PDF.equals(backend) ) {
+                size = SpoolSize.ofPdf(job, name);
+            } else if ( POSTSCRIPT.equals(backend) 
+                    && PostScriptWriter.isSupported(service) ) {
+                size = SpoolSize.ofPostScript(job, name);
+            }
+        } catch ( IOException ex ) {
+            PrinterException failure = new PrinterException(ex.getMessage());
+            failure.initCause(ex);
+            throw failure;
+        }
+        
+        int files = document.getFileCount();
+        int[] printed = new int[files];
+        long[] bytes = new long[files];
+        int manifest = 0;
+        long manifestBytes = 0;
+        
+        for ( int page = 0; page < job.getNumberOfPages(); page++ ) {
+            int projectPage = job == document ? page 
+                    : ((DepositPageable)job).getProjectPage(page);
+            long pageBytes = size == null ? -1 : size.getPageBytes(page);
+            
+            if ( projectPage < 0 ) {
+                manifest++;
+                manifestBytes += pageBytes;
+            } else {
+                int file = document.getFileOf(projectPage);
+                printed[file]++;
+                bytes[file] += pageBytes;
+            }
+        }
+        
+        // The pages left to be estimated are marked by a negative size.
+        int file = 0;
+        if ( frontMatter != null ) {
+            planned.addFrontMatter(frontMatter.getLineCount(), 
+                    frontMatter.getPageCount(), printed[0], 
+                    size == null ? -1 : bytes[0]);
+            file++;
+        }
+        for ( PrintItem item : documentItems ) {
+            planned.add(item.getFile(), item.getPrinter().getLineCount(), 
+                    item.getPrinter().getPageCount(), printed[file], 
+                    size == null ? -1 : bytes[file]);
+            file++;
+        }
+        planned.addJob(name, manifest, size == null ? -1 : manifestBytes,
+                size == null ? -1 : size.getDocumentBytes());
+    }
+    
+    /**
+     * Tells whether the files are written to a PDF file one at a time, as 
+     * they are spooled. While planning, they are measured as a whole 
+     * document, as they would be printed, instead.
+     */
+    private boolean isStreamingPdf() {
+        return PDF.equals(backend) && depositPages == 0 && planned == null;
+    }
+    
+    private String jobName(int job) {
+        return jobPages > 0 ? jobName + " (" + job + ")" : jobName;
+    }
+    
+    /**
+     * Works out the PDF file to write the jobs for the tree at `root` to.
+     */
+    private Path output(Path root) {
+        String value = props == null ? null 
+                : props.getProperty("printer.output");
+        
+        if ( value != null && !value.isBlank() ) {
+            return Paths.get(value.trim());
+        }
+        
+        return root.toAbsolutePath().resolveSibling(jobName + ".pdf");
+    }
+    
+    /**
+     * Retrieves the PDF file for the given job, which is numbered when the
+     * project is split into several jobs.
+     */
+    private Path output(int job) {
+        if ( jobPages <= 0 ) {
+            return output;
+        }
+        
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String suffix = " (" + job + ")";
+        String numbered = dot > 0 
+                ? name.substring(0, dot) + suffix + name.substring(dot)
+                : name + suffix;
+        
+        return output.resolveSibling(numbered);
+    }
+    
+    /**
+     * Retrieves the number of sides of each sheet the job prints on.
+     */
+    private int sides() {
+        Object sides = attributes == null ? null : attributes.get(Sides.class);
+        
+        return sides == null || Sides.ONE_SIDED.equals(sides) ? 1 : 2;
+    }
+    
+    private static boolean isNotebook(PlannedFile file) {
+        return "jupyter".equals(file.getLanguage()) || file.getPath()
+                .getFileName().toString().toLowerCase().endsWith(".ipynb");
+    }
+    
+    /**
+     * Reads a whole number setting, such as the size, in bytes, from which 
+     * files are printed in windowed mode.
+     */
+    private static long number(Properties props, String key, 
+            long defaultValue) {
+        String value = props == null ? null : props.getProperty(key);
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for " + key + ": " + value);
+            }
+        }
+        
+        return defaultValue;
+    }
+    
+    private void saveDetector() {
+        if ( detector == null ) {
+            return;
+        }
+        
+        try {
+            detector.save();
+        } catch (IOException ex) {
+            // Only costs a second look at the files on the next run.
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+    }
+    //</editor-fold>
+
+}
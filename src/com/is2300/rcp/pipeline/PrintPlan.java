@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.pipeline;
+
+import com.is2300.rcp.walker.PlannedFile;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * `PrintPlan` is what a print job would cost, worked out without printing it:
+ * the lines, pages and sheets of paper for each file, each folder and the 
+ * whole job, and the bytes that would be spooled to the printer.
+ * 
+ * The page counts are exact, as they come from the same layout the job would
+ * print with, and the plan has the same pages as the job: the front matter, 
+ * when the files share a header, and, for a deposit, only the pages that the
+ * deposit prints, with its manifest page. The `pages` of a file are the pages
+ * it is laid out on, and `printed` are those of them that are printed, which
+ * are fewer only for a deposit. The sheets for a folder or the job are the 
+ * printed pages on as many sides as the job asks for; for a single file, 
+ * they are given to a tenth of a sheet, as the files of a project follow one
+ * another without a break. Each folder counts every file below it.
+ * 
+ * For the PDF and PostScript backends, the spool size is exact, as the pages
+ * are written out by the backend and counted (see `SpoolSize`), and the 
+ * bytes the backend writes for the document as a whole are given in a row of
+ * their own. For the Java2D backend, which only the print system can render,
+ * it is an estimate: a number of bytes for each byte of text, and a number 
+ * for each page, and its column is then named `est_spool_bytes`. The 
+ * defaults fit the PostScript that the Java print system sends to the 
+ * printer, and can be changed for another printer by:
+ * 
+ * ```
+ * plan.text.factor=2.0
+ * plan.page.bytes=1400
+ * ```
+ * 
+ * The plan is written as a tab-separated report, so that it can be sorted or
+ * opened in a spreadsheet:
+ * 
+ * ```
+ * kind      path            lines  pages  printed  sheets  spool_bytes
+ * front     Shared headers  14     1      1        0.5     1236
+ * file      src/Main.java   120    3      3        1.5     9640
+ * document  Project         0      0      0        0.0     1482
+ * folder    .               120    3      3        2       9640
+ * folder    src             120    3      3        2       9640
+ * total     .               134    4      4        2       12358
+ * ```
+ * 
+ * When only some of the files of the project were selected to print, such as
+ * those changed since the last print, the report starts with a comment line 
+ * that says so, as the others are not counted. The desktop application plans
+ * the whole project instead with:
+ * 
+ * ```
+ * plan.whole.project=true
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PrintPlan {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final String EXTENSION = ".plan.tsv";
+    private static final double DEFAULT_TEXT_FACTOR = 2.0;
+    private static final long DEFAULT_PAGE_BYTES = 1400;
+    private static final String FILE = "file";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path root;
+    private final int sides;
+    private final double textFactor;
+    private final long pageBytes;
+    private final List<Entry> entries;
+    private int projectFiles;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an empty plan for the project at `root`.
+     * 
+     * @param root          The top-level folder of the project.
+     * @param sides         The sides of each sheet that are printed on, `1` 
+     *                      or `2`.
+     * @param textFactor    The bytes spooled for each byte of text, when the
+     *                      spool size is estimated.
+     * @param pageBytes     The bytes spooled for each page, besides its text,
+     *                      when the spool size is estimated.
+     * @throws IllegalArgumentException if `root` is null, or `sides` is not 
+     *          positive
+     */
+    public PrintPlan(Path root, int sides, double textFactor, long pageBytes) {
+        if ( root == null ) {
+            throw new IllegalArgumentException("No project folder provided.");
+        }
+        if ( sides <= 0 ) {
+            throw new IllegalArgumentException("A sheet must be printed on at "
+                    + "least one side.");
+        }
+        
+        this.root = root;
+        this.sides = sides;
+        this.textFactor = textFactor;
+        this.pageBytes = pageBytes;
+        this.entries = new ArrayList<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates an empty plan, with the spool allowances read from the `plan.*`
+     * properties.
+     * 
+     * @param root  The top-level folder of the project.
+     * @param sides The sides of each sheet that are printed on.
+     * @param props The properties to read the settings from; may be `null`.
+     * @return PrintPlan that is empty
+     */
+    public static PrintPlan fromProperties(Path root, int sides, 
+            Properties props) {
+        return new PrintPlan(root, sides, 
+                number(props, "plan.text.factor", DEFAULT_TEXT_FACTOR),
+                (long)number(props, "plan.page.bytes", DEFAULT_PAGE_BYTES));
+    }
+    
+    /**
+     * Locates the report file that goes with the given manifest.
+     * 
+     * @param manifest The manifest file of the project.
+     * @return Path to the report file, which may not exist yet
+     */
+    public static Path locate(Path manifest) {
+        String name = manifest.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        
+        return manifest.resolveSibling((dot > 0 ? name.substring(0, dot) 
+                : name) + EXTENSION);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a file that has been laid out to the plan. Files are expected to be
+     * added in the order they would be printed.
+     * 
+     * @param file      The file.
+     * @param lines     The lines it prints, once its long lines are wrapped.
+     * @param pages     The pages it is laid out on.
+     * @param printed   The pages of it that are printed.
+     * @param bytes     The bytes spooled for its printed pages, or `-1` to
+     *                  have them estimated.
+     */
+    public synchronized void add(PlannedFile file, int lines, int pages, 
+            int printed, long bytes) {
+        entries.add(new Entry(FILE, file, relative(file.getPath()), lines, 
+                pages, printed, bytes));
+    }
+    
+    /**
+     * Adds the front matter of a job, which is printed in front of its first
+     * file.
+     * 
+     * @param lines     The lines of the front matter.
+     * @param pages     The pages it is laid out on.
+     * @param printed   The pages of it that are printed.
+     * @param bytes     The bytes spooled for its printed pages, or `-1` to
+     *                  have them estimated.
+     */
+    public synchronized void addFrontMatter(int lines, int pages, int printed,
+            long bytes) {
+        entries.add(new Entry("front", null, "Shared headers", lines, pages, 
+                printed, bytes));
+    }
+    
+    /**
+     * Ends a job of the plan, after its files have been added.
+     * 
+     * @param name          The name of the job.
+     * @param manifest      The manifest pages of a deposit, listing the pages
+     *                      that are left out.
+     * @param manifestBytes The bytes spooled for the manifest pages, or `-1`
+     *                      to have them estimated.
+     * @param documentBytes The bytes spooled for the job as a whole, besides
+     *                      its pages, or `-1` if they are not known.
+     */
+    public synchronized void addJob(String name, int manifest, 
+            long manifestBytes, long documentBytes) {
+        if ( manifest > 0 ) {
+            entries.add(new Entry("manifest", null, "Deposit manifest", 
+                    0, manifest, manifest, manifestBytes));
+        }
+        if ( documentBytes >= 0 ) {
+            entries.add(new Entry("document", null, name, 0, 0, 0, 
+                    documentBytes));
+        }
+    }
+    
+    /**
+     * Sets the number of files in the whole project, of which the files of 
+     * the plan were selected.
+     * 
+     * @param files The number of files in the project.
+     */
+    public synchronized void setProjectFileCount(int files) {
+        this.projectFiles = files;
+    }
+    
+    public synchronized int getFileCount() {
+        int files = 0;
+        for ( Entry e : entries ) {
+            if ( FILE.equals(e.kind) ) {
+                files++;
+            }
+        }
+        
+        return files;
+    }
+    
+    /**
+     * Retrieves the number of files in the whole project, which is more than
+     * the files of the plan when only some of them were selected.
+     * 
+     * @return int number of files in the project
+     */
+    public synchronized int getProjectFileCount() {
+        return Math.max(projectFiles, getFileCount());
+    }
+    
+    /**
+     * Retrieves the pages the job is laid out on.
+     * 
+     * @return long number of pages
+     */
+    public synchronized long getPageCount() {
+        long pages = 0;
+        for ( Entry e : entries ) {
+            pages += e.pages;
+        }
+        
+        return pages;
+    }
+    
+    /**
+     * Retrieves the pages the job prints, which are fewer than those it is 
+     * laid out on only for a deposit.
+     * 
+     * @return long number of pages
+     */
+    public synchronized long getPrintedCount() {
+        long pages = 0;
+        for ( Entry e : entries ) {
+            pages += e.printed;
+        }
+        
+        return pages;
+    }
+    
+    /**
+     * Retrieves the sheets of paper the job would be printed on.
+     * 
+     * @return long number of sheets
+     */
+    public long getSheetCount() {
+        return sheets(getPrintedCount());
+    }
+    
+    /**
+     * Retrieves the bytes the job would spool.
+     * 
+     * @return long number of bytes
+     * @see #isEstimated() 
+     */
+    public synchronized long getSpoolBytes() {
+        long bytes = 0;
+        for ( Entry e : entries ) {
+            bytes += spoolBytes(e);
+        }
+        
+        return bytes;
+    }
+    
+    /**
+     * Tells whether the spool size is an estimate, rather than what the 
+     * backend actually writes.
+     * 
+     * @return `true` if any part of the spool size is estimated
+     */
+    public synchronized boolean isEstimated() {
+        for ( Entry e : entries ) {
+            if ( e.bytes < 0 ) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Builds a one-line summary of the plan, suitable for showing the user.
+     * 
+     * @return String summary of the plan
+     */
+    public synchronized String getSummary() {
+        StringBuilder sb = new StringBuilder(String.format("%,d files on %,d "
+                + "pages", getFileCount(), getPageCount()));
+        
+        if ( getPrintedCount() != getPageCount() ) {
+            sb.append(String.format(", %,d of them printed,", 
+                    getPrintedCount()));
+        }
+        sb.append(String.format(" and %,d sheets, %s%,.1f MB to spool", 
+                getSheetCount(), isEstimated() ? "about " : "", 
+                getSpoolBytes() / (1024.0 * 1024.0)));
+        if ( getProjectFileCount() > getFileCount() ) {
+            sb.append(String.format(" (%,d of the %,d files of the project "
+                    + "selected)", getFileCount(), getProjectFileCount()));
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Writes the plan as a tab-separated report: a row for each file, and for
+     * the front matter, the manifest and each job as a whole, in the order 
+     * they would print, then a row for each folder, with the totals of every
+     * file below it, and a last row with the totals for the job.
+     * 
+     * @param file The report file; see `locate`.
+     * @throws IOException if the report cannot be written
+     */
+    public synchronized void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        
+        Map<String, long[]> folders = new TreeMap<>();
+        long[] total = new long[4];
+        
+        try ( BufferedWriter out = Files.newBufferedWriter(file, 
+                StandardCharsets.UTF_8) ) {
+            if ( getProjectFileCount() > getFileCount() ) {
+                out.write(String.format("# Only %d of the %d files of the "
+                        + "project were selected to print; the others are "
+                        + "not counted.", getFileCount(), 
+                        getProjectFileCount()));
+                out.newLine();
+            }
+            out.write("kind\tpath\tlines\tpages\tprinted\tsheets\t" 
+                    + (isEstimated() ? "est_spool_bytes" : "spool_bytes"));
+            out.newLine();
+            
+            for ( Entry e : entries ) {
+                long bytes = spoolBytes(e);
+                writeRow(out, e.kind, e.path, e.lines, e.pages, e.printed, 
+                        String.format(Locale.ROOT, "%.1f", 
+                                (double)e.printed / sides), bytes);
+                add(total, e, bytes);
+                
+                if ( !FILE.equals(e.kind) ) {
+                    continue;
+                }
+                
+                // Each folder counts the files of every folder below it.
+                Path folder = e.file.getFolder();
+                while ( folder != null && folder.startsWith(root) ) {
+                    add(folders.computeIfAbsent(relative(folder), 
+                            k -> new long[4]), e, bytes);
+                    folder = folder.equals(root) ? null : folder.getParent();
+                }
+            }
+            
+            for ( Map.Entry<String, long[]> f : folders.entrySet() ) {
+                long[] sums = f.getValue();
+                writeRow(out, "folder", f.getKey(), sums[0], sums[1], sums[2],
+                        Long.toString(sheets(sums[2])), sums[3]);
+            }
+            
+            writeRow(out, "total", ".", total[0], total[1], total[2], 
+                    Long.toString(sheets(total[2])), total[3]);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private long sheets(long pages) {
+        return (pages + sides - 1) / sides;
+    }
+    
+    /**
+     * Retrieves the bytes spooled for the entry, as measured, or estimated 
+     * from its share of the text of its file and its printed pages.
+     */
+    private long spoolBytes(Entry e) {
+        if ( e.bytes >= 0 ) {
+            return e.bytes;
+        }
+        
+        double text = e.file == null || e.pages == 0 ? 0 
+                : (double)e.file.getSize() * e.printed / e.pages;
+        
+        return (long)(text * textFactor) + e.printed * pageBytes;
+    }
+    
+    private String relative(Path path) {
+        String name = path.startsWith(root) ? root.relativize(path).toString()
+                : path.toString();
+        
+        return name.isEmpty() ? "." : name;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static void writeRow(BufferedWriter out, String kind, String path,
+            long lines, long pages, long printed, String sheets, long bytes) 
+            throws IOException {
+        out.write(kind);
+        out.write('\t');
+        out.write(path);
+        out.write('\t');
+        out.write(Long.toString(lines));
+        out.write('\t');
+        out.write(Long.toString(pages));
+        out.write('\t');
+        out.write(Long.toString(printed));
+        out.write('\t');
+        out.write(sheets);
+        out.write('\t');
+        out.write(Long.toString(bytes));
+        out.newLine();
+    }
+    
+    private static void add(long[] sums, Entry e, long bytes) {
+        sums[0] += e.lines;
+        sums[1] += e.pages;
+        sums[2] += e.printed;
+        sums[3] += bytes;
+    }
+    
+    private static double number(Properties props, String key, 
+            double defaultValue) {
+        String value = props == null ? null : props.getProperty(key);
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for " + key + ": " + value);
+            }
+        }
+        
+        return defaultValue;
+    }
+    //</editor-fold>
+
+    /**
+     * A row of the plan: a file, or a part of a job that is not a file.
+     */
+    private static final class Entry {
+        private final String kind;
+        private final PlannedFile file;
+        private final String path;
+        private final int lines;
+        private final int pages;
+        private final int printed;
+        private final long bytes;
+        
+        Entry(String kind, PlannedFile file, String path, int lines, 
+                int pages, int printed, long bytes) {
+            this.kind = kind;
+            this.file = file;
+            this.path = path;
+            this.lines = lines;
+            this.pages = pages;
+            this.printed = printed;
+            this.bytes = bytes;
+        }
+    }
+
+}
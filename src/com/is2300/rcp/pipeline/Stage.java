@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single stage of the `PrintPipeline`. The stage takes items from its bounded
+ * input queue, runs its task on them with its own pool of worker threads and
+ * puts them on the input queue of the next stage.
+ * 
+ * An ordered stage always runs with a single worker and hands its items to
+ * the task in plan order, holding back any item that arrives ahead of its 
+ * turn. This is how the spooling stage keeps the printout in the same order as
+ * the plan, even though the stages before it finish files out of order.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+class Stage {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final String name;
+    private final StageTask task;
+    private final boolean ordered;
+    private final BlockingQueue<PrintItem> input;
+    private final StageStats stats;
+    private final List<Thread> workers;
+    private final AtomicInteger running;
+    private final PipelineListener listener;
+    private Stage next;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    Stage (String name, StageConfig config, StageTask task, boolean ordered,
+            PipelineListener listener) {
+        this.name = name;
+        this.task = task;
+        this.ordered = ordered;
+        this.listener = listener;
+        this.input = new ArrayBlockingQueue<>(config.getQueueDepth());
+        
+        int threads = ordered ? 1 : config.getThreads();
+        this.stats = new StageStats(name, threads);
+        this.workers = new ArrayList<>(threads);
+        this.running = new AtomicInteger(threads);
+        
+        for ( int t = 0; t < threads; t++ ) {
+            Thread worker = new Thread(this::work, "isrcp-" + name + "-" + t);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    void setNext(Stage next) {
+        this.next = next;
+    }
+    
+    StageStats getStats() {
+        return stats;
+    }
+    
+    void start() {
+        workers.forEach(Thread::start);
+    }
+    
+    void put(PrintItem item) throws InterruptedException {
+        input.put(item);
+    }
+    
+    void join() throws InterruptedException {
+        for ( Thread worker : workers ) {
+            worker.join();
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void work() {
+        PriorityQueue<PrintItem> held = ordered 
+                ? new PriorityQueue<>((a, b) -> a.getSequence() 
+                        - b.getSequence()) 
+                : null;
+        int nextSequence = 0;
+        
+        try {
+            while ( true ) {
+                long waitStart = System.nanoTime();
+                PrintItem item = input.take();
+                stats.addWait(System.nanoTime() - waitStart);
+                stats.started();
+                
+                if ( item == PrintItem.END ) {
+                    // Let the other workers of this stage see the end, too.
+                    input.put(item);
+                    break;
+                }
+                
+                if ( !ordered ) {
+                    handle(item);
+                    continue;
+                }
+                
+                held.add(item);
+                while ( !held.isEmpty() 
+                        && held.peek().getSequence() == nextSequence ) {
+                    handle(held.poll());
+                    nextSequence++;
+                }
+            }
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if ( running.decrementAndGet() == 0 ) {
+                stats.finished();
+                if ( next != null ) {
+                    try {
+                        next.put(PrintItem.END);
+                    } catch ( InterruptedException ex ) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+    
+    private void handle(PrintItem item) throws InterruptedException {
+        if ( !item.isFailed() && !item.isSkipped() ) {
+            long start = System.nanoTime();
+            try {
+                task.process(item);
+            } catch ( Exception ex ) {
+                System.err.println(name + " failed for " + item.getFile() 
+                        + ": " + ex.getMessage());
+                item.fail();
+                stats.addFailure();
+                listener.fileFailed(item.getFile(), name, ex);
+            }
+            stats.addItem(System.nanoTime() - start);
+        }
+        
+        if ( next != null ) {
+            next.put(item);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import java.util.Properties;
+
+/**
+ * The settings for a single stage of the `PrintPipeline`: how many worker 
+ * threads the stage runs and how many items may be waiting in the queue that
+ * feeds it. The queue depth is what keeps a fast stage from running too far
+ * ahead of a slow one and filling the heap with loaded files.
+ * 
+ * The settings may be given in the application properties, using the keys:
+ * 
+ * ```
+ * pipeline.<stage>.threads=2
+ * pipeline.<stage>.queue=16
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class StageConfig {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final int threads;
+    private final int queueDepth;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `StageConfig`.
+     * 
+     * @param threads       The number of worker threads for the stage.
+     * @param queueDepth    The number of items that may wait for the stage.
+     * @throws IllegalArgumentException if either value is less than one
+     */
+    public StageConfig (int threads, int queueDepth) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException("A stage needs at least one "
+                    + "thread.");
+        }
+        if ( queueDepth < 1 ) {
+            throw new IllegalArgumentException("A stage needs a queue depth of"
+                    + " at least one.");
+        }
+        
+        this.threads = threads;
+        this.queueDepth = queueDepth;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Reads the settings for the named stage from the properties, falling 
+     * back to the provided defaults for any value that is missing or is not
+     * a valid number.
+     * 
+     * @param props     The properties to read from.
+     * @param stage     The name of the stage, i.e., `load`.
+     * @param defaults  The settings to use when none are given.
+     * @return StageConfig for the stage
+     */
+    public static StageConfig fromProperties(Properties props, String stage,
+            StageConfig defaults) {
+        int threads = readInt(props, "pipeline." + stage + ".threads", 
+                defaults.threads);
+        int queue = readInt(props, "pipeline." + stage + ".queue", 
+                defaults.queueDepth);
+        
+        return new StageConfig(threads, queue);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public int getThreads() {
+        return threads;
+    }
+    
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static int readInt(Properties props, String key, int defaultValue) {
+        String value = props == null ? null : props.getProperty(key);
+        
+        if ( value == null || value.isBlank() ) {
+            return defaultValue;
+        }
+        
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch ( NumberFormatException ex ) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+    //</editor-fold>
+
+}
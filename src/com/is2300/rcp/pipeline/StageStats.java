@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running statistics for a single stage of the `PrintPipeline`. Each worker of
+ * the stage adds the time it spent working on an item, and the time it spent
+ * waiting for an item to arrive, so that, at the end of a run, we can see 
+ * which stage was the one that limited the job.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class StageStats {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final String name;
+    private final int threads;
+    private final AtomicLong items;
+    private final AtomicLong failures;
+    private final AtomicLong busyNanos;
+    private final AtomicLong waitNanos;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    StageStats (String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+        this.items = new AtomicLong();
+        this.failures = new AtomicLong();
+        this.busyNanos = new AtomicLong();
+        this.waitNanos = new AtomicLong();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public String getName() {
+        return name;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public long getItems() {
+        return items.get();
+    }
+    
+    public long getFailures() {
+        return failures.get();
+    }
+    
+    /**
+     * Retrieves the total time the workers of this stage spent processing 
+     * items, in milliseconds, summed across all of the workers.
+     * 
+     * @return long busy time in milliseconds
+     */
+    public long getBusyMillis() {
+        return busyNanos.get() / 1_000_000;
+    }
+    
+    /**
+     * Retrieves the total time the workers of this stage spent waiting for
+     * work to arrive, in milliseconds, summed across all of the workers.
+     * 
+     * @return long wait time in milliseconds
+     */
+    public long getWaitMillis() {
+        return waitNanos.get() / 1_000_000;
+    }
+    
+    /**
+     * Retrieves the wall-clock time from when the stage started until it 
+     * finished, in milliseconds.
+     * 
+     * @return long elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return startNanos == 0 ? 0 : (end - startNanos) / 1_000_000;
+    }
+    
+    /**
+     * Retrieves the number of items per second this stage handled over the
+     * time it was running.
+     * 
+     * @return double items per second
+     */
+    public double getThroughput() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? items.get() : items.get() * 1000.0 / elapsed;
+    }
+    
+    /**
+     * Retrieves the fraction of the stage's available thread time that was
+     * spent working. The stage with the highest utilization is the stage that
+     * is limiting the run.
+     * 
+     * @return double between 0.0 and 1.0
+     */
+    public double getUtilization() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0.0 
+                : Math.min(1.0, (double)getBusyMillis() / (elapsed * threads));
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%-10s threads: %2d  items: %6d  failed: %4d  "
+                + "busy: %8d ms  waiting: %8d ms  %9.2f items/s  %5.1f%% busy",
+                name, threads, getItems(), getFailures(), getBusyMillis(), 
+                getWaitMillis(), getThroughput(), getUtilization() * 100);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    void started() {
+        if ( startNanos == 0 ) {
+            startNanos = System.nanoTime();
+        }
+    }
+    
+    void finished() {
+        endNanos = System.nanoTime();
+    }
+    
+    void addItem(long nanos) {
+        items.incrementAndGet();
+        busyNanos.addAndGet(nanos);
+    }
+    
+    void addItems(long count, long nanos) {
+        items.addAndGet(count);
+        busyNanos.addAndGet(nanos);
+    }
+    
+    void addFailure() {
+        failures.incrementAndGet();
+    }
+    
+    void addWait(long nanos) {
+        waitNanos.addAndGet(nanos);
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.pipeline;
+
+/**
+ * The work done by one stage of the `PrintPipeline` on a single item. A task
+ * may be run by several worker threads at the same time, so it must not keep
+ * any state of its own between items.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface StageTask {
+    
+    /**
+     * Processes the item, storing any results on it for the next stage.
+     * 
+     * @param item The item to process.
+     * @throws Exception if the item could not be processed. The item will be
+     *          marked as failed and passed along.
+     */
+    void process(PrintItem item) throws Exception;
+    
+}
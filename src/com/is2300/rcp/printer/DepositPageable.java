@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.printer;
+
+import com.is2300.rcp.text.SourceText;
+import java.awt.Graphics2D;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.print.PrintService;
+import javax.print.attribute.PrintRequestAttributeSet;
+
+/**
+ * `DepositPageable` prints only the first and last pages of a project, as is
+ * asked for by a copyright deposit of source code, i.e., the first 25 and the
+ * last 25 pages. The pages are numbered across the whole project, and the 
+ * pages in between are left out, optionally with a page in their place that
+ * lists what was left out.
+ * 
+ * The pages that are left out are never drawn, so their lines are never 
+ * decoded; the files on them are only laid out, to count their pages.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class DepositPageable implements TextDocument {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final ProjectPageable document;
+    private final int head;
+    private final int tail;
+    private final boolean manifest;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates the deposit of a project.
+     * 
+     * @param document  The whole project, with all of its files added.
+     * @param first     The number of pages to print from the start.
+     * @param last      The number of pages to print from the end.
+     * @param manifest  `true` to print a page listing what was left out.
+     * @throws IllegalArgumentException if `document` is null, or `first` or
+     *          `last` is negative
+     */
+    public DepositPageable(ProjectPageable document, int first, int last, 
+            boolean manifest) {
+        if ( document == null ) {
+            throw new IllegalArgumentException("No document provided.");
+        }
+        if ( first < 0 || last < 0 ) {
+            throw new IllegalArgumentException("The page counts cannot be "
+                    + "negative.");
+        }
+        
+        int total = document.getNumberOfPages();
+        
+        this.document = document;
+        this.head = Math.min(first, total);
+        this.tail = Math.max(head, total - last);
+        this.manifest = manifest && getOmittedCount() > 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the number of pages of the project that are left out.
+     * 
+     * @return int number of pages left out
+     */
+    public int getOmittedCount() {
+        return tail - head;
+    }
+    
+    /**
+     * Retrieves the page of the whole project that is printed as the given
+     * page of the deposit.
+     * 
+     * @param pageIndex The page of the deposit, counting from zero.
+     * @return int the page of the project, or `-1` for the manifest page
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public int getProjectPage(int pageIndex) {
+        if ( pageIndex < 0 || pageIndex >= getNumberOfPages() ) {
+            throw new IndexOutOfBoundsException("Page " + pageIndex + " of " 
+                    + getNumberOfPages());
+        }
+        
+        if ( pageIndex < head ) {
+            return pageIndex;
+        } else if ( manifest && pageIndex == head ) {
+            return -1;
+        }
+        
+        return pageIndex - head - (manifest ? 1 : 0) + tail;
+    }
+    
+    @Override
+    public void writePage(PageWriter out, int pageIndex) throws IOException {
+        int page = getProjectPage(pageIndex);
+        
+        if ( page < 0 ) {
+            PageLayout layout = PageLayout.of(FormattedPrinter.FONT, 
+                    getPageFormat(pageIndex));
+            SourceText text = manifestText(layout);
+            layout.writePage(out, text, layout.paginate(text), 0);
+        } else {
+            document.writePage(out, page);
+        }
+    }
+    
+    @Override
+    public void print(PrintService service, PrintRequestAttributeSet attributes,
+            String jobName) throws PrinterException {
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintService(service);
+        job.setPageable(this);
+        job.setJobName(jobName);
+        job.print(attributes);
+    }
+    
+    @Override
+    public int getNumberOfPages() {
+        return document.getNumberOfPages() - getOmittedCount() 
+                + (manifest ? 1 : 0);
+    }
+    
+    @Override
+    public PageFormat getPageFormat(int pageIndex) {
+        return document.getPageFormat(0);
+    }
+    
+    @Override
+    public Printable getPrintable(int pageIndex) {
+        int page = getProjectPage(pageIndex);
+        
+        if ( page < 0 ) {
+            return (graphics, format, index) -> {
+                drawManifest((Graphics2D)graphics, format);
+                return Printable.PAGE_EXISTS;
+            };
+        }
+        
+        Printable printable = document.getPrintable(page);
+        
+        return (graphics, format, index) -> printable.print(graphics, format, 
+                page);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void drawManifest(Graphics2D g2d, PageFormat format) {
+        PageLayout layout = PageLayout.of(FormattedPrinter.FONT, format);
+        SourceText text = manifestText(layout);
+        
+        layout.drawPage(g2d, text, layout.paginate(text), 0);
+    }
+    
+    /**
+     * Lists the pages, and the files on them, that were left out, wrapped to
+     * fit the page. If there are more files than fit on the page, the last 
+     * line says how many more there are.
+     */
+    private SourceText manifestText(PageLayout layout) {
+        List<String> lines = new ArrayList<>();
+        
+        lines.add("*** Pages left out of this deposit ***");
+        lines.add("");
+        lines.add(String.format("Pages %,d through %,d of %,d are not "
+                + "printed. They hold:", head + 1, tail, 
+                document.getNumberOfPages()));
+        lines.add("");
+        
+        int firstFile = document.getFileOf(head);
+        int lastFile = document.getFileOf(tail - 1);
+        
+        for ( int file = firstFile; file <= lastFile; file++ ) {
+            if ( lines.size() == layout.getLinesPerPage() - 1 
+                    && file < lastFile ) {
+                lines.add(String.format("... and %,d more files", 
+                        lastFile - file + 1));
+                break;
+            }
+            
+            int start = document.getFirstPage(file);
+            int end = file + 1 < document.getFileCount() 
+                    ? document.getFirstPage(file + 1) 
+                    : document.getNumberOfPages();
+            boolean partly = start < head || end > tail;
+            
+            lines.add(String.format("    %s, pages %,d-%,d%s", 
+                    document.getFile(file).getPath(), start + 1, end, 
+                    partly ? " (in part)" : ""));
+        }
+        
+        return layout.wrap(new ListText(lines));
+    }
+    //</editor-fold>
+
+    /**
+     * The lines of the manifest page.
+     */
+    private static final class ListText implements SourceText {
+        private final List<String> lines;
+        
+        ListText(List<String> lines) {
+            this.lines = lines;
+        }
+        
+        @Override
+        public int size() {
+            return lines.size();
+        }
+        
+        @Override
+        public String line(int line) {
+            return lines.get(line);
+        }
+        
+        @Override
+        public String getEncoding() {
+            return "manifest";
+        }
+    }
+
+}
@@ -20,10 +20,20 @@ package com.is2300.rcp.printer;
 import com.is2300.rcp.StartPrinting;
 import com.is2300.rcp.filters.FileFilterEx;
 import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
+ * `FileFilterFactory` builds the `FileFilter` for the language, or languages,
+ * of a project. A filter may be built for a single language code, a comma-
+ * separated list of codes, such as `java,js,xml`, or for every language we 
+ * know of, using the code `all`. However many languages are asked for, they 
+ * are resolved into a single filter, so the tree only needs to be walked once,
+ * and the filter tags each file with the language it matched.
  *
  * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
  * 
@@ -34,16 +44,26 @@ public final class FileFilterFactory {
     //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
     public static final Map<String, String[]> LANG_CODES;
     public static final Map<String, String> LANGS;
+    
+    /** The language code that stands for every language we know of. */
+    public static final String ALL_LANGUAGES = "all";
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
-    
+    /** 
+     * The codes shown in the application and its help, where they differ from
+     * the keys of `LANG_CODES`.
+     */
+    private static final Map<String, String> ALIASES;
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Static Initializer">
     static {
-        LANG_CODES = new HashMap<>();
+        // The order of the languages matters: when two languages share an
+        // extension, the one loaded first is the one a file is tagged with.
+        LANG_CODES = new LinkedHashMap<>();
         LANGS = new HashMap<>();
+        ALIASES = new HashMap<>();
         loadLanguagesMap();
     }
     //</editor-fold>
@@ -61,8 +81,83 @@ public final class FileFilterFactory {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates the filter for the given language code, which may also be a
+     * comma-separated list of codes, or `all` for every known language.
+     * 
+     * @param language The language code(s) of the files to print.
+     * @return FileFilter for the language(s)
+     * @throws IllegalArgumentException if no code is given or a code is not
+     *          known
+     */
     public static FileFilter createFileFilter(String language) {
-        return new FileFilterEx(LANG_CODES.get(language));
+        if ( language == null || language.isBlank() ) {
+            throw new IllegalArgumentException("No language code provided.");
+        }
+        
+        return createFileFilter(Arrays.asList(language.split("[,\\s]+")));
+    }
+    
+    /**
+     * Creates a single filter that accepts the files of all of the given 
+     * languages. If any of the codes is `all`, the filter accepts the files
+     * of every language we know of.
+     * 
+     * @param languages The language codes of the files to print.
+     * @return FileFilter for the languages
+     * @throws IllegalArgumentException if no codes are given or a code is not
+     *          known
+     */
+    public static FileFilter createFileFilter(Collection<String> languages) {
+        if ( languages == null || languages.isEmpty() ) {
+            throw new IllegalArgumentException("No language code provided.");
+        }
+        
+        Map<String, String[]> selected = new LinkedHashMap<>();
+        for ( String code : languages ) {
+            String lang = resolve(code);
+            
+            if ( lang == null ) {
+                continue;
+            }
+            if ( ALL_LANGUAGES.equals(lang) ) {
+                return new FileFilterEx(Collections.unmodifiableMap(
+                        LANG_CODES));
+            }
+            
+            selected.put(lang, LANG_CODES.get(lang));
+        }
+        
+        if ( selected.isEmpty() ) {
+            throw new IllegalArgumentException("No language code provided.");
+        }
+        
+        return new FileFilterEx(selected);
+    }
+    
+    /**
+     * Resolves a language code, as shown in the application or its help, to
+     * the key used in `LANG_CODES`.
+     * 
+     * @param code The language code.
+     * @return String key into `LANG_CODES`, `all` for every language, or 
+     *          `null` if the code is blank
+     * @throws IllegalArgumentException if the code is not known
+     */
+    public static String resolve(String code) {
+        if ( code == null || code.isBlank() ) {
+            return null;
+        }
+        
+        String lang = code.trim().toLowerCase();
+        lang = ALIASES.getOrDefault(lang, lang);
+        
+        if ( !ALL_LANGUAGES.equals(lang) && !LANG_CODES.containsKey(lang) ) {
+            throw new IllegalArgumentException("Unknown language code: " 
+                    + code);
+        }
+        
+        return lang;
     }
     //</editor-fold>
 
@@ -157,5 +252,11 @@ public final class FileFilterFactory {
         LANG_CODES.put("vbnet", new String[]{".vb"});
         LANG_CODES.put("vbs", new String[]{".vbs"});
         LANG_CODES.put("xml", new String[]{".xml", ".rss", ".svg"});
+        
+        ALIASES.put("ardns", "arduino");
+        ALIASES.put("bat", "batch");
+        ALIASES.put("csharp", "cs");
+        ALIASES.put("jupiter", "jupyter");
+        ALIASES.put("vb", "vbs");
     }
 }
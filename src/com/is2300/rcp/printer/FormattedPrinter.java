@@ -17,9 +17,10 @@
 
 package com.is2300.rcp.printer;
 
-import com.is2300.rcp.utils.GeneralUtils;
+import com.is2300.rcp.text.CharsetDetector;
+import com.is2300.rcp.text.LineIndex;
+import com.is2300.rcp.text.SourceText;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
@@ -30,12 +31,9 @@ import java.awt.print.Printable;
 import static java.awt.print.Printable.NO_SUCH_PAGE;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import javax.print.PrintService;
 import javax.print.attribute.HashPrintRequestAttributeSet;
 import javax.print.attribute.PrintRequestAttributeSet;
 import javax.print.attribute.standard.Copies;
@@ -50,20 +48,58 @@ import javax.print.attribute.standard.Sides;
  * @since 0.1.0
  */
 public class FormattedPrinter implements Printable, ActionListener {
-    int[] pageBreaks;
-    long lineCount;
-    int numPages;
-    String[] lines;
+    static final Font FONT = new Font("Courier", Font.PLAIN, 10);
+    
+    SourceText lines;
+    SourceText wrapped;
+    PageLayout pageLayout;
+    PageTable pages;
     File file;
+    SourceText.Opener opener;
+    String encoding;
+    int pageCount;
+    int lineCount;
     
     /**
-     * Instantiates the `FormattedPrinter` object.
+     * Instantiates the `FormattedPrinter` object. The file is read one time,
+     * to build the index of its lines; the lines are only decoded as their 
+     * pages are printed.
      * 
      * @param pathToPrintFile The path to the file to be printed.
      * @throws IllegalArgumentException in the event that the path parameter is
      *          null or blank.
      */
     public FormattedPrinter(String pathToPrintFile) {
+        this(pathToPrintFile, false);
+    }
+    
+    /**
+     * Instantiates the `FormattedPrinter` object, optionally in windowed mode.
+     * In windowed mode, only the lines of the page being printed are held in
+     * memory, which is meant for files too large to hold all at once. A 
+     * printer in windowed mode keeps its file open until it is closed.
+     * 
+     * @param pathToPrintFile   The path to the file to be printed.
+     * @param windowed          `true` to hold only one page of lines at a time.
+     * @throws IllegalArgumentException in the event that the path parameter is
+     *          null or blank.
+     */
+    public FormattedPrinter(String pathToPrintFile, boolean windowed) {
+        this(pathToPrintFile, windowed, CharsetDetector.DEFAULT);
+    }
+    
+    /**
+     * Instantiates the `FormattedPrinter` object, optionally in windowed mode,
+     * working out the encoding of the file with the given detector.
+     * 
+     * @param pathToPrintFile   The path to the file to be printed.
+     * @param windowed          `true` to hold only one page of lines at a time.
+     * @param charsets          The detector for the file's encoding.
+     * @throws IllegalArgumentException in the event that the path parameter is
+     *          null or blank.
+     */
+    public FormattedPrinter(String pathToPrintFile, boolean windowed, 
+            CharsetDetector charsets) {
         if ( pathToPrintFile == null || pathToPrintFile.isBlank() ) {
             throw new IllegalArgumentException("No path to file to print "
                     + "provided...");
@@ -72,77 +108,221 @@ public class FormattedPrinter implements Printable, ActionListener {
         file = new File(pathToPrintFile);
         
         try {
-            lineCount = Files.lines(file.toPath()).count();
+            lines = SourceText.open(file.toPath(), windowed, charsets);
         } catch (IOException ex) {
             System.err.println(ex.getMessage());
             ex.printStackTrace(System.err);
+            lines = LineIndex.EMPTY;
+        }
+    }
+    
+    /**
+     * Instantiates the `FormattedPrinter` object to print the given text in
+     * place of the file's own content, such as a summary or a hex dump of a
+     * file that is not fit to print as it is.
+     * 
+     * @param pathToPrintFile   The path to the file being printed.
+     * @param text              The text to print for it.
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    public FormattedPrinter(String pathToPrintFile, SourceText text) {
+        if ( pathToPrintFile == null || text == null ) {
+            throw new IllegalArgumentException("No file or text to print "
+                    + "provided...");
         }
         
-        lines = new String[(int)lineCount];
+        file = new File(pathToPrintFile);
+        lines = text;
+    }
+    
+    /**
+     * Instantiates the `FormattedPrinter` object to print the text opened by
+     * `opener`. The printer can then be suspended, letting go of the text,
+     * while it waits for its pages to be printed, and the text is opened 
+     * again when they are.
+     * 
+     * @param pathToPrintFile   The path to the file being printed.
+     * @param opener            Opens the text to print for it.
+     * @throws IOException if the text cannot be opened
+     * @throws IllegalArgumentException if either parameter is null.
+     */
+    public FormattedPrinter(String pathToPrintFile, SourceText.Opener opener)
+            throws IOException {
+        this(pathToPrintFile, opener == null ? null : opener.open());
+        this.opener = opener;
+    }
+    
+    /**
+     * Works out where the page breaks fall for the given page format, ahead of
+     * the print system asking for the pages. This allows the layout of a file
+     * to be done before it is handed to the printer. Long lines are wrapped to
+     * the width of the page.
+     * 
+     * @param pageFormat The page format the file is to be printed on.
+     */
+    public void layout(PageFormat pageFormat) {
+        PageLayout layout = PageLayout.of(FONT, pageFormat);
         
-        BufferedReader in = null;
-        try ( FileReader fr = new FileReader(file) ) {
-            in = new BufferedReader(fr);
-            
-            int counter = 0;
-            while ( counter < lineCount ) {
-                lines[counter] = in.readLine();
-                counter++;
+        if ( layout != pageLayout ) {
+            try {
+                resume();
+            } catch ( IOException ex ) {
+                System.err.println(ex.getMessage());
+                ex.printStackTrace(System.err);
+                lines = LineIndex.EMPTY;
             }
             
-            in.close();
-        } catch (FileNotFoundException ex) {
-            System.err.println(ex.getMessage());
-            ex.printStackTrace(System.err);
-        } catch (IOException ex) {
-            System.err.println(ex.getMessage());
-            ex.printStackTrace(System.err);
+            wrapped = layout.wrap(lines);
+            pages = layout.paginate(wrapped);
+            pageLayout = layout;
+        }
+    }
+    
+    /**
+     * Lets go of the text, and its layout, while the printer waits for its 
+     * pages to be printed, keeping only its number of pages and lines. The
+     * text is opened again, and laid out the same way, when a page is asked
+     * for. A printer that was not made with an `Opener` keeps its text.
+     */
+    public void suspend() {
+        if ( opener == null || lines == null ) {
+            return;
+        }
+        
+        pageCount = getPageCount();
+        lineCount = getLineCount();
+        encoding = lines.getEncoding();
+        lines.close();
+        lines = null;
+        wrapped = null;
+        pages = null;
+    }
+    
+    /**
+     * Retrieves the number of pages this file will print on. This is only 
+     * known once the file has been laid out.
+     * 
+     * @return int number of pages, or zero if not yet laid out
+     */
+    public int getPageCount() {
+        return pages == null ? pageCount : pages.getPageCount();
+    }
+    
+    /**
+     * Retrieves the number of lines this file will print, once its long lines
+     * have been wrapped. This is only known once the file has been laid out.
+     * 
+     * @return int number of lines, or zero if not yet laid out
+     */
+    public int getLineCount() {
+        return pages == null ? lineCount : pages.getLineCount();
+    }
+    
+    /**
+     * Prints this file to the given printer, without showing the print dialog
+     * to the user.
+     * 
+     * @param service       The printer to print to.
+     * @param attributes    The attributes for the print request.
+     * @throws PrinterException if the file could not be printed
+     */
+    public void print(PrintService service, PrintRequestAttributeSet attributes)
+            throws PrinterException {
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintService(service);
+        job.setPrintable(this);
+        job.setJobName(file.getName());
+        job.print(attributes);
+    }
+    
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Retrieves the encoding the file was read with, for the job log.
+     * 
+     * @return String the encoding, i.e., `UTF-8 (BOM)`
+     */
+    public String getEncoding() {
+        return lines == null ? encoding : lines.getEncoding();
+    }
+    
+    /**
+     * Releases the file, if it is held open. The printer cannot be used after
+     * it has been closed.
+     */
+    public void close() {
+        if ( lines != null ) {
+            lines.close();
+        }
+        opener = null;
+    }
+    
+    /**
+     * Writes the lines of a page of this file, which must have been laid out.
+     * 
+     * @param out       The writer to write the lines to.
+     * @param pageIndex The page, counting from zero.
+     * @throws IOException if the lines cannot be written
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    void writePage(PageWriter out, int pageIndex) throws IOException {
+        resume();
+        
+        // A file that has shrunk since it was laid out leaves its last pages
+        // blank, rather than taking pages from the files after it.
+        if ( pageIndex < pages.getPageCount() ) {
+            pageLayout.writePage(out, wrapped, pages, pageIndex);
         }
     }
     
     @Override
     public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) 
             throws PrinterException {
-        // Line Continuation character:  "\n\u23CE" = ⏎
-        Font font = new Font("Courier", Font.PLAIN, 10);
-        FontMetrics metrics = graphics.getFontMetrics(font);
-        int lineHeight = metrics.getHeight();
-        int[] charWidth = metrics.getWidths();
-        int avgWidth = GeneralUtils.average(charWidth);
+        // The layout is kept, so the file is only measured and paginated the
+        // first time; after that, a page is only drawn.
+        layout(pageFormat);
         
-        if ( pageBreaks == null ) {
-            // initTextLines();
-            int linesPerPage = (int)(pageFormat.getImageableHeight()/lineHeight);
-            int numBreaks = (lines.length - 1) / linesPerPage;
-            int charsPerPage = (int)(pageFormat.getImageableWidth() / avgWidth);
-            pageBreaks = new int[numBreaks];
-            
-            for ( int b = 0; b < numBreaks; b++ ) {
-                pageBreaks[b] = (b+1) * linesPerPage;
-            }
+        try {
+            resume();
+        } catch ( IOException ex ) {
+            PrinterException failure = new PrinterException(ex.getMessage());
+            failure.initCause(ex);
+            throw failure;
         }
         
-        if ( pageIndex > pageBreaks.length ) {
-            return NO_SUCH_PAGE;
+        if ( pageIndex >= pages.getPageCount() ) {
+            return pageIndex < pageCount ? PAGE_EXISTS : NO_SUCH_PAGE;
         }
         
-        Graphics2D g2d = (Graphics2D)graphics;
-        g2d.setFont(font);
-//        Paper paper = pageFormat.getPaper();
-//        paper.setImageableArea(0, 0, paper.getWidth(), paper.getHeight());
-//        pageFormat.setPaper(paper);
-        g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
-        
-        int y   = 0;
-        int start = (pageIndex == 0) ? 0 : pageBreaks[pageIndex - 1];
-        int end = (pageIndex == pageBreaks.length) ? lines.length : pageBreaks[pageIndex];
+        pageLayout.drawPage((Graphics2D)graphics, wrapped, pages, pageIndex);
         
-        for ( int line = start; line < end; line++ ) {
-            y += lineHeight;
-            graphics.drawString(lines[line], 0, y);
+        return PAGE_EXISTS;
+    }
+    
+    /**
+     * Opens the text again, and lays it out as it was, if the printer has 
+     * been suspended.
+     */
+    private void resume() throws IOException {
+        if ( lines != null ) {
+            return;
+        }
+        if ( opener == null ) {
+            throw new IOException(file + " has been closed.");
         }
         
-        return PAGE_EXISTS;
+        lines = opener.open();
+        if ( pageLayout != null ) {
+            wrapped = pageLayout.wrap(lines);
+            pages = pageLayout.paginate(wrapped);
+            
+            if ( pages.getPageCount() != pageCount ) {
+                System.err.println(file + " has changed since it was laid "
+                        + "out.");
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+/**
+ * `LiteralString` writes a line of text as a string literal, in the syntax
+ * that PostScript and PDF share: in parentheses, with the parentheses and
+ * backslashes in it escaped. The text is printed in a Latin-1 encoding, so
+ * the characters above ASCII are written as octal escapes, and those that are
+ * not in Latin-1 as `?`, except for the marker at the end of a wrapped line,
+ * which is written as `¬`. Control characters are written as spaces.
+ * 
+ * Everything it writes is plain ASCII.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+final class LiteralString {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    // The arrow that ends the marker of a wrapped line.
+    private static final char CONTINUATION = PageLayout.LINE_CONTINUATION
+            .charAt(PageLayout.LINE_CONTINUATION.length() - 1);
+    private static final char NOT_SIGN = '\u00AC';
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private LiteralString() {
+        // Only static methods.
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Methods">
+    /**
+     * Appends the line, as a string literal, to the buffer.
+     * 
+     * @param sb    The buffer.
+     * @param line  The line.
+     */
+    static void append(StringBuilder sb, CharSequence line) {
+        sb.append('(');
+        for ( int i = 0; i < line.length(); i++ ) {
+            char c = line.charAt(i);
+            
+            if ( c == '(' || c == ')' || c == '\\' ) {
+                sb.append('\\').append(c);
+            } else if ( c >= ' ' && c < 0x7F ) {
+                sb.append(c);
+            } else if ( c < ' ' || c == 0x7F ) {
+                sb.append(' ');
+            } else {
+                if ( c == CONTINUATION ) {
+                    c = NOT_SIGN;
+                } else if ( c > 0xFF || c < 0xA0 ) {
+                    c = '?';
+                }
+                
+                if ( c == '?' ) {
+                    sb.append(c);
+                } else {
+                    sb.append('\\').append(Integer.toOctalString(c));
+                }
+            }
+        }
+        sb.append(')');
+    }
+    //</editor-fold>
+
+}
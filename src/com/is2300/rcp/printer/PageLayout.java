@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.printer;
+
+import com.is2300.rcp.text.SourceText;
+import com.is2300.rcp.text.WrappedText;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * `PageLayout` holds the measurements needed to lay text out on a page: the 
+ * height of a line, the width of a character, and how many lines and columns
+ * fit in the printable area of the page. These are measured once for each 
+ * font and page format, and kept, so that every file printed on the same 
+ * pages shares them.
+ * 
+ * A text is laid out in two steps:
+ * 
+ * ```java
+ * PageLayout layout = PageLayout.of(font, pageFormat);
+ * SourceText wrapped = layout.wrap(text);
+ * PageTable pages = layout.paginate(wrapped);
+ * ```
+ * 
+ * after which each page is drawn with `drawPage`, which does no measuring at
+ * all, or has its lines written out with `writePage`.
+ * 
+ * The font is expected to be a fixed-width font, such as Courier, as the 
+ * lines are wrapped by their number of characters.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PageLayout {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The marker put at the end of each piece of a wrapped line. */
+    public static final String LINE_CONTINUATION = " \u21B5";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final Map<Key, PageLayout> LAYOUTS = 
+            new ConcurrentHashMap<>();
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Font font;
+    private final double x;
+    private final double y;
+    private final int lineHeight;
+    private final int charWidth;
+    private final int linesPerPage;
+    private final int columns;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private PageLayout(Font font, PageFormat format) {
+        BufferedImage image = new BufferedImage(1, 1, 
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            FontMetrics metrics = g2d.getFontMetrics(font);
+            this.lineHeight = Math.max(1, metrics.getHeight());
+            this.charWidth = Math.max(1, metrics.charWidth('M'));
+        } finally {
+            g2d.dispose();
+        }
+        
+        this.font = font;
+        this.x = format.getImageableX();
+        this.y = format.getImageableY();
+        this.linesPerPage = Math.max(1, 
+                (int)(format.getImageableHeight() / lineHeight));
+        this.columns = Math.max(LINE_CONTINUATION.length() + 1, 
+                (int)(format.getImageableWidth() / charWidth));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the layout for the given font and page format, measuring it 
+     * only if it has not been measured before.
+     * 
+     * @param font      The font the text is printed in.
+     * @param format    The page format the text is printed on.
+     * @return PageLayout for the font and page format
+     * @throws IllegalArgumentException if either parameter is null
+     */
+    public static PageLayout of(Font font, PageFormat format) {
+        if ( font == null || format == null ) {
+            throw new IllegalArgumentException("No font or page format "
+                    + "provided.");
+        }
+        
+        return LAYOUTS.computeIfAbsent(new Key(font, format), 
+                key -> new PageLayout(font, format));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public Font getFont() {
+        return font;
+    }
+    
+    /**
+     * Retrieves the name of the standard PostScript font, one of the Courier
+     * family, in the style of the layout's font, for the backends that print
+     * the text without Java2D.
+     * 
+     * @return String name of the font, i.e., `Courier-Bold`
+     */
+    public String getBaseFont() {
+        if ( font.isBold() && font.isItalic() ) {
+            return "Courier-BoldOblique";
+        } else if ( font.isBold() ) {
+            return "Courier-Bold";
+        } else if ( font.isItalic() ) {
+            return "Courier-Oblique";
+        }
+        
+        return "Courier";
+    }
+    
+    public int getLineHeight() {
+        return lineHeight;
+    }
+    
+    public int getLinesPerPage() {
+        return linesPerPage;
+    }
+    
+    /**
+     * Retrieves the number of characters that fit on a line.
+     * 
+     * @return int the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+    
+    /**
+     * Wraps the lines of the text that are too long to fit across the page.
+     * 
+     * @param text The text.
+     * @return SourceText with its long lines wrapped
+     */
+    public SourceText wrap(SourceText text) {
+        return new WrappedText(text, columns, LINE_CONTINUATION);
+    }
+    
+    /**
+     * Works out where each page of the text starts. The text is expected to
+     * have been wrapped already.
+     * 
+     * @param text The text.
+     * @return PageTable of the text
+     */
+    public PageTable paginate(SourceText text) {
+        int lines = text.size();
+        int pages = Math.max(1, (lines + linesPerPage - 1) / linesPerPage);
+        int[] starts = new int[pages + 1];
+        
+        for ( int page = 1; page < pages; page++ ) {
+            starts[page] = page * linesPerPage;
+        }
+        starts[pages] = lines;
+        
+        return new PageTable(starts);
+    }
+    
+    /**
+     * Draws a page of the text.
+     * 
+     * @param g2d   The graphics to draw on.
+     * @param text  The text, as it was paginated.
+     * @param pages The page table of the text.
+     * @param page  The page to draw, counting from zero.
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public void drawPage(Graphics2D g2d, SourceText text, PageTable pages, 
+            int page) {
+        int start = pages.getFirstLine(page);
+        int end = pages.getEndLine(page);
+        
+        g2d.setFont(font);
+        g2d.translate(x, y);
+        
+        text.window(start, end);
+        int baseline = 0;
+        for ( int line = start; line < end; line++ ) {
+            baseline += lineHeight;
+            g2d.drawString(text.line(line), 0, baseline);
+        }
+    }
+    
+    /**
+     * Writes the lines of a page of the text, for a backend that does not 
+     * draw them with Java2D.
+     * 
+     * @param out   The writer to write the lines to.
+     * @param text  The text, as it was paginated.
+     * @param pages The page table of the text.
+     * @param page  The page to write, counting from zero.
+     * @throws IOException if the lines cannot be written
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public void writePage(PageWriter out, SourceText text, PageTable pages, 
+            int page) throws IOException {
+        int start = pages.getFirstLine(page);
+        int end = pages.getEndLine(page);
+        
+        text.window(start, end);
+        for ( int line = start; line < end; line++ ) {
+            out.writeLine(text.line(line));
+        }
+    }
+    //</editor-fold>
+
+    /**
+     * The font and printable area a layout was measured for.
+     */
+    private static final class Key {
+        private final Font font;
+        private final double x;
+        private final double y;
+        private final double width;
+        private final double height;
+        
+        Key(Font font, PageFormat format) {
+            this.font = font;
+            this.x = format.getImageableX();
+            this.y = format.getImageableY();
+            this.width = format.getImageableWidth();
+            this.height = format.getImageableHeight();
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if ( !(obj instanceof Key) ) {
+                return false;
+            }
+            
+            Key other = (Key)obj;
+            return font.equals(other.font) && x == other.x && y == other.y 
+                    && width == other.width && height == other.height;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(font, x, y, width, height);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.printer;
+
+/**
+ * `PageTable` is the result of laying out a text: where each of its pages 
+ * starts. It is worked out once, before any page is printed, so that printing
+ * a page is only a matter of drawing its lines.
+ * 
+ * The table holds a single `int` for each page, and always has at least one 
+ * page, which, for an empty text, has no lines on it.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PageTable {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final int[] starts;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a table of pages from the lines each of them starts at.
+     * 
+     * @param starts    The first line of each page, followed by the number of
+     *                  lines in the text.
+     */
+    PageTable(int[] starts) {
+        this.starts = starts;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public int getPageCount() {
+        return starts.length - 1;
+    }
+    
+    public int getLineCount() {
+        return starts[starts.length - 1];
+    }
+    
+    /**
+     * Retrieves the first line printed on the given page.
+     * 
+     * @param page The page, counting from zero.
+     * @return int the first line of the page
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public int getFirstLine(int page) {
+        check(page);
+        return starts[page];
+    }
+    
+    /**
+     * Retrieves the line after the last line printed on the given page.
+     * 
+     * @param page The page, counting from zero.
+     * @return int the line after the end of the page
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public int getEndLine(int page) {
+        check(page);
+        return starts[page + 1];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void check(int page) {
+        if ( page < 0 || page >= getPageCount() ) {
+            throw new IndexOutOfBoundsException("Page " + page + " of " 
+                    + getPageCount());
+        }
+    }
+    //</editor-fold>
+
+}
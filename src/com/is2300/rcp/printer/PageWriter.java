@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.io.IOException;
+
+/**
+ * A `PageWriter` takes the lines of a page, one after the other from the top
+ * of the page, to put them out in some page description language of its own,
+ * instead of drawing them with Java2D.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public interface PageWriter {
+    
+    /**
+     * Writes the next line of the current page.
+     * 
+     * @param line The line, which may be empty.
+     * @throws IOException if the line cannot be written
+     */
+    void writeLine(String line) throws IOException;
+    
+}
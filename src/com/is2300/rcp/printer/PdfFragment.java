@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.awt.print.PageFormat;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * A `PdfFragment` is the PDF content of the pages of one document, such as 
+ * one file of a project, compressed and ready to be written, but not yet
+ * given object numbers. Fragments can be rendered by many threads at once,
+ * and then written, in order, by a single `PdfWriter`, which numbers their
+ * pages and objects as it writes them. The file that comes out is the same,
+ * byte for byte, as one written a page at a time with `writePages`.
+ * 
+ * ```java
+ * PdfFragment fragment = PdfFragment.render(document);  // on any thread
+ * 
+ * pdf.writeFragment(fragment);                          // in order
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PdfFragment {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final ThreadLocal<Deflater> DEFLATER = 
+            ThreadLocal.withInitial(() -> new Deflater(PdfWriter.LEVEL));
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final byte[] content;
+    private final int[] ends;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    PdfFragment(byte[] content, int[] ends) {
+        this.content = content;
+        this.ends = ends;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Renders every page of the document, with this thread's `Deflater`.
+     * 
+     * @param document The document, which must already be laid out.
+     * @return PdfFragment of the document's pages
+     * @throws IOException if a page cannot be read
+     */
+    public static PdfFragment render(TextDocument document) 
+            throws IOException {
+        int pages = document.getNumberOfPages();
+        PageFormat format = pages == 0 ? new PageFormat() 
+                : document.getPageFormat(0);
+        PdfPageEncoder encoder = new PdfPageEncoder(format, DEFLATER.get());
+        byte[] content = new byte[0];
+        int[] ends = new int[pages];
+        int size = 0;
+        
+        for ( int page = 0; page < pages; page++ ) {
+            int length = encoder.encode(document, page);
+            
+            if ( content.length < size + length ) {
+                content = Arrays.copyOf(content, Math.max(size + length, 
+                        content.length * 2));
+            }
+            System.arraycopy(encoder.getBytes(), 0, content, size, length);
+            size += length;
+            ends[page] = size;
+        }
+        
+        return new PdfFragment(content, ends);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public int getPageCount() {
+        return ends.length;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    int getStart(int page) {
+        return page == 0 ? 0 : ends[page - 1];
+    }
+    
+    int getEnd(int page) {
+        return ends[page];
+    }
+    
+    byte[] getContent() {
+        return content;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.awt.print.PageFormat;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * `PdfPageEncoder` turns a page of a `TextDocument` into the compressed 
+ * content stream of a PDF page. The content of a page only depends on its
+ * lines and on the page format, never on where in the PDF file the page ends
+ * up, so pages can be encoded by any thread, in any order, and still come out
+ * the same.
+ * 
+ * An encoder keeps its buffers, and its `Deflater`, from page to page, and is
+ * only to be used by one thread at a time.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+final class PdfPageEncoder implements PageWriter {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Deflater deflater;
+    private final String textState;
+    private final StringBuilder content;
+    
+    private byte[] raw;
+    private byte[] packed;
+    private int length;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an encoder for pages laid out for the given page format.
+     * 
+     * @param format    The page format.
+     * @param deflater  The deflater to compress the pages with, which is 
+     *                  reset for each page.
+     */
+    PdfPageEncoder(PageFormat format, Deflater deflater) {
+        PageLayout layout = PageLayout.of(FormattedPrinter.FONT, format);
+        
+        // The font, the line spacing and the top of the printable area, from
+        // which the first line moves down to its baseline.
+        this.textState = "BT\n/F1 " + number(layout.getFont().getSize2D()) 
+                + " Tf\n" + layout.getLineHeight() + " TL\n1 0 0 1 " 
+                + number(format.getImageableX()) + " " 
+                + number(format.getHeight() - format.getImageableY()) 
+                + " Tm\n";
+        this.deflater = deflater;
+        this.content = new StringBuilder(8 * 1024);
+        this.raw = new byte[8 * 1024];
+        this.packed = new byte[8 * 1024];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Methods">
+    /**
+     * Formats a coordinate or size for the page description, as a whole 
+     * number when it is one, or to three decimal places. The PDF and the 
+     * PostScript backends both use it, so that they place the text alike.
+     */
+    static String number(double value) {
+        return value == Math.rint(value) ? Long.toString((long)value) 
+                : String.format(Locale.ROOT, "%.3f", value);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Instance Methods">
+    /**
+     * Encodes and compresses a page, which is then held by the encoder until
+     * the next page is encoded.
+     * 
+     * @param document  The document.
+     * @param page      The page, counting from zero.
+     * @return int the length of the compressed page
+     * @throws IOException if the page cannot be read
+     */
+    int encode(TextDocument document, int page) throws IOException {
+        content.setLength(0);
+        content.append(textState);
+        document.writePage(this, page);
+        content.append("ET\n");
+        
+        int size = content.length();
+        if ( raw.length < size ) {
+            raw = new byte[Math.max(size, raw.length * 2)];
+        }
+        for ( int i = 0; i < size; i++ ) {
+            // LiteralString only writes ASCII.
+            raw[i] = (byte)content.charAt(i);
+        }
+        
+        deflater.reset();
+        deflater.setInput(raw, 0, size);
+        deflater.finish();
+        length = 0;
+        while ( !deflater.finished() ) {
+            if ( length == packed.length ) {
+                packed = Arrays.copyOf(packed, packed.length * 2);
+            }
+            length += deflater.deflate(packed, length, packed.length - length);
+        }
+        
+        return length;
+    }
+    
+    /**
+     * Retrieves the buffer holding the last page encoded, which is only 
+     * valid up to the length `encode` returned.
+     */
+    byte[] getBytes() {
+        return packed;
+    }
+    
+    /**
+     * Writes a line of the page, moving down to it first, as the `'` 
+     * operator. An empty line is only a move down.
+     * 
+     * @param line The line.
+     */
+    @Override
+    public void writeLine(String line) {
+        if ( line.isEmpty() ) {
+            content.append("T*\n");
+        } else {
+            LiteralString.append(content, line);
+            content.append("'\n");
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.awt.print.PageFormat;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A `PdfPageMap` records what was printed to a PDF file by `PdfWriter`: the
+ * page objects of each file, in the order of the file's pages, and where the
+ * file's last cross-reference table starts, and how long the file was when
+ * it was finished. It is kept beside the PDF file, so that the PDF can later
+ * be brought up to date by appending only the pages of the files that have 
+ * changed, as an incremental update.
+ * 
+ * The pages of a file are always written together, so they are numbered
+ * `first`, `first + 2`, `first + 4`, and so on, with each page's content
+ * stream numbered after it, and a file's pages are held as its first page
+ * object and the number of pages:
+ * 
+ * ```
+ * # ISRCP pdf pages 2
+ * xref	268248	621	281002	612.0	792.0
+ * 5	2	
+ * 9	13	src/com/example/Main.java
+ * ```
+ * 
+ * The second line holds the offset of the last cross-reference table, the
+ * number of objects in the file, the length of the file, and the width and
+ * height of the pages. An empty path stands for the front matter. A PDF file
+ * whose length is not the one in its map has been written since, by 
+ * something else, and is not updated.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PdfPageMap {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The path recorded for the front matter of the document. */
+    public static final String FRONT_MATTER = "";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final String HEADER = "# ISRCP pdf pages 2";
+    private static final String XREF = "xref";
+    private static final String EXTENSION = ".pages";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final double width;
+    private final double height;
+    private final Map<String, int[]> files;
+    
+    private long startXref;
+    private int size;
+    private long length;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an empty map for a PDF file of pages of the given size.
+     * 
+     * @param width     The width of the pages, in points.
+     * @param height    The height of the pages, in points.
+     */
+    public PdfPageMap(double width, double height) {
+        this.width = width;
+        this.height = height;
+        this.files = new LinkedHashMap<>();
+        this.startXref = -1;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Locates the map kept for the given PDF file.
+     * 
+     * @param pdf The PDF file.
+     * @return Path to the map, which may not exist
+     */
+    public static Path locate(Path pdf) {
+        return pdf.resolveSibling(pdf.getFileName() + EXTENSION);
+    }
+    
+    /**
+     * Reads a map that was written by `write`.
+     * 
+     * @param file The map file.
+     * @return PdfPageMap that was read, or `null` if there is no map, or it
+     *          is not a map that can be updated
+     * @throws IOException if the map cannot be read
+     */
+    public static PdfPageMap read(Path file) throws IOException {
+        if ( !Files.isRegularFile(file) ) {
+            return null;
+        }
+        
+        try ( BufferedReader in = Files.newBufferedReader(file, 
+                StandardCharsets.UTF_8) ) {
+            String line = in.readLine();
+            if ( !HEADER.equals(line) ) {
+                return null;
+            }
+            
+            String[] fields = String.valueOf(in.readLine()).split("\t");
+            if ( fields.length != 6 || !XREF.equals(fields[0]) ) {
+                return null;
+            }
+            
+            PdfPageMap map = new PdfPageMap(Double.parseDouble(fields[4]), 
+                    Double.parseDouble(fields[5]));
+            map.setTrailer(Long.parseLong(fields[1]), 
+                    Integer.parseInt(fields[2]), Long.parseLong(fields[3]));
+            
+            while ( (line = in.readLine()) != null ) {
+                fields = line.split("\t", 3);
+                if ( fields.length < 3 ) {
+                    System.err.println("Skipping bad page map line: " + line);
+                    continue;
+                }
+                
+                map.add(fields[2], Integer.parseInt(fields[0]), 
+                        Integer.parseInt(fields[1]));
+            }
+            
+            return map;
+        } catch ( NumberFormatException ex ) {
+            System.err.println("Invalid page map " + file + ": " 
+                    + ex.getMessage());
+            return null;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Records the pages of a file, replacing any pages recorded for it 
+     * before. A file is kept in the order it was first added.
+     * 
+     * @param path  The path of the file, relative to the project.
+     * @param first The object number of the file's first page.
+     * @param count The number of pages.
+     */
+    public void add(String path, int first, int count) {
+        files.put(path, new int[] { first, count });
+    }
+    
+    /**
+     * Tells whether the pages of the given file are recorded.
+     * 
+     * @param path The path of the file, relative to the project.
+     * @return `true` if the file's pages are in the PDF
+     */
+    public boolean contains(String path) {
+        return files.containsKey(path);
+    }
+    
+    /**
+     * Copies the record of a file's pages from another map.
+     * 
+     * @param other The map to copy from.
+     * @param path  The path of the file, relative to the project.
+     * @return `true` if the other map had the file
+     */
+    public boolean copy(PdfPageMap other, String path) {
+        int[] pages = other == null ? null : other.files.get(path);
+        
+        if ( pages != null ) {
+            files.put(path, pages);
+        }
+        
+        return pages != null;
+    }
+    
+    /**
+     * Tells whether pages laid out for the given page format are the same size
+     * as the pages of the PDF file, so that they can be added to it.
+     * 
+     * @param format The page format.
+     * @return `true` if the page sizes are the same
+     */
+    public boolean fits(PageFormat format) {
+        return format.getWidth() == width && format.getHeight() == height;
+    }
+    
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    /**
+     * Retrieves the number of pages of all of the files.
+     * 
+     * @return int number of pages in the PDF
+     */
+    public int getPageCount() {
+        int pages = 0;
+        
+        for ( int[] f : files.values() ) {
+            pages += f[1];
+        }
+        
+        return pages;
+    }
+    
+    /**
+     * Retrieves the offset of the last cross-reference table of the PDF.
+     * 
+     * @return long offset of the table, or `-1` if the PDF is not finished
+     */
+    public long getStartXref() {
+        return startXref;
+    }
+    
+    /**
+     * Retrieves the number of objects in the PDF, counting the free object
+     * zero, which is also the number of the next object to be added.
+     * 
+     * @return int number of objects
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Retrieves the length of the PDF file, in bytes, when it was finished.
+     * 
+     * @return long length of the file
+     */
+    public long getLength() {
+        return length;
+    }
+    
+    /**
+     * Tells whether the PDF file is still the one this map was written for,
+     * i.e., whether it is as long as it was when it was finished.
+     * 
+     * @param pdf The PDF file.
+     * @return `true` if the file can be updated with this map
+     * @throws IOException if the file's length cannot be read
+     */
+    public boolean describes(Path pdf) throws IOException {
+        return startXref >= 0 && Files.isRegularFile(pdf) 
+                && Files.size(pdf) == length;
+    }
+    
+    /**
+     * Records where the last cross-reference table of the PDF starts, how
+     * many objects it has and how long it is, once the PDF has been finished.
+     * 
+     * @param startXref The offset of the table.
+     * @param size      The number of objects.
+     * @param length    The length of the file.
+     */
+    public void setTrailer(long startXref, int size, long length) {
+        this.startXref = startXref;
+        this.size = size;
+        this.length = length;
+    }
+    
+    /**
+     * Writes the map. The new map is written beside the old one and then 
+     * moved into its place, as a manifest is.
+     * 
+     * @param file The map file.
+     * @throws IOException if the map cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        
+        try ( BufferedWriter out = Files.newBufferedWriter(tmp, 
+                StandardCharsets.UTF_8) ) {
+            out.write(HEADER);
+            out.newLine();
+            out.write(XREF + "\t" + startXref + "\t" + size + "\t" 
+                    + length + "\t" + width + "\t" + height);
+            out.newLine();
+            
+            for ( Map.Entry<String, int[]> e : files.entrySet() ) {
+                out.write(e.getValue()[0] + "\t" + e.getValue()[1] + "\t" 
+                        + e.getKey());
+                out.newLine();
+            }
+        }
+        
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    /**
+     * Retrieves the first page object and the number of pages of each file,
+     * in order.
+     */
+    Iterable<int[]> getRuns() {
+        return files.values();
+    }
+    //</editor-fold>
+
+}
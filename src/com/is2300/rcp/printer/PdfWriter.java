@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.awt.print.PageFormat;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * `PdfWriter` writes text documents as PDF, without any library, for print to
+ * file and for archiving. The pages are written to the file as they are 
+ * given, and are not kept, so the memory it takes does not grow with the 
+ * document, save for the offset of each object, which is needed for the 
+ * cross-reference table at the end of the file.
+ * 
+ * The text is set in the standard `Courier` font, which every PDF reader has,
+ * so no font is embedded; it is encoded with `WinAnsiEncoding`, which agrees
+ * with Latin-1 for the characters `LiteralString` puts out. The content of
+ * each page is compressed with one `Deflater`, which is reused for every 
+ * page. Pages can also be rendered ahead, by other threads, as a 
+ * `PdfFragment`, and then written with `writeFragment`.
+ * 
+ * The objects are numbered by arithmetic, so that nothing needs to be looked
+ * up: the catalog, the page tree, the font and the document information come
+ * first, and then each page is followed by its content stream. The page tree
+ * is written last, once the number of pages is known.
+ * 
+ * A PDF file that was written with a `PdfPageMap` can later be brought up to
+ * date with `update`, which appends only the pages given to it, followed by
+ * a new page tree, made from the map, and a cross-reference table for the new
+ * objects alone, which points back to the one before it. The pages that are
+ * replaced are left in the file, but are no longer part of the document. An
+ * update that is closed before it is finished is cut off again, leaving the
+ * file as it was.
+ * 
+ * ```java
+ * try ( PdfWriter pdf = PdfWriter.create(path, pageFormat) ) {
+ *     pdf.writePages(document);
+ *     pdf.finish("My Project");
+ * }
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PdfWriter implements Closeable {
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Constants">
+    /** The compression level for the content streams. */
+    static final int LEVEL = Deflater.BEST_SPEED;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+    private static final int INFO = 4;
+    private static final int FIRST_PAGE = 5;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final WritableByteChannel channel;
+    private final PageFormat format;
+    private final PageLayout layout;
+    private final ByteBuffer out;
+    private final Deflater deflater;
+    private final PdfPageEncoder encoder;
+    private final long[] fixed;
+    private final int base;
+    private final long previous;
+    private final long start;
+    private final List<int[]> runs;
+    
+    private long[] offsets;
+    private long position;
+    private int nextObject;
+    private int pageCount;
+    private boolean finished;
+    private boolean complete;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a writer that writes a PDF document to the channel, from its
+     * current position, if it is a file, starting with the file header. The
+     * channel is closed with the writer.
+     * 
+     * @param channel   The channel to write to.
+     * @param format    The page format the document was laid out for.
+     * @throws IOException if the header cannot be written
+     * @throws IllegalArgumentException if either parameter is null
+     */
+    public PdfWriter(WritableByteChannel channel, PageFormat format) 
+            throws IOException {
+        this(channel, format, null);
+    }
+    
+    private PdfWriter(WritableByteChannel channel, PageFormat format, 
+            PdfPageMap update) throws IOException {
+        if ( channel == null || format == null ) {
+            throw new IllegalArgumentException("No channel or page format "
+                    + "provided.");
+        }
+        
+        this.channel = channel;
+        this.format = format;
+        this.layout = PageLayout.of(FormattedPrinter.FONT, format);
+        this.out = ByteBuffer.allocate(BUFFER_SIZE);
+        this.deflater = new Deflater(LEVEL);
+        this.encoder = new PdfPageEncoder(format, deflater);
+        this.fixed = new long[FIRST_PAGE];
+        this.base = update == null ? FIRST_PAGE : update.getSize();
+        this.previous = update == null ? -1 : update.getStartXref();
+        this.runs = new ArrayList<>();
+        this.offsets = new long[64];
+        this.position = channel instanceof FileChannel 
+                ? ((FileChannel)channel).position() : 0;
+        this.start = position;
+        this.nextObject = base;
+        
+        if ( update == null ) {
+            // The second line marks the file as binary, for transfer 
+            // programs.
+            write("%PDF-1.4\n%\u00E2\u00E3\u00CF\u00D3\n");
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates, or replaces, the file and opens a writer for it. The page map
+     * of a file that is replaced is deleted, as it no longer describes the
+     * file.
+     * 
+     * @param file      The file to write.
+     * @param format    The page format the document was laid out for.
+     * @return PdfWriter for the file
+     * @throws IOException if the file cannot be written
+     */
+    public static PdfWriter create(Path file, PageFormat format) 
+            throws IOException {
+        return open(file, format, null);
+    }
+    
+    /**
+     * Opens a writer that appends an incremental update to the end of a PDF
+     * file that was finished with the given map. The writer must be finished 
+     * with a map, too, which lists every page of the updated document.
+     * 
+     * @param file      The PDF file.
+     * @param pages     The map the file was last finished with.
+     * @param format    The page format the new pages were laid out for.
+     * @return PdfWriter for the update
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the map is missing, was not 
+     *          finished, is for pages of another size, or the file has been
+     *          written since the map was
+     */
+    public static PdfWriter update(Path file, PdfPageMap pages, 
+            PageFormat format) throws IOException {
+        if ( pages == null || !pages.fits(format) 
+                || !pages.describes(file) ) {
+            throw new IllegalArgumentException("The PDF file cannot be "
+                    + "updated with these pages.");
+        }
+        
+        return open(file, format, pages);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Writes the whole document, and finishes the file.
+     * 
+     * @param document  The document, laid out for this writer's page format.
+     * @param title     The title of the document.
+     * @throws IOException if the document cannot be written
+     */
+    public void write(TextDocument document, String title) throws IOException {
+        writePages(document);
+        finish(title);
+    }
+    
+    /**
+     * Writes every page of the document after the pages already written, so 
+     * that a job can be written one file at a time.
+     * 
+     * @param document The document, laid out for this writer's page format.
+     * @return int the object number of the first page; the others follow it,
+     *          two apart
+     * @throws IOException if the pages cannot be written
+     */
+    public int writePages(TextDocument document) throws IOException {
+        int first = nextObject;
+        
+        for ( int page = 0; page < document.getNumberOfPages(); page++ ) {
+            writePage(document, page);
+        }
+        
+        return first;
+    }
+    
+    /**
+     * Writes the pages of a fragment after the pages already written, giving
+     * them their page and object numbers.
+     * 
+     * @param fragment The fragment, rendered for this writer's page format.
+     * @return int the object number of the first page; the others follow it,
+     *          two apart
+     * @throws IOException if the pages cannot be written
+     */
+    public int writeFragment(PdfFragment fragment) throws IOException {
+        byte[] content = fragment.getContent();
+        int first = nextObject;
+        
+        for ( int page = 0; page < fragment.getPageCount(); page++ ) {
+            int start = fragment.getStart(page);
+            writePage(content, start, fragment.getEnd(page) - start);
+        }
+        
+        return first;
+    }
+    
+    /**
+     * Retrieves the number of pages written by this writer, which, for an 
+     * update, are only the new pages.
+     * 
+     * @return int number of pages written
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+    
+    /**
+     * Writes the objects that are only known at the end, i.e., the page tree,
+     * with the pages in the order they were written, then the cross-reference
+     * table and the trailer. Nothing more can be written after this.
+     * 
+     * @param title The title of the document.
+     * @throws IOException if the end of the file cannot be written
+     * @throws IllegalStateException if the file has already been finished, or
+     *          is being updated
+     */
+    public void finish(String title) throws IOException {
+        if ( previous >= 0 ) {
+            throw new IllegalStateException("An update must be finished with "
+                    + "a page map.");
+        }
+        
+        finish(title, runs);
+    }
+    
+    /**
+     * Finishes the file as `finish(String)` does, but with the pages in the
+     * order of the given map, which must list every page of the document, old
+     * and new. The map is then given the new end of the file, to be saved 
+     * for the next update.
+     * 
+     * @param title The title of the document.
+     * @param pages The pages of the document.
+     * @throws IOException if the end of the file cannot be written
+     * @throws IllegalStateException if the file has already been finished
+     */
+    public void finish(String title, PdfPageMap pages) throws IOException {
+        long xref = finish(title, pages.getRuns());
+        pages.setTrailer(xref, nextObject, position);
+    }
+    
+    /**
+     * Closes the channel. A new file that has not been finished is left 
+     * incomplete, while an update that has not been finished is taken off
+     * the end of the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if ( previous >= 0 && !complete ) {
+                // An update is always written to a file; see `open`.
+                ((FileChannel)channel).truncate(start);
+            } else {
+                flush();
+            }
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    /**
+     * Writes one page of the document after the pages already written.
+     * 
+     * @param document  The document, laid out for this writer's page format.
+     * @param page      The page, counting from zero.
+     * @throws IOException if the page cannot be written
+     */
+    void writePage(TextDocument document, int page) throws IOException {
+        int length = encoder.encode(document, page);
+        writePage(encoder.getBytes(), 0, length);
+    }
+    
+    /**
+     * Retrieves the number of bytes in the file so far, counting those that
+     * are still in the buffer.
+     */
+    long getPosition() {
+        return position;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static PdfWriter open(Path file, PageFormat format, 
+            PdfPageMap update) throws IOException {
+        if ( update == null ) {
+            Files.deleteIfExists(PdfPageMap.locate(file));
+        }
+        
+        FileChannel channel = update == null 
+                ? FileChannel.open(file, StandardOpenOption.CREATE, 
+                        StandardOpenOption.WRITE, 
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(file, StandardOpenOption.WRITE);
+        
+        try {
+            if ( update != null ) {
+                channel.position(channel.size());
+            }
+            
+            return new PdfWriter(channel, format, update);
+        } catch ( IOException | RuntimeException ex ) {
+            channel.close();
+            throw ex;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Writes the page tree, and, for a new file, the other objects at the
+     * start of the numbering, then the cross-reference table and the trailer.
+     * 
+     * @return long the offset of the cross-reference table
+     */
+    private long finish(String title, Iterable<int[]> kids) 
+            throws IOException {
+        if ( finished ) {
+            throw new IllegalStateException("The document is finished.");
+        }
+        finished = true;
+        
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        for ( int[] run : kids ) {
+            count += run[1];
+        }
+        
+        if ( previous < 0 ) {
+            begin(FONT);
+            write("<< /Type /Font /Subtype /Type1 /BaseFont /" 
+                    + layout.getBaseFont() 
+                    + " /Encoding /WinAnsiEncoding >>\nendobj\n");
+            
+            begin(INFO);
+            sb.append("<< /Title ");
+            LiteralString.append(sb, title == null ? "" : title);
+            sb.append(" /Producer (Integrity Solutions Recursive Code ")
+                    .append("Printer) >>\nendobj\n");
+            write(sb);
+        }
+        
+        begin(PAGES);
+        write("<< /Type /Pages /Count " + count + " /MediaBox [0 0 " 
+                + PdfPageEncoder.number(format.getWidth()) + " " 
+                + PdfPageEncoder.number(format.getHeight()) 
+                + "] /Resources << /Font << /F1 " + FONT + " 0 R >> >>\n"
+                + "/Kids [");
+        int page = 0;
+        for ( int[] run : kids ) {
+            for ( int i = 0; i < run[1]; i++, page++ ) {
+                sb.setLength(0);
+                sb.append(page % 10 == 0 ? "\n" : " ")
+                        .append(run[0] + 2 * i).append(" 0 R");
+                write(sb);
+            }
+        }
+        write("\n] >>\nendobj\n");
+        
+        long xref;
+        if ( previous < 0 ) {
+            begin(CATALOG);
+            write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+            
+            xref = position;
+            write("xref\n0 " + nextObject + "\n0000000000 65535 f \n");
+            for ( int object = 1; object < base; object++ ) {
+                writeOffset(fixed[object]);
+            }
+        } else {
+            xref = position;
+            write("xref\n" + PAGES + " 1\n");
+            writeOffset(fixed[PAGES]);
+            write(base + " " + (nextObject - base) + "\n");
+        }
+        for ( int object = base; object < nextObject; object++ ) {
+            writeOffset(offsets[object - base]);
+        }
+        
+        write("trailer\n<< /Size " + nextObject + " /Root " + CATALOG 
+                + " 0 R /Info " + INFO + " 0 R" 
+                + (previous < 0 ? "" : " /Prev " + previous) 
+                + " >>\nstartxref\n" + xref + "\n%%EOF\n");
+        flush();
+        complete = true;
+        
+        return xref;
+    }
+    
+    /**
+     * Writes a page, with its compressed content stream.
+     */
+    private void writePage(byte[] content, int offset, int length) 
+            throws IOException {
+        if ( finished ) {
+            throw new IllegalStateException("The document is finished.");
+        }
+        
+        int page = nextObject;
+        nextObject += 2;
+        
+        // The pages are kept as runs of page objects, two apart.
+        int[] run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+        if ( run != null && run[0] + 2 * run[1] == page ) {
+            run[1]++;
+        } else {
+            runs.add(new int[] { page, 1 });
+        }
+        
+        begin(page);
+        write("<< /Type /Page /Parent " + PAGES + " 0 R /Contents " 
+                + (page + 1) + " 0 R >>\nendobj\n");
+        begin(page + 1);
+        write("<< /Length " + length + " /Filter /FlateDecode >>\n"
+                + "stream\n");
+        write(content, offset, length);
+        write("\nendstream\nendobj\n");
+        
+        pageCount++;
+    }
+    
+    /**
+     * Records the offset of the object and writes its header.
+     */
+    private void begin(int object) throws IOException {
+        if ( object < base ) {
+            fixed[object] = position;
+        } else {
+            if ( object - base >= offsets.length ) {
+                offsets = Arrays.copyOf(offsets, Math.max(object - base + 1, 
+                        offsets.length * 2));
+            }
+            offsets[object - base] = position;
+        }
+        
+        write(object + " 0 obj\n");
+    }
+    
+    private void writeOffset(long offset) throws IOException {
+        write(String.format(Locale.ROOT, "%010d 00000 n \n", offset));
+    }
+    
+    private void write(CharSequence text) throws IOException {
+        for ( int i = 0; i < text.length(); i++ ) {
+            if ( !out.hasRemaining() ) {
+                flush();
+            }
+            out.put((byte)text.charAt(i));
+        }
+        position += text.length();
+    }
+    
+    private void write(byte[] bytes, int offset, int length) 
+            throws IOException {
+        while ( length > 0 ) {
+            if ( !out.hasRemaining() ) {
+                flush();
+            }
+            
+            int n = Math.min(length, out.remaining());
+            out.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+            position += n;
+        }
+    }
+    
+    private void flush() throws IOException {
+        out.flip();
+        while ( out.hasRemaining() ) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+    
+    //</editor-fold>
+
+}
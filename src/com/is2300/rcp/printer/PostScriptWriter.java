@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import static com.is2300.rcp.printer.PdfPageEncoder.number;
+import java.awt.Font;
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.PrinterException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobName;
+
+/**
+ * `PostScriptWriter` writes a `TextDocument` as DSC-conformant PostScript, 
+ * straight from the lines of its pages, instead of having Java2D draw each
+ * page. The Java2D print system often sends a page of text as an image, so
+ * that a few pages make a very large spool file; this writer defines the font
+ * and a procedure for a line once, in the prolog, and then puts out each line
+ * as a string and a `show`, so that the size of the output, and the time it
+ * takes to write, follow the length of the text.
+ * 
+ * The lines are printed in the standard `Courier` font, which every 
+ * PostScript printer has, re-encoded to ISO Latin-1 (see `LiteralString`).
+ * 
+ * ```java
+ * try ( OutputStream out = Files.newOutputStream(path) ) {
+ *     new PostScriptWriter(out, pageFormat).write(document, "My Project");
+ * }
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PostScriptWriter implements PageWriter {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Writer out;
+    private final PageFormat format;
+    private final PageLayout layout;
+    private final StringBuilder buffer;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a writer that puts the PostScript out to the given stream. The
+     * stream is not closed by the writer.
+     * 
+     * @param out       The stream to write to.
+     * @param format    The page format the document was laid out for.
+     * @throws IllegalArgumentException if either parameter is null
+     */
+    public PostScriptWriter(OutputStream out, PageFormat format) {
+        if ( out == null || format == null ) {
+            throw new IllegalArgumentException("No stream or page format "
+                    + "provided.");
+        }
+        
+        this.out = new BufferedWriter(new OutputStreamWriter(out, 
+                StandardCharsets.ISO_8859_1), BUFFER_SIZE);
+        this.format = format;
+        this.layout = PageLayout.of(FormattedPrinter.FONT, format);
+        this.buffer = new StringBuilder(256);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Tells whether the given printer takes PostScript as it is.
+     * 
+     * @param service The printer.
+     * @return `true` if PostScript can be sent to the printer
+     */
+    public static boolean isSupported(PrintService service) {
+        return service != null && service.isDocFlavorSupported(
+                DocFlavor.INPUT_STREAM.POSTSCRIPT);
+    }
+    
+    /**
+     * Sends the document to the printer as one PostScript job. The PostScript
+     * is written to a temporary file first, which is deleted once the printer
+     * has taken the job.
+     * 
+     * @param document      The document to print.
+     * @param service       The printer to print to, which must take 
+     *                      PostScript.
+     * @param attributes    The attributes for the print request.
+     * @param jobName       The name of the job, as shown in the print queue.
+     * @throws PrinterException if the document could not be printed
+     */
+    public static void print(TextDocument document, PrintService service, 
+            PrintRequestAttributeSet attributes, String jobName) 
+            throws PrinterException {
+        PrintRequestAttributeSet request = attributes == null 
+                ? new HashPrintRequestAttributeSet()
+                : new HashPrintRequestAttributeSet(attributes);
+        request.add(new JobName(jobName, Locale.getDefault()));
+        
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("isrcp-", ".ps");
+            try ( OutputStream out = Files.newOutputStream(spool) ) {
+                new PostScriptWriter(out, document.getPageFormat(0))
+                        .write(document, jobName);
+            }
+            
+            try ( InputStream in = Files.newInputStream(spool, 
+                    StandardOpenOption.DELETE_ON_CLOSE) ) {
+                DocPrintJob job = service.createPrintJob();
+                PrintJobWatcher watcher = new PrintJobWatcher(job);
+                job.print(new SimpleDoc(in, DocFlavor.INPUT_STREAM.POSTSCRIPT,
+                        null), request);
+                watcher.waitForDone();
+            }
+        } catch ( IOException | PrintException ex ) {
+            PrinterException failure = new PrinterException(ex.getMessage());
+            failure.initCause(ex);
+            throw failure;
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Writes the whole document, from the header comments to the trailer, and
+     * flushes the stream.
+     * 
+     * @param document  The document, laid out for this writer's page format.
+     * @param title     The title of the document, for the `%%Title` comment.
+     * @throws IOException if the document cannot be written
+     */
+    public void write(TextDocument document, String title) throws IOException {
+        int pages = document.getNumberOfPages();
+        
+        writeProlog(title, pages);
+        
+        for ( int page = 0; page < pages; page++ ) {
+            writePage(document, page);
+        }
+        
+        writeTrailer();
+    }
+    
+    /**
+     * Writes a line of the current page as a string and the `L` procedure,
+     * which shows it and moves down to the next line. An empty line is only
+     * a move down.
+     * 
+     * @param line The line.
+     * @throws IOException if the line cannot be written
+     */
+    @Override
+    public void writeLine(String line) throws IOException {
+        if ( line.isEmpty() ) {
+            out.write("B\n");
+            return;
+        }
+        
+        buffer.setLength(0);
+        LiteralString.append(buffer, line);
+        buffer.append("L\n");
+        
+        out.append(buffer);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    /**
+     * Writes one page of the document, after the prolog and the pages before
+     * it.
+     * 
+     * @param document  The document, laid out for this writer's page format.
+     * @param page      The page, counting from zero.
+     * @throws IOException if the page cannot be written
+     */
+    void writePage(TextDocument document, int page) throws IOException {
+        out.write("%%Page: " + (page + 1) + " " + (page + 1) + "\n");
+        out.write("P\n");
+        document.writePage(this, page);
+        out.write("E\n");
+    }
+    
+    /**
+     * Writes the trailer, after the last page, and flushes the stream.
+     * 
+     * @throws IOException if the trailer cannot be written
+     */
+    void writeTrailer() throws IOException {
+        out.write("%%Trailer\nend\n%%EOF\n");
+        out.flush();
+    }
+    
+    /**
+     * Pushes what has been written so far out to the stream.
+     * 
+     * @throws IOException if the stream cannot be written
+     */
+    void flush() throws IOException {
+        out.flush();
+    }
+    
+    /**
+     * Writes the header comments, the prolog, with the procedures every page
+     * uses, and the setup, which re-encodes the font once for the document.
+     * 
+     * Each page works in the coordinates Java2D lays the page out in, from the
+     * top left of the page, with the y axis pointing down, so the font is
+     * flipped to match.
+     */
+    void writeProlog(String title, int pages) throws IOException {
+        Paper paper = format.getPaper();
+        Font font = layout.getFont();
+        String base = layout.getBaseFont();
+        double[] m = format.getMatrix();
+        
+        out.write("%!PS-Adobe-3.0\n");
+        out.write("%%Title: " + title.replaceAll("[\\p{Cntrl}]", " ") + "\n");
+        out.write("%%Creator: Integrity Solutions Recursive Code Printer\n");
+        out.write("%%Pages: " + pages + "\n");
+        out.write("%%BoundingBox: 0 0 " + Math.round(paper.getWidth()) + " "
+                + Math.round(paper.getHeight()) + "\n");
+        out.write("%%Orientation: " + (format.getOrientation() 
+                == PageFormat.PORTRAIT ? "Portrait" : "Landscape") + "\n");
+        out.write("%%DocumentNeededResources: font " + base + "\n");
+        out.write("%%EndComments\n");
+        
+        out.write("%%BeginProlog\n");
+        out.write("/rcpdict 16 dict def\nrcpdict begin\n");
+        out.write("/X " + number(format.getImageableX()) + " def\n");
+        out.write("/Y0 " + number(format.getImageableY()) + " def\n");
+        out.write("/LH " + layout.getLineHeight() + " def\n");
+        out.write("/P { /pgsave save def 0 " + number(paper.getHeight()) 
+                + " translate 1 -1 scale [" + number(m[0]) + " " 
+                + number(m[1]) + " " + number(m[2]) + " " + number(m[3]) 
+                + " " + number(m[4]) + " " + number(m[5]) + "] concat "
+                + "RF setfont /Y Y0 def } bind def\n");
+        out.write("/L { /Y Y LH add def X Y moveto show } bind def\n");
+        out.write("/B { /Y Y LH add def } bind def\n");
+        out.write("/E { pgsave restore showpage } bind def\n");
+        out.write("end\n%%EndProlog\n");
+        
+        out.write("%%BeginSetup\nrcpdict begin\n");
+        out.write("%%IncludeResource: font " + base + "\n");
+        out.write("/" + base + " findfont dup length dict begin\n"
+                + "  { 1 index /FID ne { def } { pop pop } ifelse } forall\n"
+                + "  /Encoding ISOLatin1Encoding def\n"
+                + "  currentdict\nend\n/RCP-Latin1 exch definefont pop\n");
+        out.write("/RF /RCP-Latin1 findfont [" + number(font.getSize2D()) 
+                + " 0 0 " + number(-font.getSize2D()) + " 0 0] makefont def\n");
+        out.write("%%EndSetup\n");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static void deleteQuietly(Path file) {
+        if ( file == null ) {
+            return;
+        }
+        
+        try {
+            Files.deleteIfExists(file);
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -17,12 +17,11 @@
 
 package com.is2300.rcp.printer;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import com.is2300.rcp.text.LineIndex;
+import com.is2300.rcp.text.SharedHeaders;
+import com.is2300.rcp.text.SourceText;
+import com.is2300.rcp.text.WrappedText;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -43,26 +42,20 @@ public class PrettyPrinter {
     private final char NEW_LINE = '\n';
     private final char TAB = '\t';
     
-    private final String LINE_CONTINUATION = " \u21B5";
-    private final String BLOCK_COMMENT_START = "/*";
-    private final String BLOCK_COMMENT_END = "*/";
+    private final String BLOCK_COMMENT_START = 
+            SharedHeaders.BLOCK_COMMENT_START;
+    private final String BLOCK_COMMENT_END = 
+            SharedHeaders.BLOCK_COMMENT_END;
     private final String BLOCK_COMMENT_DOC = "/**";
     private final String BLOCK_COMMENT_LINE = " * ";
-    private final String LINE_COMMENT = "//";
+    private final String LINE_COMMENT = SharedHeaders.LINE_COMMENT;
     private final String LINE_COMMENT_CONTINUED = "//+";
     
-    private StringBuilder out;
-    private String[] words;
-    
-    private int index;
-    private int wordCount;
     private int pageWidth;
-    private int currentWidth;
     private int charWidth;
     private int lineHeight;
     private int pageCount;
     private int linesPerPage;
-    private int currentLine;
     private int charsPerLine;
     
     private File in;
@@ -107,19 +100,14 @@ public class PrettyPrinter {
     public PrettyPrinter (String inputFilePath, int desiredWidth, 
             int desiredLinesPerPage) {
         this.in = new File(inputFilePath);
-        this.out = new StringBuilder();
-        this.index = 0;
-        this.wordCount = 0;
         this.pageWidth = 0;
-        this.currentWidth = 0;
         this.charWidth = 0;
         this.lineHeight = 0;
         this.pageCount = 0;
         this.linesPerPage = desiredLinesPerPage > 0 ? linesPerPage : 50;
-        this.currentLine = 0;
         this.charsPerLine = desiredWidth > 0 ? desiredWidth : 75;;
         
-        fixText(index);
+        fixText();
     }
     //</editor-fold>
 
@@ -132,83 +120,28 @@ public class PrettyPrinter {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
-    private void fixText(int index) {
-        if ( index > wordCount ) {
-            throw new IllegalArgumentException("Not enough words");
-        }
-        
-        readFile();
-        
-        if ( index < wordCount ) {
-            for ( String word : words ) {
-                if ( currentWidth < charsPerLine ) {
-                    out.append(word).append(" ");
-                    currentWidth += word.length() + 1;
-                    index++;
-                } else {
-                    if ( currentWidth == charsPerLine ) {
-                        out.append("\n").append(word).append(" ");
-                        currentWidth = word.length() + 1;
-                        currentLine++;
-                    } else if ( currentWidth > charsPerLine ) {
-                        String tmp = out.toString().substring(0, 
-                                out.toString().lastIndexOf(" "));
-                        String droppedWord = out.toString().substring(
-                                out.toString().lastIndexOf(" ") + 1);
-                        out = new StringBuilder();
-                        out.append(tmp).append(" ").append(LINE_CONTINUATION).append("\n");
-                        out.append(droppedWord).append(" ").append(word).append(" ");
-                        currentWidth = droppedWord.length() + word.length() + 2;
-                        currentLine++;
-                    }
-                }
-            }
-        }
-        
-        writeTempFile();
-    }
-    
-    private void readFile() {
-        try ( BufferedReader in = new BufferedReader(new FileReader(this.in)); ) {
-            StringBuilder sb = new StringBuilder();
-            
-            String line = in.readLine();
-            while ( line != null ) {
-                sb.append(line);
-                line = in.readLine();
-            } 
-            
-            in.close();
-            
-            String fileText = sb.toString(); //.replaceAll("\\s+", " ");
-            words = fileText.split(" ");
-            wordCount = words.length;
+    /**
+     * Wraps the lines of the file that are too long, keeping its own line 
+     * breaks, and prints the wrapped text. The file is read once, and the text
+     * goes straight to the printer.
+     */
+    private void fixText() {
+        try {
+            print(new WrappedText(LineIndex.of(this.in.toPath()), 
+                    charsPerLine, PageLayout.LINE_CONTINUATION));
         } catch (IOException ex) {
             Logger.getLogger(PrettyPrinter.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
     
-    private void writeTempFile() {
+    private void print(SourceText text) {
+        FormattedPrinter printer = new FormattedPrinter(in.getPath(), text);
         try {
-            File tmpFile = File.createTempFile("prn", "txt");
-            FileWriter fw = new FileWriter(tmpFile);
-            BufferedWriter out = new BufferedWriter(fw);
-            
-            out.write(this.out.toString());
-            
-            out.close();
-            fw.close();
-            
-            print(tmpFile.getAbsolutePath());
-        } catch (IOException ex) {
-            Logger.getLogger(PrettyPrinter.class.getName()).log(Level.SEVERE, null, ex);
+            printer.actionPerformed(null);
+        } finally {
+            printer.close();
         }
     }
-    
-    private void print(String pathOfFileToPrint) {
-        FormattedPrinter printer = new FormattedPrinter(pathOfFileToPrint);
-        printer.actionPerformed(null);
-    }
     //</editor-fold>
 
 }
@@ -17,10 +17,16 @@
 
 package com.is2300.rcp.printer;
 
+import com.is2300.rcp.enums.ContentKind;
+import com.is2300.rcp.text.ContentClassifier;
+import com.is2300.rcp.walker.FilePlan;
+import com.is2300.rcp.walker.PlannedFile;
+import com.is2300.rcp.walker.TreeWalker;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import javax.print.Doc;
 import javax.print.DocFlavor;
 import javax.print.DocPrintJob;
@@ -37,8 +43,9 @@ import javax.print.attribute.standard.Sides;
 /**
  * `PrintSetup` is the primary class for printing out project code files, or any
  * other types of files that are needed. The difference here is that this class
- * will recursively call its `print(String pathToFiles, FileFilter filter)`
- * method whenever it encounters a folder in the path. In this way, a person is
+ * will walk the whole tree below the path given to its `print(String 
+ * pathToFiles, FileFilter filter)` method, one time, with the `TreeWalker`,
+ * and then print every file in the resulting plan. In this way, a person is
  * able to print all files of the type specified in the parameter `FileFilter
  * filter`, without the need of printing each folder's worth of files, one 
  * folder at a time.
@@ -118,39 +125,52 @@ public class PrintSetup {
         File file = new File(pathToFiles);
         
         if ( file.isDirectory() ) {
-            for ( File f : file.listFiles(filter) ) {
-                if ( f.isDirectory() ) {
-                    print(f.getAbsolutePath(), filter);
-                } else {
-                    FormattedPrinter printer = new FormattedPrinter(f.getAbsolutePath());
-                    
-                    DocFlavor docFmt = DocFlavor.INPUT_STREAM.AUTOSENSE;
-                    Doc prnDoc = null;
-                    try {
-                        prnDoc = new SimpleDoc(new FileInputStream(f), docFmt, null);
-                    } catch ( FileNotFoundException ex ) {
-                        System.err.println("File to print not found...");
-                    }
-                    if ( prnDoc == null ) {
-                        return false;
-                    }
-                    
-                    PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
-                    attributes.add(new Copies(1));
-                    attributes.add(MediaSize.NA.LETTER);
-                    attributes.add(Sides.DUPLEX);
-                    
-                    PrintService[] services = PrintServiceLookup.lookupPrintServices(docFmt, attributes);                    
-                    if ( services.length > 0 ) {
-                    DocPrintJob job = services[0].createPrintJob();
-                        try {
-                            job.print(prnDoc, attributes);
-                            printCount++;
-                        } catch ( PrintException ex ) {
-                            System.err.println(ex);
-                            ex.printStackTrace(System.err);
-                        }
-                    }
+            FilePlan plan;
+            try {
+                plan = TreeWalker.walk(file.toPath(), filter);
+            } catch ( IOException ex ) {
+                System.err.println(ex.getMessage());
+                ex.printStackTrace(System.err);
+                return false;
+            }
+            
+            DocFlavor docFmt = DocFlavor.INPUT_STREAM.AUTOSENSE;
+            PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
+            attributes.add(new Copies(1));
+            attributes.add(MediaSize.NA.LETTER);
+            attributes.add(Sides.DUPLEX);
+            
+            PrintService[] services = PrintServiceLookup.lookupPrintServices(docFmt, attributes);
+            if ( services.length == 0 ) {
+                return false;
+            }
+            
+            ContentClassifier classifier = ContentClassifier.DEFAULT;
+            for ( PlannedFile f : plan.getFiles() ) {
+                // The printer is sent the raw bytes, so anything that is not
+                // plain text is left out.
+                if ( !isPrintable(classifier, f) ) {
+                    continue;
+                }
+                
+                Doc prnDoc = null;
+                try {
+                    prnDoc = new SimpleDoc(new FileInputStream(f.getPath().toFile()), docFmt, null);
+                } catch ( FileNotFoundException ex ) {
+                    System.err.println("File to print not found...");
+                }
+                if ( prnDoc == null ) {
+                    return false;
+                }
+                
+                DocPrintJob job = services[0].createPrintJob();
+                try {
+                    job.print(prnDoc, attributes);
+                    printCount++;
+                    printed = true;
+                } catch ( PrintException ex ) {
+                    System.err.println(ex);
+                    ex.printStackTrace(System.err);
                 }
             }
         } else { 
@@ -170,6 +190,26 @@ public class PrintSetup {
         return true;
     }
     
+    private static boolean isPrintable(ContentClassifier classifier, 
+            PlannedFile file) {
+        try {
+            ContentClassifier.Result result = classifier.classify(
+                    file.getPath());
+            
+            if ( result.getKind() != ContentKind.TEXT ) {
+                System.out.println("Skipped: " + file.getPath() + " is " 
+                        + result);
+                return false;
+            }
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+            return false;
+        }
+        
+        return true;
+    }
+    
     private static boolean printFile(File file) {
         System.out.println(file.getAbsolutePath());
         
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.printer;
+
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.print.PrintService;
+import javax.print.attribute.PrintRequestAttributeSet;
+
+/**
+ * `ProjectPageable` joins the files of a project into a single document, so 
+ * that the whole project can be sent to the printer as one job, instead of one
+ * job for each file. The pages are numbered straight through the document, 
+ * and the page each file starts on is kept, i.e., for a table of contents.
+ * 
+ * The files are added in the order they are to be printed, and each one is 
+ * laid out as it is added. Only one file's text is held at a time: each file
+ * is suspended (see `FormattedPrinter.suspend`) once the next one has been 
+ * added, and while the pages of another file are printed, so that a job the
+ * size of the whole project only holds the number of pages of each file.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ProjectPageable implements TextDocument {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final PageFormat pageFormat;
+    private final List<FormattedPrinter> files;
+    
+    private int[] offsets;
+    private int pageCount;
+    private int open;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an empty document, to be printed on the given page format.
+     * 
+     * @param pageFormat The page format for every page of the document.
+     * @throws IllegalArgumentException if `pageFormat` is null
+     */
+    public ProjectPageable(PageFormat pageFormat) {
+        if ( pageFormat == null ) {
+            throw new IllegalArgumentException("No page format provided.");
+        }
+        
+        this.pageFormat = pageFormat;
+        this.files = new ArrayList<>();
+        this.offsets = new int[16];
+        this.open = -1;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a file to the end of the document, laying it out if needed.
+     * 
+     * @param file The printer for the file.
+     * @return int the page, counting from zero, the file starts on
+     * @throws IllegalArgumentException if `file` is null
+     */
+    public int add(FormattedPrinter file) {
+        if ( file == null ) {
+            throw new IllegalArgumentException("No file provided.");
+        }
+        
+        file.layout(pageFormat);
+        
+        if ( files.size() == offsets.length ) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        
+        int first = pageCount;
+        offsets[files.size()] = first;
+        files.add(file);
+        pageCount += file.getPageCount();
+        use(files.size() - 1);
+        
+        return first;
+    }
+    
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    /**
+     * Retrieves the page, counting from zero, the given file starts on.
+     * 
+     * @param file The file, in the order it was added, counting from zero.
+     * @return int the first page of the file
+     * @throws IndexOutOfBoundsException if there is no such file
+     */
+    public int getFirstPage(int file) {
+        if ( file < 0 || file >= files.size() ) {
+            throw new IndexOutOfBoundsException("File " + file + " of " 
+                    + files.size());
+        }
+        
+        return offsets[file];
+    }
+    
+    /**
+     * Retrieves the given file.
+     * 
+     * @param file The file, in the order it was added, counting from zero.
+     * @return File the file
+     * @throws IndexOutOfBoundsException if there is no such file
+     */
+    public File getFile(int file) {
+        return files.get(file).getFile();
+    }
+    
+    /**
+     * Retrieves the file the given page belongs to.
+     * 
+     * @param page The page, counting from zero.
+     * @return int the file, in the order it was added, counting from zero
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public int getFileOf(int page) {
+        if ( page < 0 || page >= pageCount ) {
+            throw new IndexOutOfBoundsException("Page " + page + " of " 
+                    + pageCount);
+        }
+        
+        int found = Arrays.binarySearch(offsets, 0, files.size(), page);
+        
+        if ( found < 0 ) {
+            return -found - 2;
+        }
+        
+        // Files with no pages share their offset with the file after them.
+        while ( found + 1 < files.size() && offsets[found + 1] == page ) {
+            found++;
+        }
+        
+        return found;
+    }
+    
+    @Override
+    public void writePage(PageWriter out, int pageIndex) throws IOException {
+        int file = getFileOf(pageIndex);
+        
+        use(file).writePage(out, pageIndex - offsets[file]);
+    }
+    
+    @Override
+    public void print(PrintService service, PrintRequestAttributeSet attributes,
+            String jobName) throws PrinterException {
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintService(service);
+        job.setPageable(this);
+        job.setJobName(jobName);
+        job.print(attributes);
+    }
+    
+    @Override
+    public int getNumberOfPages() {
+        return pageCount;
+    }
+    
+    @Override
+    public PageFormat getPageFormat(int pageIndex) {
+        return pageFormat;
+    }
+    
+    @Override
+    public Printable getPrintable(int pageIndex) {
+        int file = getFileOf(pageIndex);
+        int offset = offsets[file];
+        
+        return (graphics, format, page) -> use(file).print(graphics, format, 
+                page - offset);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Retrieves the given file to be printed, suspending the file that was
+     * being printed before it.
+     */
+    private synchronized FormattedPrinter use(int file) {
+        if ( file != open ) {
+            if ( open >= 0 ) {
+                files.get(open).suspend();
+            }
+            open = file;
+        }
+        
+        return files.get(file);
+    }
+    //</editor-fold>
+
+}
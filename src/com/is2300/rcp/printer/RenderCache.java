@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import com.is2300.rcp.manifest.ContentHash;
+import java.awt.print.PageFormat;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * `RenderCache` keeps the rendered pages of the files that were printed to 
+ * PDF, as `PdfFragment`s, in a folder on disk, so that when a project is 
+ * printed again, such as for a second copy or after a paper jam, the files 
+ * that have not changed are written from the cache, without being read, laid
+ * out or rendered again.
+ * 
+ * Each fragment is kept under a key made from the fingerprint and size of 
+ * the file's content (see `ContentHash`), the way its text is changed before
+ * printing, such as a collapsed header, the page format, font and compression
+ * level, and the settings that change how a file is read: the `charset.*`,
+ * `classify.*` and `notebook.*` properties. A change to any of these makes a
+ * new key, and the old fragment is simply never asked for again.
+ * 
+ * The cache is kept under `render.cache.bytes` (256 MB by default; `0` turns
+ * the cache off) by removing the fragments that were used the longest ago. 
+ * The last use of a fragment is the time of its file, so that the order 
+ * carries over from one run to the next. The folder is `render.cache.folder`,
+ * or `.isrcp/render-cache` in the user's home folder.
+ * 
+ * ```java
+ * RenderCache cache = RenderCache.fromProperties(props, pageFormat);
+ * String key = cache.key(path, headers.describe(path));
+ * PdfFragment fragment = cache.get(key);
+ * 
+ * if ( fragment == null ) {
+ *     fragment = PdfFragment.render(document);
+ *     cache.put(key, fragment);
+ * }
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class RenderCache {
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final long DEFAULT_BYTES = 256L * 1024 * 1024;
+    private static final String EXTENSION = ".pdfrag";
+    private static final int MAGIC = 0x52435031;   // "RCP1"
+    private static final String[] SETTINGS = { "charset.", "classify.", 
+        "notebook." };
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path folder;
+    private final long maxBytes;
+    private final String layout;
+    private final Map<String, Long> entries;
+    private final AtomicInteger hits;
+    private final AtomicInteger misses;
+    
+    private long bytes;
+    private boolean indexed;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a `RenderCache` for fragments rendered for the page format.
+     * 
+     * @param folder    The folder to keep the fragments in.
+     * @param maxBytes  The most bytes to keep, or zero for no cache at all.
+     * @param format    The page format the fragments are rendered for.
+     * @param settings  The settings that change the text printed for a file.
+     * @throws IllegalArgumentException if `folder` or `format` is null
+     */
+    public RenderCache(Path folder, long maxBytes, PageFormat format, 
+            String settings) {
+        if ( folder == null ) {
+            throw new IllegalArgumentException("No cache folder provided.");
+        }
+        if ( format == null ) {
+            throw new IllegalArgumentException("No page format provided.");
+        }
+        
+        this.folder = folder;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.layout = String.join("|", FormattedPrinter.FONT.getName(), 
+                Integer.toString(FormattedPrinter.FONT.getStyle()),
+                Integer.toString(FormattedPrinter.FONT.getSize()),
+                Double.toString(format.getWidth()), 
+                Double.toString(format.getHeight()),
+                Double.toString(format.getImageableX()), 
+                Double.toString(format.getImageableY()),
+                Double.toString(format.getImageableWidth()), 
+                Double.toString(format.getImageableHeight()),
+                Integer.toString(format.getOrientation()),
+                Integer.toString(PdfWriter.LEVEL), 
+                settings == null ? "" : settings);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates a `RenderCache` configured from the `render.cache.*` 
+     * properties, keyed on the settings in `props` that change the text 
+     * printed for a file.
+     * 
+     * @param props     The properties to read the settings from; may be 
+     *                  `null`.
+     * @param format    The page format the fragments are rendered for.
+     * @return RenderCache as configured
+     */
+    public static RenderCache fromProperties(Properties props, 
+            PageFormat format) {
+        String folder = props == null ? null 
+                : props.getProperty("render.cache.folder");
+        long maxBytes = DEFAULT_BYTES;
+        String value = props == null ? null 
+                : props.getProperty("render.cache.bytes");
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                maxBytes = Long.parseLong(value.trim());
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for render.cache.bytes: " 
+                        + value);
+            }
+        }
+        
+        // Sorted, so that the same settings always make the same key.
+        Map<String, String> settings = new TreeMap<>();
+        if ( props != null ) {
+            for ( String key : props.stringPropertyNames() ) {
+                for ( String prefix : SETTINGS ) {
+                    if ( key.startsWith(prefix) ) {
+                        settings.put(key, props.getProperty(key));
+                    }
+                }
+            }
+        }
+        
+        return new RenderCache(folder == null || folder.isBlank()
+                ? Paths.get(System.getProperty("user.home"), ".isrcp", 
+                        "render-cache") 
+                : Paths.get(folder.trim()), maxBytes, format, 
+                settings.toString());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+    
+    public int getHits() {
+        return hits.get();
+    }
+    
+    public int getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Works out the key for the pages of a file. The file's content is read
+     * to fingerprint it, which costs far less than laying it out.
+     * 
+     * @param file      The file.
+     * @param variant   Anything else that changes the text printed for the
+     *                  file, such as the header collapsed from it.
+     * @return String key for the file's pages
+     * @throws IOException if the file cannot be read
+     */
+    public String key(Path file, String variant) throws IOException {
+        String key = String.join("\n", ContentHash.of(file), 
+                Long.toString(Files.size(file)), file.toString(), 
+                variant == null ? "" : variant, layout);
+        MessageDigest sha;
+        
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch ( NoSuchAlgorithmException ex ) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+        
+        StringBuilder sb = new StringBuilder(64);
+        for ( byte b : sha.digest(key.getBytes(StandardCharsets.UTF_8)) ) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Reads the fragment kept under the key, marking it as the one used 
+     * last. A fragment that cannot be read is removed from the cache.
+     * 
+     * @param key   The key; see `key`.
+     * @return PdfFragment kept under the key, or `null` if there is none
+     */
+    public PdfFragment get(String key) {
+        if ( !isEnabled() || !contains(key) ) {
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        Path file = folder.resolve(key + EXTENSION);
+        try {
+            PdfFragment fragment = read(Files.readAllBytes(file));
+            
+            if ( fragment != null ) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(
+                        System.currentTimeMillis()));
+                hits.incrementAndGet();
+                return fragment;
+            }
+            System.err.println("Removing a damaged fragment: " + file);
+        } catch ( NoSuchFileException ex ) {
+            // Removed by another run; rendering it again puts it back.
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+        
+        remove(key);
+        misses.incrementAndGet();
+        return null;
+    }
+    
+    /**
+     * Keeps the fragment under the key, removing the fragments used the 
+     * longest ago if the cache has grown too large. A fragment that cannot be
+     * written is only reported, as the job does not need it.
+     * 
+     * @param key       The key; see `key`.
+     * @param fragment  The fragment to keep.
+     */
+    public void put(String key, PdfFragment fragment) {
+        int pages = fragment.getPageCount();
+        int size = pages == 0 ? 0 : fragment.getEnd(pages - 1);
+        long length = 8L + 4L * pages + size;
+        
+        if ( !isEnabled() || length > maxBytes ) {
+            return;
+        }
+        
+        Path file = folder.resolve(key + EXTENSION);
+        Path tmp = folder.resolve(key + "." + Thread.currentThread().getId() 
+                + ".tmp");
+        try {
+            index();
+            try ( DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp))) ) {
+                out.writeInt(MAGIC);
+                out.writeInt(pages);
+                for ( int page = 0; page < pages; page++ ) {
+                    out.writeInt(fragment.getEnd(page));
+                }
+                out.write(fragment.getContent(), 0, size);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+            delete(tmp);
+            return;
+        }
+        
+        for ( Path old : add(key, length) ) {
+            delete(old);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private synchronized boolean contains(String key) {
+        index();
+        return entries.get(key) != null;
+    }
+    
+    private synchronized void remove(String key) {
+        Long length = entries.remove(key);
+        
+        if ( length != null ) {
+            bytes -= length;
+            delete(folder.resolve(key + EXTENSION));
+        }
+    }
+    
+    /**
+     * Records a new fragment, and lets go of the fragments used the longest
+     * ago until the cache fits, returning their files to be deleted.
+     */
+    private synchronized List<Path> add(String key, long length) {
+        Long old = entries.put(key, length);
+        bytes += length - (old == null ? 0 : old);
+        
+        return trim(key);
+    }
+    
+    /**
+     * Lets go of the fragments used the longest ago, other than the one 
+     * under `keep`, until the cache fits, returning their files.
+     */
+    private synchronized List<Path> trim(String keep) {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        
+        while ( bytes > maxBytes && it.hasNext() ) {
+            Map.Entry<String, Long> e = it.next();
+            
+            if ( !e.getKey().equals(keep) ) {
+                bytes -= e.getValue();
+                evicted.add(folder.resolve(e.getKey() + EXTENSION));
+                it.remove();
+            }
+        }
+        
+        return evicted;
+    }
+    
+    /**
+     * Lists the fragments in the folder, the first time the cache is used, 
+     * from the one used the longest ago to the one used last.
+     */
+    private synchronized void index() {
+        if ( indexed ) {
+            return;
+        }
+        indexed = true;
+        
+        List<Object[]> found = new ArrayList<>();
+        try {
+            Files.createDirectories(folder);
+            
+            try ( DirectoryStream<Path> dir = Files.newDirectoryStream(folder,
+                    "*" + EXTENSION) ) {
+                for ( Path file : dir ) {
+                    found.add(new Object[] { file, 
+                            Files.getLastModifiedTime(file).toMillis(), 
+                            Files.size(file) });
+                }
+            }
+        } catch ( IOException ex ) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+        
+        found.sort((a, b) -> Long.compare((Long) a[1], (Long) b[1]));
+        for ( Object[] f : found ) {
+            String name = ((Path) f[0]).getFileName().toString();
+            long length = (Long) f[2];
+            
+            entries.put(name.substring(0, name.length() - EXTENSION.length()),
+                    length);
+            bytes += length;
+        }
+        // The limit may have been lowered since the last run.
+        for ( Path old : trim(null) ) {
+            delete(old);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    /**
+     * Reads a fragment as it was written by `put`, or returns `null` if the
+     * bytes are not a whole fragment.
+     */
+    private static PdfFragment read(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        
+        if ( data.length < 8 || in.getInt() != MAGIC ) {
+            return null;
+        }
+        
+        int pages = in.getInt();
+        if ( pages < 0 || in.remaining() < 4L * pages ) {
+            return null;
+        }
+        
+        int[] ends = new int[pages];
+        int end = 0;
+        for ( int page = 0; page < pages; page++ ) {
+            ends[page] = in.getInt();
+            
+            if ( ends[page] < end ) {
+                return null;
+            }
+            end = ends[page];
+        }
+        
+        if ( in.remaining() != end ) {
+            return null;
+        }
+        
+        byte[] content = new byte[end];
+        in.get(content);
+        
+        return new PdfFragment(content, ends);
+    }
+    
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch ( IOException ex ) {
+            // Left for the next run to remove.
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * `SpoolSize` is the size, in bytes, of a document as one of the backends
+ * would write it, found by writing the document to a stream that only counts
+ * the bytes, so that it is exact without anything being written to disk.
+ * 
+ * The size is given for each page, as the bytes the backend writes for that
+ * page alone, and for the document, as the bytes it writes for the document
+ * as a whole: the header and prolog, and, for a PDF, the page tree and the
+ * cross-reference table. Together, they add up to the size of the file.
+ * 
+ * ```java
+ * SpoolSize size = SpoolSize.ofPdf(document, "My Project");
+ * long first = size.getPageBytes(0);
+ * long total = size.getTotalBytes();
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class SpoolSize {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final long[] pages;
+    private final long document;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private SpoolSize(long[] pages, long total) {
+        long sum = 0;
+        for ( long page : pages ) {
+            sum += page;
+        }
+        
+        this.pages = pages;
+        this.document = total - sum;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Measures the document as `PdfWriter` would write it to a new file.
+     * 
+     * @param document  The document, laid out for the page format it is to
+     *                  be written with.
+     * @param title     The title of the document.
+     * @return SpoolSize of the PDF file
+     * @throws IOException if a page cannot be read
+     * @throws IllegalArgumentException if `document` is null
+     */
+    public static SpoolSize ofPdf(TextDocument document, String title) 
+            throws IOException {
+        if ( document == null ) {
+            throw new IllegalArgumentException("No document provided.");
+        }
+        
+        long[] pages = new long[document.getNumberOfPages()];
+        long total;
+        
+        try ( PdfWriter pdf = new PdfWriter(Channels.newChannel(
+                OutputStream.nullOutputStream()), 
+                document.getPageFormat(0)) ) {
+            for ( int page = 0; page < pages.length; page++ ) {
+                long start = pdf.getPosition();
+                pdf.writePage(document, page);
+                pages[page] = pdf.getPosition() - start;
+            }
+            
+            pdf.finish(title);
+            total = pdf.getPosition();
+        }
+        
+        return new SpoolSize(pages, total);
+    }
+    
+    /**
+     * Measures the document as `PostScriptWriter` would write it.
+     * 
+     * @param document  The document, laid out for the page format it is to
+     *                  be written with.
+     * @param title     The title of the document.
+     * @return SpoolSize of the PostScript
+     * @throws IOException if a page cannot be read
+     * @throws IllegalArgumentException if `document` is null
+     */
+    public static SpoolSize ofPostScript(TextDocument document, String title)
+            throws IOException {
+        if ( document == null ) {
+            throw new IllegalArgumentException("No document provided.");
+        }
+        
+        long[] pages = new long[document.getNumberOfPages()];
+        CountingStream count = new CountingStream();
+        PostScriptWriter ps = new PostScriptWriter(count, 
+                document.getPageFormat(0));
+        
+        ps.writeProlog(title, pages.length);
+        for ( int page = 0; page < pages.length; page++ ) {
+            ps.flush();
+            long start = count.bytes;
+            ps.writePage(document, page);
+            ps.flush();
+            pages[page] = count.bytes - start;
+        }
+        ps.writeTrailer();
+        
+        return new SpoolSize(pages, count.bytes);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public int getPageCount() {
+        return pages.length;
+    }
+    
+    /**
+     * Retrieves the bytes written for the given page alone.
+     * 
+     * @param page The page, counting from zero.
+     * @return long number of bytes
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public long getPageBytes(int page) {
+        return pages[page];
+    }
+    
+    /**
+     * Retrieves the bytes written for the document as a whole, besides its
+     * pages.
+     * 
+     * @return long number of bytes
+     */
+    public long getDocumentBytes() {
+        return document;
+    }
+    
+    public long getTotalBytes() {
+        long total = document;
+        for ( long page : pages ) {
+            total += page;
+        }
+        
+        return total;
+    }
+    //</editor-fold>
+
+    /**
+     * A stream that throws its bytes away, and counts them.
+     */
+    private static final class CountingStream extends OutputStream {
+        private long bytes;
+        
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.printer;
+
+import java.awt.print.Pageable;
+import java.awt.print.PrinterException;
+import java.io.IOException;
+import javax.print.PrintService;
+import javax.print.attribute.PrintRequestAttributeSet;
+
+/**
+ * A `TextDocument` is a document of text pages that can be printed through
+ * Java2D, as a `Pageable`, or have the lines of each page written out by a
+ * `PageWriter`, so that a backend can produce its own output from the text
+ * without drawing it.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public interface TextDocument extends Pageable {
+    
+    /**
+     * Writes the lines of the given page.
+     * 
+     * @param out       The writer to write the lines to.
+     * @param pageIndex The page, counting from zero.
+     * @throws IOException if the lines cannot be written
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    void writePage(PageWriter out, int pageIndex) throws IOException;
+    
+    /**
+     * Sends the document to the printer as one job, through Java2D, without
+     * showing the print dialog.
+     * 
+     * @param service       The printer to print to.
+     * @param attributes    The attributes for the print request.
+     * @param jobName       The name of the job, as shown in the print queue.
+     * @throws PrinterException if the document could not be printed
+     */
+    void print(PrintService service, PrintRequestAttributeSet attributes,
+            String jobName) throws PrinterException;
+    
+}
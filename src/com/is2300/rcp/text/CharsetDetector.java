@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * `CharsetDetector` works out the encoding of a source file from its bytes, so
+ * that files are no longer read with the platform's default encoding. In 
+ * order, it:
+ * 
+ * 1. looks for a byte order mark, for UTF-8, UTF-16 and UTF-32;
+ * 2. checks whether the bytes are valid UTF-8, eight bytes at a time while 
+ *    they are plain ASCII, which is most of any source file;
+ * 3. tries each of the fallback encodings in turn, taking the first one that 
+ *    decodes the bytes without error.
+ * 
+ * The fallback encodings are set by the `charset.fallback` property, as a 
+ * comma-separated list, and default to `windows-1252, ISO-8859-1`. Since every
+ * byte is valid in ISO-8859-1, the last fallback is used, with bad input 
+ * replaced, if none of them fit.
+ * 
+ * Decoders are costly to create, so each thread keeps one decoder for each 
+ * encoding it has used, and `decoder` hands that one out again each time.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class CharsetDetector {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The fallback encodings used when none are configured. */
+    public static final String DEFAULT_FALLBACK = "windows-1252, ISO-8859-1";
+    
+    /** A detector using the default fallback encodings. */
+    public static final CharsetDetector DEFAULT = new CharsetDetector(
+            DEFAULT_FALLBACK);
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final int ASCII = 1;
+    private static final int UTF_8 = 2;
+    private static final int INVALID = 0;
+    
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODERS = 
+            ThreadLocal.withInitial(HashMap::new);
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final List<Charset> fallbacks;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a detector with the given fallback encodings.
+     * 
+     * @param fallbacks The names of the encodings to try when a file is not
+     *                  UTF-8, separated by commas.
+     */
+    public CharsetDetector(String fallbacks) {
+        this.fallbacks = new ArrayList<>();
+        
+        if ( fallbacks != null ) {
+            for ( String name : fallbacks.split(",") ) {
+                if ( name.isBlank() ) {
+                    continue;
+                }
+                
+                try {
+                    this.fallbacks.add(Charset.forName(name.trim()));
+                } catch ( IllegalArgumentException ex ) {
+                    System.err.println("Unknown charset in charset.fallback: "
+                            + name.trim());
+                }
+            }
+        }
+        
+        if ( this.fallbacks.isEmpty() ) {
+            this.fallbacks.add(StandardCharsets.ISO_8859_1);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates a detector configured from the `charset.fallback` property.
+     * 
+     * @param props The properties to read the setting from; may be `null`.
+     * @return CharsetDetector as configured
+     */
+    public static CharsetDetector fromProperties(Properties props) {
+        String value = props == null ? null 
+                : props.getProperty("charset.fallback");
+        
+        return value == null || value.isBlank() ? DEFAULT 
+                : new CharsetDetector(value);
+    }
+    
+    /**
+     * Retrieves this thread's decoder for the given encoding, reset and set to
+     * replace any bad input.
+     * 
+     * @param charset The encoding.
+     * @return CharsetDecoder for the encoding, only to be used by this thread
+     */
+    public static CharsetDecoder decoder(Charset charset) {
+        return decoder(charset, CodingErrorAction.REPLACE);
+    }
+    
+    /**
+     * Tells whether line endings, and all other ASCII characters, are single
+     * bytes with the same values in the given encoding as they are in ASCII,
+     * which allows lines to be found without decoding the bytes.
+     * 
+     * @param charset The encoding.
+     * @return `true` if the encoding is compatible with ASCII
+     */
+    public static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name();
+        
+        return !name.startsWith("UTF-16") && !name.startsWith("UTF-32");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Works out the encoding of all of the bytes from the buffer's position to
+     * its limit. The buffer itself is not changed.
+     * 
+     * @param bytes The content of a file.
+     * @return Result of the detection
+     */
+    public Result detect(ByteBuffer bytes) {
+        return detect(bytes, false);
+    }
+    
+    /**
+     * Works out the encoding of a file from the bytes from the buffer's 
+     * position to its limit. The buffer itself is not changed.
+     * 
+     * @param bytes     The content, or the start of the content, of a file.
+     * @param partial   `true` if the bytes are only the start of the file, in
+     *                  which case a character cut off at the end is allowed.
+     * @return Result of the detection
+     */
+    public Result detect(ByteBuffer bytes, boolean partial) {
+        int start = bytes.position();
+        int end = bytes.limit();
+        
+        Result bom = byteOrderMark(bytes, start, end);
+        if ( bom != null ) {
+            return bom;
+        }
+        
+        int utf8 = validateUtf8(bytes, start, end, partial);
+        if ( utf8 == ASCII ) {
+            return new Result(StandardCharsets.UTF_8, 0, "UTF-8 (ASCII)");
+        }
+        if ( utf8 == UTF_8 ) {
+            return new Result(StandardCharsets.UTF_8, 0, "UTF-8");
+        }
+        
+        for ( Charset charset : fallbacks ) {
+            CharsetDecoder decoder = decoder(charset, CodingErrorAction.REPORT);
+            
+            try {
+                decoder.decode(bytes.duplicate());
+                return new Result(charset, 0, charset.name());
+            } catch ( CharacterCodingException ex ) {
+                // Try the next one.
+            }
+        }
+        
+        Charset last = fallbacks.get(fallbacks.size() - 1);
+        return new Result(last, 0, last.name() + " (with errors)");
+    }
+    
+    public List<Charset> getFallbacks() {
+        return new ArrayList<>(fallbacks);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static CharsetDecoder decoder(Charset charset, 
+            CodingErrorAction action) {
+        CharsetDecoder decoder = DECODERS.get().computeIfAbsent(charset, 
+                Charset::newDecoder);
+        
+        return decoder.reset()
+                .onMalformedInput(action)
+                .onUnmappableCharacter(action);
+    }
+    
+    private static Result byteOrderMark(ByteBuffer b, int start, int end) {
+        int length = end - start;
+        int b0 = length > 0 ? b.get(start) & 0xff : -1;
+        int b1 = length > 1 ? b.get(start + 1) & 0xff : -1;
+        int b2 = length > 2 ? b.get(start + 2) & 0xff : -1;
+        int b3 = length > 3 ? b.get(start + 3) & 0xff : -1;
+        
+        if ( b0 == 0xEF && b1 == 0xBB && b2 == 0xBF ) {
+            return new Result(StandardCharsets.UTF_8, 3, "UTF-8 (BOM)");
+        }
+        if ( b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF ) {
+            return new Result(Charset.forName("UTF-32BE"), 4, "UTF-32BE (BOM)");
+        }
+        if ( b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00 ) {
+            return new Result(Charset.forName("UTF-32LE"), 4, "UTF-32LE (BOM)");
+        }
+        if ( b0 == 0xFE && b1 == 0xFF ) {
+            return new Result(StandardCharsets.UTF_16BE, 2, "UTF-16BE (BOM)");
+        }
+        if ( b0 == 0xFF && b1 == 0xFE ) {
+            return new Result(StandardCharsets.UTF_16LE, 2, "UTF-16LE (BOM)");
+        }
+        
+        return null;
+    }
+    
+    private static int validateUtf8(ByteBuffer b, int start, int end, 
+            boolean partial) {
+        boolean ascii = true;
+        int i = start;
+        
+        while ( i < end ) {
+            // Skip over plain ASCII eight bytes at a time.
+            if ( i + 8 <= end && (b.getLong(i) & HIGH_BITS) == 0 ) {
+                i += 8;
+                continue;
+            }
+            
+            int c = b.get(i) & 0xff;
+            if ( c < 0x80 ) {
+                i++;
+                continue;
+            }
+            
+            ascii = false;
+            int following;
+            int low = 0x80;
+            int high = 0xBF;
+            
+            if ( c >= 0xC2 && c <= 0xDF ) {
+                following = 1;
+            } else if ( c >= 0xE0 && c <= 0xEF ) {
+                following = 2;
+                // No overlong forms, and no surrogates.
+                low = c == 0xE0 ? 0xA0 : 0x80;
+                high = c == 0xED ? 0x9F : 0xBF;
+            } else if ( c >= 0xF0 && c <= 0xF4 ) {
+                following = 3;
+                low = c == 0xF0 ? 0x90 : 0x80;
+                high = c == 0xF4 ? 0x8F : 0xBF;
+            } else {
+                return INVALID;
+            }
+            
+            if ( i + following >= end ) {
+                // A character cut off by the end of a sample is fine.
+                return partial ? UTF_8 : INVALID;
+            }
+            
+            int next = b.get(i + 1) & 0xff;
+            if ( next < low || next > high ) {
+                return INVALID;
+            }
+            for ( int k = 2; k <= following; k++ ) {
+                if ( (b.get(i + k) & 0xC0) != 0x80 ) {
+                    return INVALID;
+                }
+            }
+            
+            i += following + 1;
+        }
+        
+        return ascii ? ASCII : UTF_8;
+    }
+    //</editor-fold>
+
+    /**
+     * The outcome of a detection: the encoding, the length of the byte order
+     * mark, if there was one, and a label for the log.
+     */
+    public static final class Result {
+        private final Charset charset;
+        private final int bomLength;
+        private final String label;
+        
+        Result(Charset charset, int bomLength, String label) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+            this.label = label;
+        }
+        
+        public Charset getCharset() {
+            return charset;
+        }
+        
+        /**
+         * Retrieves the number of bytes at the start of the file taken up by
+         * the byte order mark, which are not part of the text.
+         * 
+         * @return int length of the byte order mark; zero if there was none
+         */
+        public int getBomLength() {
+            return bomLength;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+}
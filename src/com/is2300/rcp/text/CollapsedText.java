@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.text;
+
+/**
+ * `CollapsedText` is the text of a file with the lines at its start, such as
+ * a license header, replaced by a single line. The rest of the lines are 
+ * taken from the file's own text, which is closed along with this one.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class CollapsedText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final SourceText source;
+    private final int skipped;
+    private final String replacement;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates the text of a file with its first lines collapsed.
+     * 
+     * @param source        The file's text.
+     * @param lines         The number of lines at the start to collapse.
+     * @param replacement   The line printed in their place.
+     * @throws IllegalArgumentException if `source` or `replacement` is null, 
+     *          or `lines` is out of range
+     */
+    public CollapsedText(SourceText source, int lines, String replacement) {
+        if ( source == null || replacement == null ) {
+            throw new IllegalArgumentException("No text or replacement "
+                    + "provided.");
+        }
+        if ( lines < 1 || lines > source.size() ) {
+            throw new IllegalArgumentException("Cannot collapse " + lines 
+                    + " of " + source.size() + " lines.");
+        }
+        
+        this.source = source;
+        this.skipped = lines - 1;
+        this.replacement = replacement;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return source.size() - skipped;
+    }
+    
+    @Override
+    public String line(int line) {
+        return line == 0 ? replacement : source.line(line + skipped);
+    }
+    
+    @Override
+    public int length(int line) {
+        return line == 0 ? replacement.length() 
+                : source.length(line + skipped);
+    }
+    
+    @Override
+    public String getEncoding() {
+        return source.getEncoding();
+    }
+    
+    @Override
+    public void window(int first, int end) {
+        source.window(first + skipped, end + skipped);
+    }
+    
+    @Override
+    public void close() {
+        source.close();
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import com.is2300.rcp.enums.ContentKind;
+import com.is2300.rcp.enums.ContentPolicy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * `ContentClassifier` keeps junk out of a print job. It reads a bounded sample
+ * from the start of each file, before the file is loaded and laid out, and
+ * looks at three things:
+ * 
+ * * the share of the bytes that are `NUL`, which text files do not have, but
+ *   binary files, even compressed ones, do;
+ * * the average length of the lines;
+ * * the length of the longest line, which for a minified script bundle may be
+ *   the whole file.
+ * 
+ * A file with too many `NUL` bytes is `BINARY`; one whose lines are too long
+ * is `MINIFIED`. Files starting with a UTF-16 or UTF-32 byte order mark are 
+ * always text, as half of their bytes may be `NUL`. What is done with each 
+ * kind of file is set by policy. The settings, and their defaults, are:
+ * 
+ * ```
+ * classify.sample=16384
+ * classify.nul.ratio=0.001
+ * classify.line.average=300
+ * classify.line.max=4000
+ * classify.binary=skip
+ * classify.minified=summary
+ * ```
+ * 
+ * where a policy is one of `print`, `skip`, `summary` or `hexdump`.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class ContentClassifier {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** A classifier with all of the default settings. */
+    public static final ContentClassifier DEFAULT = fromProperties(null);
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int DEFAULT_SAMPLE = 16 * 1024;
+    
+    private static final ThreadLocal<ByteBuffer> BUFFER = 
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(0));
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final int sampleSize;
+    private final double nulRatio;
+    private final int averageLine;
+    private final int maxLine;
+    private final ContentPolicy binaryPolicy;
+    private final ContentPolicy minifiedPolicy;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a classifier with the given limits and policies.
+     * 
+     * @param sampleSize        The number of bytes to sample from each file.
+     * @param nulRatio          The share of `NUL` bytes above which a file is
+     *                          binary.
+     * @param averageLine       The average line length above which a file is
+     *                          minified.
+     * @param maxLine           The line length above which a file is minified.
+     * @param binaryPolicy      What to do with binary files.
+     * @param minifiedPolicy    What to do with minified files.
+     * @throws IllegalArgumentException if `sampleSize` is not positive, or a
+     *          policy is null
+     */
+    public ContentClassifier(int sampleSize, double nulRatio, int averageLine,
+            int maxLine, ContentPolicy binaryPolicy, 
+            ContentPolicy minifiedPolicy) {
+        if ( sampleSize <= 0 ) {
+            throw new IllegalArgumentException("The sample size must be "
+                    + "positive.");
+        }
+        if ( binaryPolicy == null || minifiedPolicy == null ) {
+            throw new IllegalArgumentException("No policy provided.");
+        }
+        
+        this.sampleSize = sampleSize;
+        this.nulRatio = nulRatio;
+        this.averageLine = averageLine;
+        this.maxLine = maxLine;
+        this.binaryPolicy = binaryPolicy;
+        this.minifiedPolicy = minifiedPolicy;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates a classifier configured from the `classify.*` properties, using
+     * the defaults for any that are not set.
+     * 
+     * @param props The properties to read the settings from; may be `null`.
+     * @return ContentClassifier as configured
+     */
+    public static ContentClassifier fromProperties(Properties props) {
+        return new ContentClassifier(
+                (int)number(props, "classify.sample", DEFAULT_SAMPLE),
+                number(props, "classify.nul.ratio", 0.001),
+                (int)number(props, "classify.line.average", 300),
+                (int)number(props, "classify.line.max", 4000),
+                policy(props, "classify.binary", ContentPolicy.SKIP),
+                policy(props, "classify.minified", ContentPolicy.SUMMARY));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Samples the start of the file and works out what kind of content it has.
+     * 
+     * @param file The file to classify.
+     * @return Result of the classification
+     * @throws IOException if the file cannot be read
+     */
+    public Result classify(Path file) throws IOException {
+        ByteBuffer sample = BUFFER.get();
+        if ( sample.capacity() < sampleSize ) {
+            sample = ByteBuffer.allocate(sampleSize);
+            BUFFER.set(sample);
+        }
+        
+        sample.clear().limit(sampleSize);
+        
+        try ( FileChannel in = FileChannel.open(file, 
+                StandardOpenOption.READ) ) {
+            while ( sample.hasRemaining() && in.read(sample) > 0 ) {
+                // Keep reading until the sample is full or the file ends.
+            }
+        }
+        sample.flip();
+        
+        return classify(sample);
+    }
+    
+    /**
+     * Works out what kind of content the sample, from the buffer's position to
+     * its limit, has. The buffer itself is not changed.
+     * 
+     * @param sample The start of a file.
+     * @return Result of the classification
+     */
+    public Result classify(ByteBuffer sample) {
+        int start = sample.position();
+        int end = sample.limit();
+        int length = end - start;
+        
+        if ( length == 0 || hasWideByteOrderMark(sample, start, end) ) {
+            return new Result(ContentKind.TEXT, length, 0, 0, 0);
+        }
+        
+        int nuls = 0;
+        int lines = 0;
+        int longest = 0;
+        int current = 0;
+        
+        for ( int i = start; i < end; i++ ) {
+            byte b = sample.get(i);
+            
+            if ( b == '\n' || b == '\r' ) {
+                if ( b == '\r' && i + 1 < end && sample.get(i + 1) == '\n' ) {
+                    i++;
+                }
+                lines++;
+                longest = Math.max(longest, current);
+                current = 0;
+            } else {
+                if ( b == 0 ) {
+                    nuls++;
+                }
+                current++;
+            }
+        }
+        
+        if ( current > 0 ) {
+            lines++;
+            longest = Math.max(longest, current);
+        }
+        
+        int average = length / Math.max(1, lines);
+        ContentKind kind = ContentKind.TEXT;
+        if ( nuls > 0 && (double)nuls / length > nulRatio ) {
+            kind = ContentKind.BINARY;
+        } else if ( average > averageLine || longest > maxLine ) {
+            kind = ContentKind.MINIFIED;
+        }
+        
+        return new Result(kind, length, nuls, average, longest);
+    }
+    
+    /**
+     * Retrieves what is to be done with files of the given kind.
+     * 
+     * @param kind The kind of content.
+     * @return ContentPolicy for the kind; `PRINT` for text
+     */
+    public ContentPolicy getPolicy(ContentKind kind) {
+        switch ( kind ) {
+            case BINARY:
+                return binaryPolicy;
+            case MINIFIED:
+                return minifiedPolicy;
+            default:
+                return ContentPolicy.PRINT;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static boolean hasWideByteOrderMark(ByteBuffer b, int start, 
+            int end) {
+        if ( end - start < 2 ) {
+            return false;
+        }
+        
+        int b0 = b.get(start) & 0xff;
+        int b1 = b.get(start + 1) & 0xff;
+        
+        if ( (b0 == 0xFE && b1 == 0xFF) || (b0 == 0xFF && b1 == 0xFE) ) {
+            return true;
+        }
+        
+        return end - start >= 4 && b0 == 0 && b1 == 0 
+                && (b.get(start + 2) & 0xff) == 0xFE 
+                && (b.get(start + 3) & 0xff) == 0xFF;
+    }
+    
+    private static double number(Properties props, String key, 
+            double defaultValue) {
+        String value = props == null ? null : props.getProperty(key);
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for " + key + ": " + value);
+            }
+        }
+        
+        return defaultValue;
+    }
+    
+    private static ContentPolicy policy(Properties props, String key, 
+            ContentPolicy defaultPolicy) {
+        String value = props == null ? null : props.getProperty(key);
+        ContentPolicy policy = ContentPolicy.fromString(value, null);
+        
+        if ( policy == null ) {
+            if ( value != null && !value.isBlank() ) {
+                System.err.println("Invalid value for " + key + ": " + value);
+            }
+            policy = defaultPolicy;
+        }
+        
+        return policy;
+    }
+    //</editor-fold>
+
+    /**
+     * The outcome of classifying a file: its kind, and the measurements the
+     * kind was decided from.
+     */
+    public static final class Result {
+        private final ContentKind kind;
+        private final int sampled;
+        private final int nuls;
+        private final int averageLine;
+        private final int longestLine;
+        
+        Result(ContentKind kind, int sampled, int nuls, int averageLine, 
+                int longestLine) {
+            this.kind = kind;
+            this.sampled = sampled;
+            this.nuls = nuls;
+            this.averageLine = averageLine;
+            this.longestLine = longestLine;
+        }
+        
+        public ContentKind getKind() {
+            return kind;
+        }
+        
+        public int getSampled() {
+            return sampled;
+        }
+        
+        public int getNulCount() {
+            return nuls;
+        }
+        
+        public int getAverageLine() {
+            return averageLine;
+        }
+        
+        /**
+         * Retrieves the length of the longest line in the sample. A line that
+         * runs past the end of the sample is only counted up to that point.
+         * 
+         * @return int length of the longest line, in bytes
+         */
+        public int getLongestLine() {
+            return longestLine;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s (%,d bytes sampled, %.2f%% NUL, lines "
+                    + "average %,d and longest %,d bytes)", kind, sampled, 
+                    sampled == 0 ? 0.0 : 100.0 * nuls / sampled, averageLine, 
+                    longestLine);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * `HexDumpText` prints a binary file as a hex dump, sixteen bytes to a line,
+ * in the usual form:
+ * 
+ * ```
+ * 00000000  46 57 53 0a 2c 01 00 00  78 00 05 5f 00 00 0f a0  |FWS.,...x.._....|
+ * ```
+ * 
+ * Since every line is the same number of bytes, the bytes for any window of
+ * lines are read straight from the file with a single positional read, and
+ * nothing else is held in memory.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class HexDumpText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The number of bytes shown on each line. */
+    public static final int BYTES_PER_LINE = 16;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final FileChannel channel;
+    private final int count;
+    private ByteBuffer window;
+    private int windowStart;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private HexDumpText(FileChannel channel, int count) {
+        this.channel = channel;
+        this.count = count;
+        this.window = ByteBuffer.allocate(0);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Opens the given file for dumping.
+     * 
+     * @param file The file.
+     * @return HexDumpText of the file, which must be closed when done with
+     * @throws IOException if the file cannot be read, or has more lines than
+     *          can be counted
+     */
+    public static HexDumpText open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        long lines = (channel.size() + BYTES_PER_LINE - 1) / BYTES_PER_LINE;
+        
+        if ( lines > Integer.MAX_VALUE ) {
+            channel.close();
+            throw new IOException(file + " is too large to dump.");
+        }
+        
+        return new HexDumpText(channel, (int)lines);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    @Override
+    public String line(int line) {
+        if ( line < 0 || line >= count ) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " 
+                    + count);
+        }
+        
+        int offset = (line - windowStart) * BYTES_PER_LINE;
+        if ( line < windowStart || offset >= window.limit() ) {
+            window(line, line + 64);
+            offset = 0;
+        }
+        
+        return format((long)line * BYTES_PER_LINE, offset, 
+                Math.min(BYTES_PER_LINE, window.limit() - offset));
+    }
+    
+    /**
+     * Reads the bytes for the lines from `first` up to, but not including, 
+     * `end`, in a single read, letting go of those read before.
+     * 
+     * @param first The first line that is needed.
+     * @param end   The line after the last line that is needed.
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    @Override
+    public void window(int first, int end) {
+        first = Math.max(0, first);
+        end = Math.min(count, end);
+        
+        int bytes = Math.max(0, end - first) * BYTES_PER_LINE;
+        if ( window.capacity() < bytes ) {
+            window = ByteBuffer.allocate(bytes);
+        }
+        window.clear().limit(bytes);
+        
+        try {
+            long position = (long)first * BYTES_PER_LINE;
+            int read;
+            while ( window.hasRemaining() 
+                    && (read = channel.read(window, position)) > 0 ) {
+                position += read;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        
+        window.flip();
+        windowStart = first;
+    }
+    
+    @Override
+    public String getEncoding() {
+        return "hex dump";
+    }
+    
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private String format(long address, int offset, int length) {
+        StringBuilder sb = new StringBuilder(78);
+        
+        for ( int shift = 28; shift >= 0; shift -= 4 ) {
+            sb.append(HEX[(int)(address >>> shift) & 0xf]);
+        }
+        sb.append(' ');
+        
+        for ( int i = 0; i < BYTES_PER_LINE; i++ ) {
+            sb.append(i == 8 ? "  " : " ");
+            if ( i < length ) {
+                int b = window.get(offset + i) & 0xff;
+                sb.append(HEX[b >>> 4]).append(HEX[b & 0xf]);
+            } else {
+                sb.append("  ");
+            }
+        }
+        
+        sb.append("  |");
+        for ( int i = 0; i < length; i++ ) {
+            int b = window.get(offset + i) & 0xff;
+            sb.append(b >= 0x20 && b < 0x7f ? (char)b : '.');
+        }
+        sb.append('|');
+        
+        return sb.toString();
+    }
+    //</editor-fold>
+
+}
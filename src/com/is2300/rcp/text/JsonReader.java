@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * `JsonReader` reads a JSON document as a stream of tokens, one value at a 
+ * time, without building the document in memory. Values that are not wanted
+ * are skipped, and strings that are skipped are scanned for their closing
+ * quote, but never decoded or copied, so that large embedded payloads, such as
+ * base64 images, cost no more than reading past them.
+ * 
+ * The reader does not check that the document is well formed beyond what it
+ * needs to find its way through it.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+final class JsonReader {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Reader in;
+    private final char[] buffer;
+    private final StringBuilder text;
+    private int pos;
+    private int limit;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a reader for the JSON document read from `in`.
+     * 
+     * @param in The document.
+     */
+    JsonReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[8192];
+        this.text = new StringBuilder();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Instance Methods">
+    /**
+     * Retrieves the first character of the next value, without reading it: 
+     * `{`, `[`, `"`, or the first character of a number or literal.
+     * 
+     * @return char the start of the next value
+     * @throws IOException if the document ends, or cannot be read
+     */
+    char peek() throws IOException {
+        return (char)next(false);
+    }
+    
+    /**
+     * Reads the start of an object.
+     * 
+     * @throws IOException if the next value is not an object
+     */
+    void beginObject() throws IOException {
+        expect('{');
+    }
+    
+    /**
+     * Reads the end of an object, once `hasNext` has returned `false`.
+     * 
+     * @throws IOException if the object does not end here
+     */
+    void endObject() throws IOException {
+        expect('}');
+    }
+    
+    /**
+     * Reads the start of an array.
+     * 
+     * @throws IOException if the next value is not an array
+     */
+    void beginArray() throws IOException {
+        expect('[');
+    }
+    
+    /**
+     * Reads the end of an array, once `hasNext` has returned `false`.
+     * 
+     * @throws IOException if the array does not end here
+     */
+    void endArray() throws IOException {
+        expect(']');
+    }
+    
+    /**
+     * Tells whether the current object or array has any more members.
+     * 
+     * @return `true` if there is another member
+     * @throws IOException if the document ends, or cannot be read
+     */
+    boolean hasNext() throws IOException {
+        int c = next(true);
+        return c != '}' && c != ']';
+    }
+    
+    /**
+     * Reads the name of the next member of an object.
+     * 
+     * @return String the name
+     * @throws IOException if the next token is not a name
+     */
+    String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+    
+    /**
+     * Reads a string value, decoding its escapes.
+     * 
+     * @return String the value
+     * @throws IOException if the next value is not a string
+     */
+    String nextString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        
+        while ( true ) {
+            char c = read();
+            
+            if ( c == '"' ) {
+                return text.toString();
+            } else if ( c == '\\' ) {
+                c = read();
+                switch ( c ) {
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'u':
+                        text.append(unicode());
+                        break;
+                    default:
+                        text.append(c);
+                }
+            } else {
+                text.append(c);
+            }
+        }
+    }
+    
+    /**
+     * Reads a number or a literal, i.e., `true` or `null`, as it is written.
+     * Strings are read as by `nextString`.
+     * 
+     * @return String the value
+     * @throws IOException if the next value is an object or an array
+     */
+    String nextLiteral() throws IOException {
+        int c = next(false);
+        
+        if ( c == '"' ) {
+            return nextString();
+        } else if ( c == '{' || c == '[' ) {
+            throw malformed("a value", (char)c);
+        }
+        
+        text.setLength(0);
+        while ( !isDelimiter(c) ) {
+            text.append(read());
+            c = pos < limit || fill() ? buffer[pos] : ' ';
+        }
+        
+        return text.toString();
+    }
+    
+    /**
+     * Reads past the next value, whatever it is, without decoding it.
+     * 
+     * @throws IOException if the document ends, or cannot be read
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        
+        do {
+            int c = next(depth > 0);
+            
+            if ( c == '"' ) {
+                pos++;
+                skipString();
+            } else if ( c == '{' || c == '[' ) {
+                pos++;
+                depth++;
+            } else if ( c == '}' || c == ']' ) {
+                pos++;
+                depth--;
+            } else if ( c == ':' ) {
+                pos++;
+            } else {
+                nextLiteral();
+            }
+        } while ( depth > 0 );
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Skips the white space, and the commas too if asked, before the next 
+     * token, and returns its first character without reading it.
+     */
+    private int next(boolean skipCommas) throws IOException {
+        while ( pos < limit || fill() ) {
+            char c = buffer[pos];
+            
+            if ( c == ' ' || c == '\n' || c == '\r' || c == '\t' 
+                    || c == '\ufeff' || (skipCommas && c == ',') ) {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+        
+        throw new IOException("The JSON document ends too soon.");
+    }
+    
+    private void expect(char token) throws IOException {
+        int c = next(true);
+        
+        if ( c != token ) {
+            throw malformed("'" + token + "'", (char)c);
+        }
+        pos++;
+    }
+    
+    /**
+     * Scans for the end of a string whose opening quote has been read.
+     */
+    private void skipString() throws IOException {
+        while ( pos < limit || fill() ) {
+            int i = pos;
+            
+            while ( i < limit ) {
+                char c = buffer[i++];
+                
+                if ( c == '"' ) {
+                    pos = i;
+                    return;
+                } else if ( c == '\\' ) {
+                    if ( i < limit ) {
+                        i++;
+                    } else {
+                        // The escaped character is in the next buffer.
+                        pos = i;
+                        read();
+                        i = pos;
+                    }
+                }
+            }
+            
+            pos = i;
+        }
+        
+        throw new IOException("The JSON document ends inside a string.");
+    }
+    
+    private char unicode() throws IOException {
+        int value = 0;
+        
+        for ( int i = 0; i < 4; i++ ) {
+            int digit = Character.digit(read(), 16);
+            
+            if ( digit < 0 ) {
+                throw new IOException("Invalid unicode escape in the JSON "
+                        + "document.");
+            }
+            value = (value << 4) | digit;
+        }
+        
+        return (char)value;
+    }
+    
+    private char read() throws IOException {
+        if ( pos >= limit && !fill() ) {
+            throw new IOException("The JSON document ends too soon.");
+        }
+        
+        return buffer[pos++];
+    }
+    
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+    
+    private IOException malformed(String expected, char found) {
+        return new IOException("Malformed JSON document: expected " + expected
+                + " but found '" + found + "'.");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static boolean isDelimiter(int c) {
+        return c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' 
+                || c == '\n' || c == '\r' || c == '\t';
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A `LineIndex` records where each line of a file starts, built from a single
+ * pass over the bytes of the file. The file is read once, straight into one
+ * buffer, which is memory-mapped for larger files, and the start of each line
+ * is kept as an `int` offset into that buffer. The lines themselves are only
+ * decoded into `String`s when they are asked for, which is when the page they
+ * are on is rendered.
+ * 
+ * The encoding of the file is worked out by a `CharsetDetector` when the index
+ * is built, unless it is given.
+ * 
+ * Lines may end in `LF`, `CRLF` or a lone `CR`, in any mix; the line ending is
+ * never part of the line. As with `BufferedReader.readLine`, a final line 
+ * ending does not start another, empty, line.
+ * 
+ * ```java
+ * LineIndex index = LineIndex.of(path);
+ * 
+ * for ( int i = 0; i < index.size(); i++ ) {
+ *     System.out.println(index.line(i));
+ * }
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class LineIndex implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** An index with no lines in it. */
+    public static final LineIndex EMPTY = new LineIndex(
+            ByteBuffer.allocate(0), new int[0], 0, StandardCharsets.UTF_8, 
+            "UTF-8");
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final ByteBuffer content;
+    private final int[] starts;
+    private final int count;
+    private final Charset charset;
+    private final String encoding;
+    private final boolean utf8;
+    private final boolean singleByte;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private LineIndex(ByteBuffer content, int[] starts, int count, 
+            Charset charset, String encoding) {
+        this.content = content;
+        this.starts = starts;
+        this.count = count;
+        this.charset = charset;
+        this.encoding = encoding;
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.singleByte = !utf8 && charset.canEncode() 
+                && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Builds the index of the given file, working out its encoding with the
+     * default `CharsetDetector`.
+     * 
+     * @param file The file to index.
+     * @return LineIndex of the file
+     * @throws IOException if the file cannot be read, or is too large to index
+     */
+    public static LineIndex of(Path file) throws IOException {
+        return of(file, CharsetDetector.DEFAULT);
+    }
+    
+    /**
+     * Builds the index of the given file, working out its encoding with the
+     * given detector. A byte order mark is left out of the first line. Files 
+     * in UTF-16 or UTF-32 are converted to UTF-8 as they are read, so that 
+     * their lines can be found in the same way as any other file's.
+     * 
+     * @param file      The file to index.
+     * @param charsets  The detector for the file's encoding.
+     * @return LineIndex of the file
+     * @throws IOException if the file cannot be read, or is too large to index
+     */
+    public static LineIndex of(Path file, CharsetDetector charsets) 
+            throws IOException {
+        ByteBuffer content = read(file);
+        CharsetDetector.Result result = charsets.detect(content);
+        Charset charset = result.getCharset();
+        
+        content.position(result.getBomLength());
+        if ( !CharsetDetector.isAsciiCompatible(charset) ) {
+            content = StandardCharsets.UTF_8.encode(
+                    CharsetDetector.decoder(charset).decode(content));
+            charset = StandardCharsets.UTF_8;
+        }
+        
+        return index(content, charset, result.toString());
+    }
+    
+    /**
+     * Builds the index of the given file.
+     * 
+     * @param file      The file to index.
+     * @param charset   The encoding of the file, which must be compatible with
+     *                  ASCII; see `CharsetDetector.isAsciiCompatible`.
+     * @return LineIndex of the file
+     * @throws IOException if the file cannot be read, or is too large to index
+     */
+    public static LineIndex of(Path file, Charset charset) throws IOException {
+        return of(read(file), charset);
+    }
+    
+    /**
+     * Builds the index of the given content. The buffer is indexed from its
+     * position to its limit, and is kept by the index, so it must not be 
+     * changed afterwards.
+     * 
+     * @param content   The content of a file.
+     * @param charset   The encoding of the content, which must be compatible
+     *                  with ASCII; see `CharsetDetector.isAsciiCompatible`.
+     * @return LineIndex of the content
+     */
+    public static LineIndex of(ByteBuffer content, Charset charset) {
+        return index(content, charset, charset.name());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    /**
+     * Retrieves the encoding the file was read with, as worked out when the
+     * index was built, i.e., `UTF-8 (BOM)`.
+     * 
+     * @return String the encoding
+     */
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+    
+    public Charset getCharset() {
+        return charset;
+    }
+    
+    /**
+     * Retrieves the offset, in bytes, at which the given line starts.
+     * 
+     * @param line The line number, counting from zero.
+     * @return int offset of the start of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    public int start(int line) {
+        checkLine(line);
+        
+        return starts[line];
+    }
+    
+    /**
+     * Retrieves the offset, in bytes, at which the given line ends, not 
+     * counting its line ending.
+     * 
+     * @param line The line number, counting from zero.
+     * @return int offset just past the last character of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    public int end(int line) {
+        checkLine(line);
+        
+        int end = line + 1 < count ? starts[line + 1] : content.limit();
+        
+        if ( end > starts[line] && content.get(end - 1) == LF ) {
+            end--;
+        }
+        if ( end > starts[line] && content.get(end - 1) == CR ) {
+            end--;
+        }
+        
+        return end;
+    }
+    
+    /**
+     * Retrieves the length of the given line, in `char`s. For UTF-8 and the
+     * single-byte encodings, this is counted from the bytes of the line, 
+     * without decoding it.
+     * 
+     * @param line The line number, counting from zero.
+     * @return int the length of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    @Override
+    public int length(int line) {
+        int start = start(line);
+        int end = end(line);
+        
+        if ( singleByte ) {
+            return end - start;
+        } else if ( !utf8 ) {
+            return line(line).length();
+        }
+        
+        int length = 0;
+        for ( int i = start; i < end; i++ ) {
+            int b = content.get(i) & 0xff;
+            
+            // Every byte but a continuation byte starts a character, and the
+            // four byte ones take two chars.
+            if ( (b & 0xC0) != 0x80 ) {
+                length += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+        }
+        
+        return length;
+    }
+    
+    /**
+     * Decodes the given line. Nothing is cached, so callers that need a line
+     * more than once should keep the `String`.
+     * 
+     * @param line The line number, counting from zero.
+     * @return String the line, without its line ending
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    @Override
+    public String line(int line) {
+        int start = start(line);
+        int end = end(line);
+        
+        if ( start == end ) {
+            return "";
+        }
+        
+        ByteBuffer bytes = content.duplicate();
+        bytes.limit(end).position(start);
+        
+        return decode(bytes);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void checkLine(int line) {
+        if ( line < 0 || line >= count ) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " 
+                    + count);
+        }
+    }
+    
+    private String decode(ByteBuffer bytes) {
+        try {
+            CharBuffer chars = CharsetDetector.decoder(charset).decode(bytes);
+            
+            return chars.toString();
+        } catch (CharacterCodingException ex) {
+            // Cannot happen, as bad input is replaced rather than reported.
+            throw new IllegalStateException(ex);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static LineIndex index(ByteBuffer content, Charset charset, 
+            String encoding) {
+        ByteBuffer data = content.slice();
+        int size = data.limit();
+        
+        if ( size == 0 ) {
+            return new LineIndex(data, new int[0], 0, charset, encoding);
+        }
+        
+        // A first guess at the number of lines, to keep the copying down.
+        int[] starts = new int[Math.max(16, Math.min(size / 32, 1 << 16))];
+        int count = 0;
+        int lineStart = 0;
+        
+        for ( int i = 0; i < size; i++ ) {
+            byte b = data.get(i);
+            
+            if ( b == LF || b == CR ) {
+                if ( b == CR && i + 1 < size && data.get(i + 1) == LF ) {
+                    i++;
+                }
+                
+                if ( count == starts.length ) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = lineStart;
+                lineStart = i + 1;
+            }
+        }
+        
+        if ( lineStart < size ) {
+            if ( count == starts.length ) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = lineStart;
+        }
+        
+        return new LineIndex(data, starts, count, charset, encoding);
+    }
+    
+    private static ByteBuffer read(Path file) throws IOException {
+        try ( FileChannel in = FileChannel.open(file, StandardOpenOption.READ) ) {
+            long size = in.size();
+            
+            if ( size > Integer.MAX_VALUE ) {
+                throw new IOException(file + " is too large to index (" 
+                        + size + " bytes).");
+            }
+            if ( size >= MAP_THRESHOLD ) {
+                return in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            
+            ByteBuffer buffer = ByteBuffer.allocate((int)size);
+            while ( buffer.hasRemaining() && in.read(buffer) >= 0 ) {
+                // Keep reading until the whole file is in.
+            }
+            buffer.flip();
+            
+            return buffer;
+        }
+    }
+    //</editor-fold>
+
+}
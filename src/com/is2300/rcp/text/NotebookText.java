@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * `NotebookText` is the text of a Jupyter notebook, as its cells would be read
+ * in the notebook, instead of the JSON document it is saved as. Each cell is
+ * printed under a heading, i.e.:
+ * 
+ * ```
+ * # In [3]:
+ * df = pd.read_csv("sales.csv")
+ * df.head()
+ * 
+ * # Out [3]:
+ * #    region  total
+ * # 0  north    1200
+ * ```
+ * 
+ * The notebook is read as a stream, and only the cell sources, and the text 
+ * outputs if asked for, are kept. Everything else, such as the metadata and
+ * the base64 encoded images in the outputs, which can run to megabytes a 
+ * cell, is skipped over without being decoded.
+ * 
+ * Both the current notebook format, and the older one with its cells in
+ * `worksheets`, are read.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class NotebookText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final List<String> lines;
+    private final boolean outputs;
+    private int cells;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private NotebookText(boolean outputs) {
+        this.lines = new ArrayList<>();
+        this.outputs = outputs;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Reads the cells of a notebook.
+     * 
+     * @param file      The notebook.
+     * @param outputs   `true` to include the text outputs of the code cells.
+     * @return NotebookText of the notebook
+     * @throws IOException if the notebook cannot be read, or is not valid JSON
+     */
+    public static NotebookText open(Path file, boolean outputs) 
+            throws IOException {
+        // Notebooks are always saved as UTF-8.
+        try ( Reader in = new InputStreamReader(Files.newInputStream(file), 
+                StandardCharsets.UTF_8) ) {
+            NotebookText text = new NotebookText(outputs);
+            text.readNotebook(new JsonReader(in));
+            return text;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return lines.size();
+    }
+    
+    @Override
+    public String line(int line) {
+        return lines.get(line);
+    }
+    
+    @Override
+    public String getEncoding() {
+        return String.format("UTF-8 (notebook, %,d cells)", cells);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void readNotebook(JsonReader json) throws IOException {
+        json.beginObject();
+        while ( json.hasNext() ) {
+            String name = json.nextName();
+            
+            if ( "cells".equals(name) ) {
+                readCells(json);
+            } else if ( "worksheets".equals(name) ) {
+                json.beginArray();
+                while ( json.hasNext() ) {
+                    readNotebook(json);
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+    
+    private void readCells(JsonReader json) throws IOException {
+        json.beginArray();
+        while ( json.hasNext() ) {
+            readCell(json);
+        }
+        json.endArray();
+    }
+    
+    private void readCell(JsonReader json) throws IOException {
+        String type = "code";
+        String count = null;
+        List<String> source = new ArrayList<>();
+        List<String> output = new ArrayList<>();
+        
+        // The members may come in any order; the outputs are usually saved
+        // before the source, so both are held until the cell has been read.
+        json.beginObject();
+        while ( json.hasNext() ) {
+            switch ( json.nextName() ) {
+                case "cell_type":
+                    type = json.nextString();
+                    break;
+                case "source":
+                case "input":
+                    readText(json, source);
+                    break;
+                case "execution_count":
+                case "prompt_number":
+                    count = json.nextLiteral();
+                    break;
+                case "outputs":
+                    if ( outputs ) {
+                        readOutputs(json, output);
+                    } else {
+                        json.skipValue();
+                    }
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        
+        if ( count == null || "null".equals(count) ) {
+            count = " ";
+        }
+        
+        if ( cells > 0 ) {
+            lines.add("");
+        }
+        cells++;
+        
+        if ( "code".equals(type) ) {
+            lines.add("# In [" + count + "]:");
+        } else {
+            lines.add("# [" + type + "]");
+        }
+        lines.addAll(source);
+        
+        if ( !output.isEmpty() ) {
+            lines.add("");
+            lines.add("# Out [" + count + "]:");
+            for ( String line : output ) {
+                lines.add("# " + line);
+            }
+        }
+    }
+    
+    private void readOutputs(JsonReader json, List<String> output) 
+            throws IOException {
+        json.beginArray();
+        while ( json.hasNext() ) {
+            String name = null;
+            String value = null;
+            
+            json.beginObject();
+            while ( json.hasNext() ) {
+                switch ( json.nextName() ) {
+                    case "text":
+                        readText(json, output);
+                        break;
+                    case "data":
+                        readData(json, output);
+                        break;
+                    case "ename":
+                        name = json.nextString();
+                        break;
+                    case "evalue":
+                        value = json.nextString();
+                        break;
+                    default:
+                        // Images, HTML and tracebacks are not printed.
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            
+            if ( name != null ) {
+                output.add(value == null ? name : name + ": " + value);
+            }
+        }
+        json.endArray();
+    }
+    
+    private void readData(JsonReader json, List<String> output) 
+            throws IOException {
+        json.beginObject();
+        while ( json.hasNext() ) {
+            if ( "text/plain".equals(json.nextName()) ) {
+                readText(json, output);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    /**
+     * Reads multi-line text, which notebooks save either as one string or as 
+     * an array of strings, each with its own line ending, and adds its lines.
+     */
+    private static void readText(JsonReader json, List<String> lines) 
+            throws IOException {
+        StringBuilder text = new StringBuilder();
+        
+        if ( json.peek() == '[' ) {
+            json.beginArray();
+            while ( json.hasNext() ) {
+                text.append(json.nextString());
+            }
+            json.endArray();
+        } else {
+            text.append(json.nextString());
+        }
+        
+        int start = 0;
+        int length = text.length();
+        while ( start < length ) {
+            int end = text.indexOf("\n", start);
+            if ( end < 0 ) {
+                end = length;
+            }
+            
+            int lineEnd = end;
+            if ( lineEnd > start && text.charAt(lineEnd - 1) == '\r' ) {
+                lineEnd--;
+            }
+            lines.add(text.substring(start, lineEnd));
+            start = end + 1;
+        }
+    }
+    //</editor-fold>
+
+}
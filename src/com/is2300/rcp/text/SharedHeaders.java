@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.text;
+
+import com.is2300.rcp.walker.PlannedFile;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+
+/**
+ * `SharedHeaders` finds the license header that most projects repeat at the 
+ * top of every file, so that it can be printed once, in the front matter of
+ * the job, instead of on the first page of every file.
+ * 
+ * Only the start of each file is read: the first `header.scan.bytes` bytes 
+ * (8 KB by default). A header is the comment the file starts with, after any
+ * blank lines; either a block comment, which starts with `/*` or `/**` and
+ * must close within those bytes, or a run of `//` line comments. It must be
+ * at least `header.min.lines` lines long (3 by default), and nothing may 
+ * follow the end of a block comment on its last line.
+ * 
+ * The headers are told apart by a fingerprint of their text, with the spaces
+ * at the ends of their lines left out. A header that starts at least
+ * `header.min.files` of the files (2 by default) is collapsed in each of them
+ * to a single line, which refers to the header's number in the front matter.
+ * Setting `header.collapse` to `false` turns this off.
+ * 
+ * ```java
+ * SharedHeaders headers = SharedHeaders.fromProperties(props);
+ * headers.scan(files, charsets);
+ * 
+ * SourceText text = headers.collapse(path, SourceText.open(path, false, 
+ *         charsets));
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class SharedHeaders {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    public static final String BLOCK_COMMENT_START = "/*";
+    public static final String BLOCK_COMMENT_END = "*/";
+    public static final String LINE_COMMENT = "//";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int DEFAULT_SCAN = 8 * 1024;
+    
+    private static final ThreadLocal<ByteBuffer> BUFFER = 
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(0));
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final boolean enabled;
+    private final int scanBytes;
+    private final int minFiles;
+    private final int minLines;
+    private final Map<Path, Match> matches;
+    private final List<Header> headers;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a `SharedHeaders` with the given limits.
+     * 
+     * @param enabled   `false` to leave every file as it is.
+     * @param scanBytes The number of bytes to read from the start of each 
+     *                  file.
+     * @param minFiles  The number of files a header must start to be shared.
+     * @param minLines  The number of lines a comment must have to be a header.
+     * @throws IllegalArgumentException if `scanBytes` is not positive
+     */
+    public SharedHeaders(boolean enabled, int scanBytes, int minFiles, 
+            int minLines) {
+        if ( scanBytes <= 0 ) {
+            throw new IllegalArgumentException("The scan size must be "
+                    + "positive.");
+        }
+        
+        this.enabled = enabled;
+        this.scanBytes = scanBytes;
+        this.minFiles = Math.max(1, minFiles);
+        this.minLines = Math.max(1, minLines);
+        this.matches = new HashMap<>();
+        this.headers = new ArrayList<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Creates a `SharedHeaders` configured from the `header.*` properties, 
+     * using the defaults for any that are not set.
+     * 
+     * @param props The properties to read the settings from; may be `null`.
+     * @return SharedHeaders as configured
+     */
+    public static SharedHeaders fromProperties(Properties props) {
+        String collapse = props == null ? null 
+                : props.getProperty("header.collapse");
+        
+        return new SharedHeaders(!"false".equalsIgnoreCase(collapse),
+                number(props, "header.scan.bytes", DEFAULT_SCAN),
+                number(props, "header.min.files", 2),
+                number(props, "header.min.lines", 3));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Reads the start of each of the files to find the headers they share,
+     * forgetting those found by an earlier scan. A file that cannot be read 
+     * is left as it is; the error is reported when it is loaded.
+     * 
+     * @param files     The files to be printed, in the order they are printed.
+     * @param charsets  The detector for the files' encodings.
+     */
+    public synchronized void scan(List<PlannedFile> files, 
+            CharsetDetector charsets) {
+        matches.clear();
+        headers.clear();
+        
+        if ( !enabled ) {
+            return;
+        }
+        
+        Map<Long, List<Header>> found = new LinkedHashMap<>();
+        
+        for ( PlannedFile f : files ) {
+            try {
+                Match match = find(f.getPath(), charsets);
+                
+                if ( match != null ) {
+                    matches.put(f.getPath(), intern(found, match));
+                }
+            } catch ( IOException ex ) {
+                // Loading the file will fail too, and say why.
+            }
+        }
+        
+        matches.values().removeIf(m -> m.header.files < minFiles);
+        for ( List<Header> list : found.values() ) {
+            for ( Header h : list ) {
+                if ( h.files >= minFiles ) {
+                    headers.add(h);
+                }
+            }
+        }
+        // Number the headers in the order of the first file each one starts.
+        headers.sort((a, b) -> Integer.compare(a.first, b.first));
+        for ( int i = 0; i < headers.size(); i++ ) {
+            headers.get(i).number = i + 1;
+        }
+    }
+    
+    /**
+     * Collapses the shared header at the start of the text of a file to a
+     * single line. The text of a file that does not start with a shared
+     * header is returned as it is.
+     * 
+     * @param file  The file.
+     * @param text  The file's text.
+     * @return SourceText to print for the file
+     */
+    public synchronized SourceText collapse(Path file, SourceText text) {
+        Match match = matches.get(file);
+        
+        if ( match == null || text.size() <= match.lines ) {
+            return text;
+        }
+        
+        return new CollapsedText(text, match.lines, match.header.reference());
+    }
+    
+    /**
+     * Describes what `collapse` does to the text of a file, so that its
+     * printed pages can be told apart from those of the same text collapsed
+     * another way, or not at all.
+     * 
+     * @param file  The file.
+     * @return String giving the number of lines collapsed and the line put
+     *          in their place, or an empty string if the file is not
+     *          collapsed
+     */
+    public synchronized String describe(Path file) {
+        Match match = matches.get(file);
+        
+        return match == null ? ""
+                : match.lines + " " + match.header.reference();
+    }
+    
+    /**
+     * Tells whether the last scan found any shared headers.
+     * 
+     * @return `true` if there is front matter to print
+     */
+    public synchronized boolean hasFrontMatter() {
+        return !headers.isEmpty();
+    }
+    
+    /**
+     * Retrieves the front matter of the job: each of the shared headers found
+     * by the last scan, under its number.
+     * 
+     * @return SourceText of the front matter
+     */
+    public synchronized SourceText getFrontMatter() {
+        List<String> lines = new ArrayList<>();
+        
+        lines.add("*** Shared headers ***");
+        lines.add("");
+        lines.add("These headers are printed once, here, in place of the "
+                + "files that start with them.");
+        
+        for ( Header h : headers ) {
+            lines.add("");
+            lines.add(String.format("Header %d, found in %,d files:", 
+                    h.number, h.files));
+            lines.add("");
+            
+            for ( String line : h.text.split("\n", -1) ) {
+                lines.add(line);
+            }
+        }
+        
+        return new FrontMatter(lines);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Reads and decodes the start of the file, and finds the header in it.
+     */
+    private Match find(Path file, CharsetDetector charsets) 
+            throws IOException {
+        ByteBuffer prefix = BUFFER.get();
+        if ( prefix.capacity() < scanBytes ) {
+            prefix = ByteBuffer.allocate(scanBytes);
+            BUFFER.set(prefix);
+        }
+        prefix.clear().limit(scanBytes);
+        
+        boolean whole;
+        try ( FileChannel in = FileChannel.open(file, 
+                StandardOpenOption.READ) ) {
+            while ( prefix.hasRemaining() && in.read(prefix) > 0 ) {
+                // Keep reading until the prefix is full or the file ends.
+            }
+            whole = in.size() <= prefix.position();
+        }
+        prefix.flip();
+        
+        CharsetDetector.Result result = charsets.detect(prefix, !whole);
+        prefix.position(result.getBomLength());
+        
+        CharsetDecoder decoder = CharsetDetector.decoder(result.getCharset());
+        CharBuffer text = CharBuffer.allocate(prefix.remaining());
+        decoder.decode(prefix, text, whole);
+        if ( whole ) {
+            decoder.flush(text);
+        }
+        text.flip();
+        
+        return find(text, whole);
+    }
+    
+    /**
+     * Finds the header at the start of the text, which is all of the file if
+     * `whole` is `true`, or only the start of it if not.
+     */
+    private Match find(CharSequence text, boolean whole) {
+        int length = text.length();
+        int pos = 0;
+        int line = 0;
+        int first = -1;
+        boolean block = false;
+        StringBuilder header = new StringBuilder();
+        
+        while ( pos < length ) {
+            int end = pos;
+            while ( end < length && text.charAt(end) != '\n' 
+                    && text.charAt(end) != '\r' ) {
+                end++;
+            }
+            if ( end == length && !whole ) {
+                // The line may go on past the end of the prefix.
+                return null;
+            }
+            
+            String current = text.subSequence(pos, end).toString()
+                    .stripTrailing();
+            String stripped = current.stripLeading();
+            
+            if ( first < 0 && stripped.isEmpty() ) {
+                // Blank lines before the header go with it.
+            } else if ( first < 0 ) {
+                if ( stripped.startsWith(BLOCK_COMMENT_START) ) {
+                    block = true;
+                } else if ( !stripped.startsWith(LINE_COMMENT) ) {
+                    return null;
+                }
+                first = line;
+            } else if ( !block && !stripped.startsWith(LINE_COMMENT) ) {
+                // The run of line comments has ended on the line before.
+                return match(header, line - first, line);
+            }
+            
+            if ( first >= 0 ) {
+                header.append(current).append('\n');
+            }
+            
+            if ( block ) {
+                int close = current.indexOf(BLOCK_COMMENT_END, 
+                        line == first ? current.indexOf(BLOCK_COMMENT_START) 
+                                + BLOCK_COMMENT_START.length() : 0);
+                
+                if ( close >= 0 ) {
+                    return current.substring(close 
+                            + BLOCK_COMMENT_END.length()).isBlank() 
+                            ? match(header, line - first + 1, line + 1) : null;
+                }
+            }
+            
+            pos = end + 1;
+            if ( pos < length && text.charAt(end) == '\r' 
+                    && text.charAt(pos) == '\n' ) {
+                pos++;
+            }
+            line++;
+        }
+        
+        // A file that is nothing but line comments has no header to collapse.
+        return null;
+    }
+    
+    private Match match(StringBuilder header, int size, int lines) {
+        if ( size < minLines ) {
+            return null;
+        }
+        
+        header.setLength(header.length() - 1);
+        
+        return new Match(new Header(header.toString()), lines);
+    }
+    
+    /**
+     * Counts the match against the header already found with the same text,
+     * or records its header as a new one.
+     */
+    private Match intern(Map<Long, List<Header>> found, Match match) {
+        CRC32C crc = new CRC32C();
+        crc.update(match.header.text.getBytes(StandardCharsets.UTF_8));
+        
+        List<Header> same = found.computeIfAbsent(crc.getValue(), 
+                k -> new ArrayList<>(1));
+        for ( Header h : same ) {
+            if ( h.text.equals(match.header.text) ) {
+                h.files++;
+                
+                return new Match(h, match.lines);
+            }
+        }
+        
+        match.header.first = matches.size();
+        match.header.files = 1;
+        same.add(match.header);
+        
+        return match;
+    }
+    
+    private static int number(Properties props, String key, int defaultValue) {
+        String value = props == null ? null : props.getProperty(key);
+        
+        if ( value != null && !value.isBlank() ) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch ( NumberFormatException ex ) {
+                System.err.println("Invalid value for " + key + ": " + value);
+            }
+        }
+        
+        return defaultValue;
+    }
+    //</editor-fold>
+
+    /**
+     * A header, with the number of files it starts.
+     */
+    private static final class Header {
+        private final String text;
+        private final boolean block;
+        private int files;
+        private int first;
+        private int number;
+        
+        Header(String text) {
+            this.text = text;
+            this.block = text.stripLeading().startsWith(BLOCK_COMMENT_START);
+        }
+        
+        String reference() {
+            String note = " Shared header " + number 
+                    + ": printed once in the front matter. ";
+            
+            return block ? BLOCK_COMMENT_START + note + BLOCK_COMMENT_END 
+                    : LINE_COMMENT + note.stripTrailing();
+        }
+    }
+    
+    /**
+     * The header a file starts with, and the number of lines it takes up, 
+     * with the blank lines before it.
+     */
+    private static final class Match {
+        private final Header header;
+        private final int lines;
+        
+        Match(Header header, int lines) {
+            this.header = header;
+            this.lines = lines;
+        }
+    }
+    
+    private static final class FrontMatter implements SourceText {
+        private final List<String> lines;
+        
+        FrontMatter(List<String> lines) {
+            this.lines = lines;
+        }
+        
+        @Override
+        public int size() {
+            return lines.size();
+        }
+        
+        @Override
+        public String line(int line) {
+            return lines.get(line);
+        }
+        
+        @Override
+        public String getEncoding() {
+            return "front matter";
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * `SourceText` is the text of a source file, as a numbered list of lines, in
+ * the form the printers lay out and render it. How the lines are held is up to
+ * the implementation; it may hold all of them, or only the ones being printed.
+ * 
+ * Lines are numbered from zero, and never include their line endings.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public interface SourceText extends Closeable {
+    
+    /**
+     * Opens the text of a file, working out its encoding with `charsets`. A
+     * windowed text is opened only when asked for and the file's encoding 
+     * allows it; otherwise, the whole file is indexed.
+     * 
+     * @param file      The file.
+     * @param windowed  `true` to hold only the lines being printed.
+     * @param charsets  The detector for the file's encoding.
+     * @return SourceText of the file, which must be closed when done with
+     * @throws IOException if the file cannot be read
+     */
+    static SourceText open(Path file, boolean windowed, 
+            CharsetDetector charsets) throws IOException {
+        if ( windowed ) {
+            WindowedText text = WindowedText.open(file, charsets);
+            
+            if ( text != null ) {
+                return text;
+            }
+        }
+        
+        return LineIndex.of(file, charsets);
+    }
+    
+    /**
+     * Retrieves the number of lines in the text.
+     * 
+     * @return int number of lines
+     */
+    int size();
+    
+    /**
+     * Retrieves the given line.
+     * 
+     * @param line The line number, counting from zero.
+     * @return String the line, without its line ending
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    String line(int line);
+    
+    /**
+     * Retrieves the length of the given line, in `char`s, as `line(line)` 
+     * would return it. Texts that can tell the length without decoding the
+     * line should do so, so that a text can be laid out without being 
+     * decoded.
+     * 
+     * @param line The line number, counting from zero.
+     * @return int the length of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    default int length(int line) {
+        return line(line).length();
+    }
+    
+    /**
+     * Retrieves the encoding the text was read with, for the job log, i.e., 
+     * `UTF-8 (BOM)`.
+     * 
+     * @return String the encoding
+     */
+    String getEncoding();
+    
+    /**
+     * Tells the text which lines are about to be used, so that it can have 
+     * them ready, and let go of any others it is holding. Texts that hold all
+     * of their lines may ignore this.
+     * 
+     * @param first The first line that is needed.
+     * @param end   The line after the last line that is needed.
+     */
+    default void window(int first, int end) {
+        
+    }
+    
+    /**
+     * Releases whatever the text holds open. Closing a text that holds
+     * nothing open does nothing.
+     */
+    @Override
+    default void close() {
+        
+    }
+    
+    /**
+     * Opens the text of a file, as many times as it is needed, so that a 
+     * text can be let go of while it waits to be printed, and opened again
+     * for its pages.
+     */
+    @FunctionalInterface
+    interface Opener {
+        
+        /**
+         * Opens the text.
+         * 
+         * @return SourceText, which must be closed when done with
+         * @throws IOException if the text cannot be read
+         */
+        SourceText open() throws IOException;
+        
+    }
+    
+}
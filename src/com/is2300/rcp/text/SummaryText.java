@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * `SummaryText` is a few lines printed in place of a file that is not fit to
+ * print, such as a minified script bundle, so that the printout still shows
+ * that the file is part of the project.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class SummaryText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final List<String> lines;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates the summary of a file.
+     * 
+     * @param file      The file being summarized.
+     * @param size      The size of the file, in bytes.
+     * @param result    How the file was classified.
+     */
+    public SummaryText(Path file, long size, ContentClassifier.Result result) {
+        this.lines = new ArrayList<>();
+        
+        lines.add("*** The contents of this file are not printed. ***");
+        lines.add("");
+        lines.add("File:    " + file);
+        lines.add(String.format("Size:    %,d bytes", size));
+        lines.add("Content: " + result);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return lines.size();
+    }
+    
+    @Override
+    public String line(int line) {
+        return lines.get(line);
+    }
+    
+    @Override
+    public String getEncoding() {
+        return "summary";
+    }
+    //</editor-fold>
+
+}
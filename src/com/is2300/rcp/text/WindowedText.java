@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * `WindowedText` is the `SourceText` of a file too large to hold in memory. It
+ * keeps the file open, and holds only the lines of the window of pages that is
+ * being laid out or rendered. When a new window is asked for, the lines of the
+ * old one are let go before the new ones are read, so the memory used stays
+ * in proportion to the size of a page, not the size of the file.
+ * 
+ * The file is scanned once, when it is opened, to count its lines. The byte 
+ * offset of every `STRIDE`th line is kept as a checkpoint, so a window is read
+ * by seeking straight to the checkpoint before it and reading forward, using
+ * positional reads on the file's channel.
+ * 
+ * The encoding is worked out from the start of the file by a 
+ * `CharsetDetector`. Lines may end in `LF`, `CRLF` or a lone `CR`, as for
+ * `LineIndex`.
+ * 
+ * A `WindowedText` is meant to be used by one thread at a time.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class WindowedText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The number of lines between checkpoints. */
+    public static final int STRIDE = 64;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Constants">
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final FileChannel channel;
+    private final Charset charset;
+    private final String encoding;
+    private final long start;
+    private final ByteBuffer buffer;
+    private long[] checkpoints;
+    private int count;
+    private byte[] lineBytes;
+    private String[] window;
+    private int windowStart;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private WindowedText(FileChannel channel, Charset charset, String encoding,
+            long start) {
+        this.channel = channel;
+        this.charset = charset;
+        this.encoding = encoding;
+        this.start = start;
+        this.buffer = ByteBuffer.allocate(READ_SIZE);
+        this.checkpoints = new long[64];
+        this.lineBytes = new byte[256];
+        this.window = new String[0];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Opens the given file and counts its lines, assuming it is UTF-8.
+     * 
+     * @param file The file.
+     * @return WindowedText of the file, which must be closed when done with
+     * @throws IOException if the file cannot be read
+     */
+    public static WindowedText open(Path file) throws IOException {
+        return open(file, StandardCharsets.UTF_8, 0, "UTF-8");
+    }
+    
+    /**
+     * Opens the given file and counts its lines, working out its encoding 
+     * from the first 64 KB of the file. A byte order mark is left out of the
+     * first line.
+     * 
+     * @param file      The file.
+     * @param charsets  The detector for the file's encoding.
+     * @return WindowedText of the file, which must be closed when done with;
+     *          `null` if the file is in UTF-16 or UTF-32, whose lines cannot 
+     *          be found without decoding them
+     * @throws IOException if the file cannot be read
+     */
+    public static WindowedText open(Path file, CharsetDetector charsets) 
+            throws IOException {
+        ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+        
+        try ( FileChannel in = FileChannel.open(file, 
+                StandardOpenOption.READ) ) {
+            while ( sample.hasRemaining() && in.read(sample) > 0 ) {
+                // Keep reading until the sample is full or the file ends.
+            }
+        }
+        sample.flip();
+        
+        CharsetDetector.Result result = charsets.detect(sample, true);
+        if ( !CharsetDetector.isAsciiCompatible(result.getCharset()) ) {
+            return null;
+        }
+        
+        return open(file, result.getCharset(), result.getBomLength(), 
+                result.toString());
+    }
+    
+    private static WindowedText open(Path file, Charset charset, long start,
+            String encoding) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        WindowedText text = new WindowedText(channel, charset, encoding, start);
+        
+        try {
+            text.scan();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        
+        return text;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+    
+    /**
+     * Retrieves the given line, reading a new window starting at that line if
+     * it is not in the current one.
+     * 
+     * @param line The line number, counting from zero.
+     * @return String the line, without its line ending
+     * @throws IndexOutOfBoundsException if there is no such line
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    @Override
+    public String line(int line) {
+        if ( line < 0 || line >= count ) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " 
+                    + count);
+        }
+        
+        if ( line < windowStart || line >= windowStart + window.length ) {
+            window(line, line + STRIDE);
+        }
+        
+        return window[line - windowStart];
+    }
+    
+    /**
+     * Reads the lines from `first` up to, but not including, `end`, letting go
+     * of the lines that were held before. Nothing is read if the lines are 
+     * already held.
+     * 
+     * @param first The first line that is needed.
+     * @param end   The line after the last line that is needed.
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    @Override
+    public void window(int first, int end) {
+        first = Math.max(0, first);
+        end = Math.min(count, end);
+        
+        if ( first >= windowStart && end <= windowStart + window.length ) {
+            return;
+        }
+        
+        // Let the old lines go before reading in the new ones.
+        window = new String[0];
+        
+        try {
+            window = read(first, end);
+            windowStart = first;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    
+    @Override
+    public void close() {
+        window = new String[0];
+        
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            ex.printStackTrace(System.err);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void scan() throws IOException {
+        long position = start;
+        long lineStart = start;
+        boolean afterCR = false;
+        
+        buffer.clear();
+        while ( channel.read(buffer, position) > 0 ) {
+            buffer.flip();
+            int limit = buffer.limit();
+            
+            for ( int i = 0; i < limit; i++ ) {
+                byte b = buffer.get(i);
+                
+                if ( afterCR ) {
+                    afterCR = false;
+                    if ( b == LF ) {
+                        lineStart = position + i + 1;
+                        continue;
+                    }
+                }
+                
+                if ( b == LF || b == CR ) {
+                    addLine(lineStart);
+                    lineStart = position + i + 1;
+                    afterCR = b == CR;
+                }
+            }
+            
+            position += limit;
+            buffer.clear();
+        }
+        
+        if ( lineStart < position ) {
+            addLine(lineStart);
+        }
+    }
+    
+    private void addLine(long start) {
+        if ( count % STRIDE == 0 ) {
+            int checkpoint = count / STRIDE;
+            
+            if ( checkpoint == checkpoints.length ) {
+                checkpoints = Arrays.copyOf(checkpoints, checkpoint * 2);
+            }
+            checkpoints[checkpoint] = start;
+        }
+        
+        count++;
+    }
+    
+    private String[] read(int first, int end) throws IOException {
+        String[] lines = new String[Math.max(0, end - first)];
+        if ( lines.length == 0 ) {
+            return lines;
+        }
+        
+        int line = first - first % STRIDE;
+        long position = checkpoints[first / STRIDE];
+        int length = 0;
+        boolean afterCR = false;
+        
+        buffer.clear();
+        while ( line < end && channel.read(buffer, position) > 0 ) {
+            buffer.flip();
+            int limit = buffer.limit();
+            
+            for ( int i = 0; i < limit && line < end; i++ ) {
+                byte b = buffer.get(i);
+                
+                if ( afterCR ) {
+                    afterCR = false;
+                    if ( b == LF ) {
+                        continue;
+                    }
+                }
+                
+                if ( b == LF || b == CR ) {
+                    if ( line >= first ) {
+                        lines[line - first] = decode(length);
+                    }
+                    line++;
+                    length = 0;
+                    afterCR = b == CR;
+                } else if ( line >= first ) {
+                    append(b, length++);
+                }
+            }
+            
+            position += limit;
+            buffer.clear();
+        }
+        
+        // The last line of a file need not have a line ending.
+        if ( line < end ) {
+            lines[line - first] = decode(length);
+        }
+        
+        return lines;
+    }
+    
+    private void append(byte b, int at) {
+        if ( at == lineBytes.length ) {
+            lineBytes = Arrays.copyOf(lineBytes, at * 2);
+        }
+        
+        lineBytes[at] = b;
+    }
+    
+    private String decode(int length) {
+        if ( length == 0 ) {
+            return "";
+        }
+        
+        try {
+            return CharsetDetector.decoder(charset).decode(ByteBuffer.wrap(
+                    lineBytes, 0, length)).toString();
+        } catch (CharacterCodingException ex) {
+            // Cannot happen, as bad input is replaced rather than reported.
+            throw new IllegalStateException(ex);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.text;
+
+import java.util.Arrays;
+
+/**
+ * `WrappedText` is another text with its long lines wrapped to fit a given
+ * width, in characters. The line breaks of the text are kept as they are, and
+ * a line that is too long is broken at the last space that fits, or, if there
+ * is none, wherever it has to be. Every piece of a wrapped line but the last
+ * ends with a continuation marker, such as &crarr;, which is counted in the 
+ * width.
+ * 
+ * The text is wrapped in one pass over its lines, in which only where each
+ * piece of a line that is too long starts and ends is kept; the pieces are
+ * cut from the lines of the text as they are needed, so that a windowed text
+ * stays windowed. A line that fits is found from the wrapped lines before 
+ * it, so the memory the wrapping takes follows the number of pieces of the
+ * wrapped lines, not the length of the text.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class WrappedText implements SourceText {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final SourceText source;
+    private final String marker;
+    private final StringBuilder buffer;
+    
+    private int cachedLine;
+    private String cachedText;
+    
+    // The line, source line, start and end of each piece of a wrapped line.
+    private int[] pieceLines;
+    private int[] sourceLines;
+    private int[] starts;
+    private int[] ends;
+    private int pieces;
+    private int count;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Wraps the lines of `source` to fit in `width` characters.
+     * 
+     * @param source    The text to wrap.
+     * @param width     The most characters to a line, including the marker.
+     * @param marker    The marker put at the end of each wrapped piece.
+     * @throws IllegalArgumentException if `source` or `marker` is null, or
+     *          `width` is not wider than the marker
+     */
+    public WrappedText(SourceText source, int width, String marker) {
+        if ( source == null || marker == null ) {
+            throw new IllegalArgumentException("No text or marker provided.");
+        }
+        if ( width <= marker.length() ) {
+            throw new IllegalArgumentException("The width must be wider than "
+                    + "the continuation marker.");
+        }
+        
+        this.source = source;
+        this.marker = marker;
+        this.buffer = new StringBuilder(width);
+        this.cachedLine = -1;
+        
+        int capacity = 16;
+        this.pieceLines = new int[capacity];
+        this.sourceLines = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        
+        wrap(width - marker.length(), width);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    @Override
+    public String line(int line) {
+        if ( line < 0 || line >= count ) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " 
+                    + count);
+        }
+        
+        int piece = Arrays.binarySearch(pieceLines, 0, pieces, line);
+        if ( piece < 0 ) {
+            return sourceText(sourceOf(line, piece));
+        }
+        
+        String text = sourceText(sourceLines[piece]);
+        // A line whose length was counted from its bytes may decode shorter,
+        // if it has bytes that are not valid in its encoding.
+        int end = Math.min(ends[piece], text.length());
+        int start = Math.min(starts[piece], end);
+        
+        if ( isContinued(piece) ) {
+            buffer.setLength(0);
+            return buffer.append(text, start, end).append(marker).toString();
+        }
+        
+        return text.substring(start, end);
+    }
+    
+    /**
+     * Retrieves the line of the source text the given line was cut from.
+     * 
+     * @param line The line number, counting from zero.
+     * @return int the line of the source text
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    public int sourceLine(int line) {
+        if ( line < 0 || line >= count ) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " 
+                    + count);
+        }
+        
+        return sourceOf(line, Arrays.binarySearch(pieceLines, 0, pieces, 
+                line));
+    }
+    
+    @Override
+    public String getEncoding() {
+        return source.getEncoding();
+    }
+    
+    @Override
+    public void window(int first, int end) {
+        first = Math.max(0, first);
+        end = Math.min(count, end);
+        
+        if ( first < end ) {
+            source.window(sourceLine(first), sourceLine(end - 1) + 1);
+        }
+    }
+    
+    @Override
+    public void close() {
+        cachedText = null;
+        source.close();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void wrap(int room, int width) {
+        int size = source.size();
+        
+        for ( int line = 0; line < size; line++ ) {
+            // Only the lines that are too long are decoded, to find the spaces
+            // to break them at.
+            if ( source.length(line) <= width ) {
+                count++;
+                continue;
+            }
+            
+            String text = source.line(line);
+            int length = text.length();
+            if ( length <= width ) {
+                count++;
+                continue;
+            }
+            
+            int first = pieces;
+            int start = 0;
+            
+            while ( length - start > width ) {
+                int end = breakAt(text, start, start + room);
+                add(line, start, end);
+                
+                // The spaces the line was broken at are not carried over.
+                start = end;
+                while ( start < length && text.charAt(start) == ' ' ) {
+                    start++;
+                }
+            }
+            
+            if ( start < length ) {
+                add(line, start, length);
+            } else if ( pieces == first + 1 ) {
+                // Only spaces were left over, so the line is printed as it is.
+                pieces--;
+            }
+        }
+    }
+    
+    private void add(int line, int start, int end) {
+        if ( pieces == starts.length ) {
+            int capacity = pieces + (pieces >> 1);
+            pieceLines = Arrays.copyOf(pieceLines, capacity);
+            sourceLines = Arrays.copyOf(sourceLines, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        
+        pieceLines[pieces] = count;
+        sourceLines[pieces] = line;
+        starts[pieces] = start;
+        ends[pieces] = end;
+        pieces++;
+        count++;
+    }
+    
+    /**
+     * Retrieves the source line of the given line, from where it was found
+     * among the pieces of the wrapped lines. A line that is not a piece 
+     * follows the last piece before it as far on in the source text as it 
+     * does in the wrapped text.
+     */
+    private int sourceOf(int line, int piece) {
+        if ( piece >= 0 ) {
+            return sourceLines[piece];
+        }
+        
+        int before = -piece - 2;
+        
+        return before < 0 ? line 
+                : sourceLines[before] + line - pieceLines[before];
+    }
+    
+    /**
+     * Retrieves a line of the source text, keeping the last one, as the pieces
+     * of a long line are printed one after another.
+     */
+    private String sourceText(int line) {
+        if ( line != cachedLine ) {
+            cachedText = source.line(line);
+            cachedLine = line;
+        }
+        
+        return cachedText;
+    }
+    
+    private boolean isContinued(int piece) {
+        return piece + 1 < pieces 
+                && sourceLines[piece + 1] == sourceLines[piece];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    /**
+     * Finds where to end the piece of `text` starting at `start`, which may run
+     * to `limit`: at the last space that fits, or at `limit` itself.
+     */
+    private static int breakAt(String text, int start, int limit) {
+        for ( int i = limit; i > start; i-- ) {
+            if ( text.charAt(i) == ' ' ) {
+                return i;
+            }
+        }
+        
+        // Do not split a character that takes two chars.
+        if ( limit - start > 1 
+                && Character.isHighSurrogate(text.charAt(limit - 1)) ) {
+            return limit - 1;
+        }
+        
+        return limit;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.walker;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A `FilePlan` is the result of walking a project's source tree one time. It
+ * holds every file that is to be printed, sorted by path, along with the 
+ * totals that are needed to drive the progress bars: the number of files, the
+ * number of bytes and the per-folder totals.
+ * 
+ * Because the plan is built from a single pass over the file system, it can be
+ * used as many times as needed during a print job, without going back to the
+ * disk to find out what is there.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class FilePlan {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path root;
+    private final List<PlannedFile> files;
+    private final Map<Path, FolderTotals> folders;
+    private final Map<String, Integer> languages;
+    private final int foldersVisited;
+    private long totalBytes;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `FilePlan` from the files gathered by the `TreeWalker`.
+     * The files are sorted by path and totaled up by folder here, so that the
+     * plan is ready to use as soon as it is constructed.
+     * 
+     * @param root              The top-level folder that was walked.
+     * @param files             The files that were accepted during the walk.
+     * @param foldersVisited    The number of folders that were walked.
+     */
+    FilePlan (Path root, List<PlannedFile> files, int foldersVisited) {
+        this.root = root;
+        this.foldersVisited = foldersVisited;
+        
+        List<PlannedFile> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparing(PlannedFile::getPath));
+        this.files = Collections.unmodifiableList(sorted);
+        
+        this.folders = new LinkedHashMap<>();
+        this.languages = new TreeMap<>();
+        for ( PlannedFile f : this.files ) {
+            totalBytes += f.getSize();
+            folders.computeIfAbsent(f.getFolder(), k -> new FolderTotals())
+                    .add(f.getSize());
+            if ( f.getLanguage() != null ) {
+                languages.merge(f.getLanguage(), 1, Integer::sum);
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public Path getRoot() {
+        return root;
+    }
+    
+    /**
+     * Retrieves the files in this plan, sorted by their path.
+     * 
+     * @return unmodifiable List of the planned files
+     */
+    public List<PlannedFile> getFiles() {
+        return files;
+    }
+    
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Retrieves the number of folders that actually contain files to be 
+     * printed. This is the value to use for a per-folder progress bar.
+     * 
+     * @return int number of folders holding planned files
+     */
+    public int getFolderCount() {
+        return folders.size();
+    }
+    
+    /**
+     * Retrieves the number of folders that were walked to build this plan,
+     * including those that had nothing in them to print.
+     * 
+     * @return int number of folders visited
+     */
+    public int getFoldersVisited() {
+        return foldersVisited;
+    }
+    
+    /**
+     * Retrieves the totals for the specified folder.
+     * 
+     * @param folder The folder to get the totals for.
+     * @return FolderTotals for the folder, or `null` if no planned files are
+     *          in that folder
+     */
+    public FolderTotals getFolderTotals(Path folder) {
+        return folders.get(folder);
+    }
+    
+    /**
+     * Retrieves the totals of all folders holding planned files, in the same
+     * order in which those folders are reached in the plan.
+     * 
+     * @return unmodifiable Map of folders to their totals
+     */
+    public Map<Path, FolderTotals> getFolders() {
+        return Collections.unmodifiableMap(folders);
+    }
+    
+    /**
+     * Retrieves the number of planned files of each language, for files that
+     * were tagged with their language.
+     * 
+     * @return unmodifiable Map of language codes to file counts
+     */
+    public Map<String, Integer> getLanguageCounts() {
+        return Collections.unmodifiableMap(languages);
+    }
+    //</editor-fold>
+
+    /**
+     * Running totals for a single folder in the plan.
+     */
+    public static final class FolderTotals {
+        private int files;
+        private long bytes;
+        
+        void add(long size) {
+            files++;
+            bytes += size;
+        }
+        
+        public int getFiles() {
+            return files;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.is2300.rcp.walker;
+
+import com.is2300.rcp.filters.GitIgnore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * `IgnoreStack` keeps the ignore files that apply to the folder `TreeWalker` is
+ * currently in. Each folder's `.gitignore` is pushed when the walk enters the
+ * folder and popped when it leaves, so the rules for a folder are compiled one
+ * time and shared by everything below it.
+ * 
+ * When the walk starts inside a `git` work tree, the `.git/info/exclude` file
+ * and the `.gitignore` files of the folders between the top of the work tree 
+ * and the walk's root are loaded first, just as `git` would see them.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+final class IgnoreStack {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path top;
+    private final Deque<Frame> frames;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates the stack for a walk starting at the given folder.
+     * 
+     * @param root The absolute path of the folder the walk starts in.
+     */
+    IgnoreStack(Path root) {
+        this.frames = new ArrayDeque<>();
+        this.top = findTop(root);
+        
+        if ( top != null ) {
+            push(top, GitIgnore.load(top.resolve(".git").resolve("info")
+                    .resolve("exclude")));
+            
+            List<Path> parents = new ArrayList<>();
+            for ( Path p = root.getParent(); p != null && p.startsWith(top); 
+                    p = p.getParent() ) {
+                parents.add(0, p);
+            }
+            for ( Path parent : parents ) {
+                enter(parent);
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    /**
+     * Pushes the ignore file of a folder that the walk has just entered.
+     * 
+     * @param dir The folder.
+     */
+    void enter(Path dir) {
+        push(dir, GitIgnore.load(dir.resolve(".gitignore")));
+    }
+    
+    /**
+     * Pops the ignore file of a folder that the walk is leaving, if it had one.
+     * 
+     * @param dir The folder.
+     */
+    void leave(Path dir) {
+        Frame frame = frames.peek();
+        
+        if ( frame != null && frame.dir.equals(dir) ) {
+            frames.pop();
+        }
+    }
+    
+    /**
+     * Tests whether the file or folder is ignored. The deepest ignore file 
+     * with a matching pattern decides.
+     * 
+     * @param path      The absolute path of the file or folder.
+     * @param directory `true` if the path is a folder.
+     * @return `true` if the path is ignored
+     */
+    boolean isIgnored(Path path, boolean directory) {
+        Path name = path.getFileName();
+        if ( directory && name != null && ".git".equals(name.toString()) ) {
+            return true;
+        }
+        
+        if ( frames.isEmpty() ) {
+            return false;
+        }
+        
+        String relative = separate(frames.getLast().dir.relativize(path));
+        
+        // Frames are kept deepest first.
+        Iterator<Frame> it = frames.iterator();
+        while ( it.hasNext() ) {
+            Frame frame = it.next();
+            Boolean ignored = frame.rules.match(
+                    relative.substring(frame.offset), directory);
+            if ( ignored != null ) {
+                return ignored;
+            }
+        }
+        
+        return false;
+    }
+    
+    boolean isEmpty() {
+        return frames.isEmpty();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void push(Path dir, GitIgnore rules) {
+        if ( rules == null ) {
+            return;
+        }
+        
+        // Relative paths are all taken from the bottom frame, so each frame
+        // only needs to know how much of the front of them to skip.
+        int offset = 0;
+        if ( !frames.isEmpty() ) {
+            Path base = frames.getLast().dir;
+            if ( !dir.equals(base) ) {
+                offset = separate(base.relativize(dir)).length() + 1;
+            }
+        }
+        
+        frames.push(new Frame(dir, offset, rules));
+    }
+    
+    private static Path findTop(Path root) {
+        for ( Path p = root; p != null; p = p.getParent() ) {
+            if ( Files.exists(p.resolve(".git")) ) {
+                return p;
+            }
+        }
+        
+        return null;
+    }
+    
+    private static String separate(Path relative) {
+        String text = relative.toString();
+        
+        return relative.getFileSystem().getSeparator().equals("/") ? text 
+                : text.replace(relative.getFileSystem().getSeparator(), "/");
+    }
+    //</editor-fold>
+
+    /**
+     * The compiled ignore file of one folder.
+     */
+    private static final class Frame {
+        private final Path dir;
+        private final int offset;
+        private final GitIgnore rules;
+        
+        Frame(Path dir, int offset, GitIgnore rules) {
+            this.dir = dir;
+            this.offset = offset;
+            this.rules = rules;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.walker;
+
+import java.nio.file.Path;
+
+/**
+ * A `PlannedFile` is a single entry in a `FilePlan`. It carries the metadata
+ * that was read from the file system while the tree was being walked, so that
+ * nothing further down the print job needs to go back to the disk just to ask
+ * for the size or the modification time of a file. It also carries the code of
+ * the language the file was matched as, so the later stages of the job know
+ * what the file is without matching it again.
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class PlannedFile {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+    private final String language;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a new `PlannedFile` entry.
+     * 
+     * @param path          The absolute path to the file.
+     * @param size          The size of the file, in bytes.
+     * @param lastModified  The last modified time of the file, in milliseconds
+     *                      since the epoch.
+     */
+    public PlannedFile (Path path, long size, long lastModified) {
+        this(path, size, lastModified, null);
+    }
+    
+    /**
+     * Creates a new `PlannedFile` entry, tagged with its language.
+     * 
+     * @param path          The absolute path to the file.
+     * @param size          The size of the file, in bytes.
+     * @param lastModified  The last modified time of the file, in milliseconds
+     *                      since the epoch.
+     * @param language      The code of the language the file was matched as,
+     *                      or `null` if it is not known.
+     */
+    public PlannedFile (Path path, long size, long lastModified, 
+            String language) {
+        if ( path == null ) {
+            throw new IllegalArgumentException("No path provided.");
+        }
+        
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.language = language;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Retrieves the folder in which this file lives.
+     * 
+     * @return Path of the parent folder
+     */
+    public Path getFolder() {
+        return path.getParent();
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public long getLastModified() {
+        return lastModified;
+    }
+    
+    /**
+     * Retrieves the code of the language this file was matched as.
+     * 
+     * @return String language code, or `null` if it is not known
+     */
+    public String getLanguage() {
+        return language;
+    }
+    
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2019 Integrity Solutions
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.is2300.rcp.walker;
+
+import com.is2300.rcp.filters.FileFilterEx;
+import com.is2300.rcp.filters.LanguageDetector;
+import com.is2300.rcp.filters.PathRules;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * `TreeWalker` is the discovery engine for a print job. It walks the project's
+ * source tree exactly one time, using `Files.walkFileTree`, and reads the
+ * `BasicFileAttributes` of each entry as it is listed. From that single pass
+ * it builds a `FilePlan` that is used for both sizing the progress bars and 
+ * for printing, so the tree is never walked a second time.
+ * 
+ * Typically, this class will be used in this manner:
+ * 
+ * ```java
+ * FilePlan plan = TreeWalker.walk(Paths.get(srcFolder), filter);
+ * 
+ * for ( PlannedFile file : plan.getFiles() ) {
+ *     // Print the file.
+ * }
+ * ```
+ * 
+ * @author Sean Carrick &lt;sean at carricktrucking dot com&gt;
+ * 
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class TreeWalker {
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private TreeWalker () {
+        
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Walks the tree starting at `root` and builds the `FilePlan` for all of
+     * the regular files that are accepted by the `filter`.
+     * 
+     * If `root` is a file, rather than a folder, the plan will contain only
+     * that file, provided it is accepted by the filter.
+     * 
+     * @param root      The top-level folder of the tree to walk.
+     * @param filter    The filter used to select the files to print.
+     * @return FilePlan of all files to be printed
+     * @throws IllegalArgumentException if `root` or `filter` is null
+     * @throws IOException if the tree cannot be walked
+     */
+    public static FilePlan walk(Path root, FileFilter filter) 
+            throws IOException {
+        return walk(root, filter, PathRules.NONE);
+    }
+    
+    /**
+     * Walks the tree starting at `root` and builds the `FilePlan` for all of
+     * the regular files that are accepted by the `filter` and the `rules`. Any
+     * folder excluded by the rules, or ignored by `git` when the rules ask for
+     * it, is skipped as soon as it is reached, without listing what is in it.
+     * 
+     * @param root      The top-level folder of the tree to walk.
+     * @param filter    The filter used to select the files to print.
+     * @param rules     The include and exclude rules for the project.
+     * @return FilePlan of all files to be printed
+     * @throws IllegalArgumentException if `root` or `filter` is null
+     * @throws IOException if the tree cannot be walked
+     */
+    public static FilePlan walk(Path root, FileFilter filter, PathRules rules)
+            throws IOException {
+        return walk(root, filter, rules, null);
+    }
+    
+    /**
+     * Walks the tree as `walk(Path, FileFilter, PathRules)` does, and also 
+     * uses the `detector` to look inside the files that the filter cannot
+     * place by their name alone: files whose extension belongs to more than
+     * one of the filter's languages, such as `.h`, and files without any 
+     * extension, which are only added if their content shows them to be in
+     * one of the filter's languages.
+     * 
+     * @param root      The top-level folder of the tree to walk.
+     * @param filter    The filter used to select the files to print.
+     * @param rules     The include and exclude rules for the project.
+     * @param detector  The detector for the content of the files; may be
+     *                  `null` to go by the names of the files alone.
+     * @return FilePlan of all files to be printed
+     * @throws IllegalArgumentException if `root` or `filter` is null
+     * @throws IOException if the tree cannot be walked
+     */
+    public static FilePlan walk(Path root, FileFilter filter, PathRules rules,
+            LanguageDetector detector) throws IOException {
+        if ( root == null ) {
+            throw new IllegalArgumentException("The path cannot be null.");
+        }
+        if ( filter == null ) {
+            throw new IllegalArgumentException("No file filter provided.");
+        }
+        
+        Path start = root.toAbsolutePath();
+        Visitor visitor = new Visitor(start, filter, 
+                rules == null ? PathRules.NONE : rules, 
+                filter instanceof FileFilterEx ? detector : null);
+        Files.walkFileTree(start, visitor);
+        
+        if ( visitor.pruned > 0 ) {
+            System.out.println("Pruned " + visitor.pruned + " folder(s) by "
+                    + rules);
+        }
+        
+        return new FilePlan(start, visitor.files, visitor.folders);
+    }
+    //</editor-fold>
+
+    /**
+     * The visitor that collects the files for the plan. All of the metadata
+     * is taken from the attributes handed to us by the walk, so no further
+     * calls to the file system are needed for each file.
+     */
+    private static class Visitor extends SimpleFileVisitor<Path> {
+        private final Path root;
+        private final FileFilter filter;
+        private final PathRules rules;
+        private final IgnoreStack ignored;
+        private final LanguageDetector detector;
+        private final List<PlannedFile> files;
+        private int folders;
+        private int pruned;
+        
+        Visitor(Path root, FileFilter filter, PathRules rules, 
+                LanguageDetector detector) {
+            this.root = root;
+            this.filter = filter;
+            this.rules = rules;
+            this.ignored = rules.isGitIgnore() ? new IgnoreStack(root) : null;
+            this.detector = detector;
+            this.files = new ArrayList<>();
+            this.folders = 0;
+        }
+        
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, 
+                BasicFileAttributes attrs) {
+            if ( !dir.equals(root) && prune(dir) ) {
+                pruned++;
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            
+            if ( ignored != null ) {
+                ignored.enter(dir);
+            }
+            folders++;
+            
+            return FileVisitResult.CONTINUE;
+        }
+        
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException ex) {
+            if ( ignored != null ) {
+                ignored.leave(dir);
+            }
+            if ( ex != null ) {
+                System.err.println("Unable to list " + dir + ": " 
+                        + ex.getMessage());
+            }
+            
+            return FileVisitResult.CONTINUE;
+        }
+        
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if ( !attrs.isRegularFile() ) {
+                return FileVisitResult.CONTINUE;
+            }
+            
+            boolean matched = accept(file, attrs);
+            if ( !matched && !sniffable(file) ) {
+                return FileVisitResult.CONTINUE;
+            }
+            if ( !rules.isEmpty() && !rules.accept(root.relativize(file)) 
+                    || ignored != null && ignored.isIgnored(file, false) ) {
+                return FileVisitResult.CONTINUE;
+            }
+            
+            long modified = attrs.lastModifiedTime().toMillis();
+            String language;
+            if ( matched ) {
+                language = languageOf(file, attrs.size(), modified);
+            } else {
+                language = detector.identify(file, attrs.size(), modified);
+                
+                if ( !((FileFilterEx)filter).handles(language) ) {
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+            
+            files.add(new PlannedFile(file, attrs.size(), modified, language));
+            
+            return FileVisitResult.CONTINUE;
+        }
+        
+        private boolean prune(Path dir) {
+            if ( !rules.isEmpty() && rules.prune(root.relativize(dir)) ) {
+                return true;
+            }
+            
+            return ignored != null && ignored.isIgnored(dir, true);
+        }
+        
+        private boolean accept(Path file, BasicFileAttributes attrs) {
+            if ( filter instanceof FileFilterEx ) {
+                // We already know what this is, so don't ask the disk again.
+                return ((FileFilterEx)filter).accept(
+                        file.getFileName().toString(), attrs.isDirectory());
+            }
+            
+            return filter.accept(file.toFile());
+        }
+        
+        private String languageOf(Path file, long size, long modified) {
+            if ( !(filter instanceof FileFilterEx) ) {
+                return null;
+            }
+            
+            String name = file.getFileName().toString();
+            if ( detector == null ) {
+                return ((FileFilterEx)filter).languageOf(name);
+            }
+            
+            return detector.resolve(file, size, modified, 
+                    ((FileFilterEx)filter).languagesOf(name));
+        }
+        
+        /**
+         * Only files without an extension are looked inside of when the
+         * filter does not accept them; dot-files, such as `.bashrc`, count.
+         */
+        private boolean sniffable(Path file) {
+            return detector != null 
+                    && file.getFileName().toString().lastIndexOf('.') <= 0;
+        }
+        
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException ex) {
+            System.err.println("Unable to read " + file + ": " 
+                    + ex.getMessage());
+            
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+}